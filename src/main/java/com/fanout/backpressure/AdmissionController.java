@@ -0,0 +1,28 @@
+package com.fanout.backpressure;
+
+import com.fanout.model.Record;
+
+/**
+ * Strategy interface for admitting records into the fan-out pipeline under backpressure
+ */
+public interface AdmissionController extends AutoCloseable {
+    /**
+     * Admit a record and hand it to the dispatcher, or shed/park it according to the strategy
+     */
+    void submit(Record record) throws InterruptedException;
+
+    /**
+     * Block until every record parked by this controller has been dispatched
+     */
+    default void awaitReplayed() throws InterruptedException {
+    }
+
+    /**
+     * Get the strategy name
+     */
+    String getStrategy();
+
+    @Override
+    default void close() throws Exception {
+    }
+}
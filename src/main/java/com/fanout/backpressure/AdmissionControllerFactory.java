@@ -0,0 +1,30 @@
+package com.fanout.backpressure;
+
+import com.fanout.config.Configuration;
+import com.fanout.model.Record;
+import com.fanout.orchestrator.InFlightTracker;
+import com.fanout.util.MetricsCollector;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Factory for creating the admission controller selected by backpressure.strategy
+ */
+public class AdmissionControllerFactory {
+
+    public static AdmissionController createAdmissionController(Configuration config,
+                                                                InFlightTracker tracker,
+                                                                Consumer<Record> dispatcher,
+                                                                MetricsCollector metrics) throws IOException {
+        String strategy = config.getBackpressureStrategy();
+        return switch (strategy.toUpperCase()) {
+            case "BLOCK" -> new BlockingAdmissionController(tracker, dispatcher, metrics);
+            case "DROP" -> new DroppingAdmissionController(tracker, dispatcher, metrics);
+            case "BUFFER" -> new SpillingAdmissionController(tracker, dispatcher, metrics,
+                    Path.of(config.getSpillPath()), config.getMaxSpillBytes());
+            default -> throw new IllegalArgumentException("Unknown backpressure strategy: " + strategy);
+        };
+    }
+}
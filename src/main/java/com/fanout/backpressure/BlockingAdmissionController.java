@@ -0,0 +1,36 @@
+package com.fanout.backpressure;
+
+import com.fanout.model.Record;
+import com.fanout.orchestrator.InFlightTracker;
+import com.fanout.util.MetricsCollector;
+
+import java.util.function.Consumer;
+
+/**
+ * BLOCK strategy - stalls ingestion until a slot frees up, never drops
+ */
+public class BlockingAdmissionController implements AdmissionController {
+    private final InFlightTracker tracker;
+    private final Consumer<Record> dispatcher;
+    private final MetricsCollector metrics;
+
+    public BlockingAdmissionController(InFlightTracker tracker, Consumer<Record> dispatcher,
+                                       MetricsCollector metrics) {
+        this.tracker = tracker;
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void submit(Record record) throws InterruptedException {
+        long start = System.nanoTime();
+        tracker.admit();
+        metrics.recordAdmitted(System.nanoTime() - start);
+        dispatcher.accept(record);
+    }
+
+    @Override
+    public String getStrategy() {
+        return "BLOCK";
+    }
+}
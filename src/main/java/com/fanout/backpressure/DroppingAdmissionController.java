@@ -0,0 +1,45 @@
+package com.fanout.backpressure;
+
+import com.fanout.model.Record;
+import com.fanout.orchestrator.InFlightTracker;
+import com.fanout.util.MetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * DROP strategy - sheds load immediately when the pipeline is full and counts every drop
+ */
+public class DroppingAdmissionController implements AdmissionController {
+    private static final Logger logger = LoggerFactory.getLogger(DroppingAdmissionController.class);
+
+    private final InFlightTracker tracker;
+    private final Consumer<Record> dispatcher;
+    private final MetricsCollector metrics;
+
+    public DroppingAdmissionController(InFlightTracker tracker, Consumer<Record> dispatcher,
+                                       MetricsCollector metrics) {
+        this.tracker = tracker;
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void submit(Record record) throws InterruptedException {
+        long start = System.nanoTime();
+        if (!tracker.tryAdmit(0, TimeUnit.NANOSECONDS)) {
+            metrics.recordDropped();
+            logger.debug("Pipeline full, dropping record: {}", record.getId());
+            return;
+        }
+        metrics.recordAdmitted(System.nanoTime() - start);
+        dispatcher.accept(record);
+    }
+
+    @Override
+    public String getStrategy() {
+        return "DROP";
+    }
+}
@@ -0,0 +1,322 @@
+package com.fanout.backpressure;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded, append-only on-disk FIFO of length-prefixed binary records. Every value carries
+ * a type tag, so a replayed record holds the same types it was spilled with and encodes the
+ * same as one that never spilled; it also keeps its sequence, and records with the same
+ * fields share one schema again.
+ * Not thread-safe; callers serialize access.
+ */
+class SpillFile implements AutoCloseable {
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte BIG_DECIMAL = 10;
+    private static final byte INSTANT = 11;
+    private static final byte BYTES = 12;
+    private static final byte MAP = 13;
+    private static final byte LIST = 14;
+    // Any other type, written as JSON and read back as whatever Jackson makes of it
+    private static final byte JSON = 15;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long maxBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RecordSchema.Cache schemas = new RecordSchema.Cache();
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+    private final ByteArrayOutputStream entry = new ByteArrayOutputStream(1024);
+    private long readPosition;
+    private long writePosition;
+
+    SpillFile(Path directory, long maxBytes) throws IOException {
+        Files.createDirectories(directory);
+        this.path = Files.createTempFile(directory, "spill-", ".bin");
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Append a record to the tail of the file
+     * @return false if the record would exceed the size bound
+     */
+    boolean append(Record record) throws IOException {
+        entry.reset();
+        DataOutputStream out = new DataOutputStream(entry);
+        out.writeInt(0); // length, filled in below
+        writeRecord(out, record);
+        int size = entry.size();
+        if (writePosition + size > maxBytes) {
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(entry.toByteArray()).putInt(0, size - Integer.BYTES);
+        while (buffer.hasRemaining()) {
+            writePosition += channel.write(buffer, writePosition);
+        }
+        return true;
+    }
+
+    /**
+     * Remove and return the record at the head of the file, or null if it is empty.
+     * The file is truncated whenever the reader catches up with the writer.
+     */
+    Record poll() throws IOException {
+        if (readPosition == writePosition) {
+            if (writePosition > 0) {
+                channel.truncate(0);
+                readPosition = 0;
+                writePosition = 0;
+            }
+            return null;
+        }
+
+        lengthBuffer.clear();
+        readFully(lengthBuffer, readPosition);
+        int length = lengthBuffer.flip().getInt();
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(payload, readPosition + Integer.BYTES);
+        readPosition += Integer.BYTES + length;
+
+        return readRecord(new DataInputStream(new ByteArrayInputStream(payload.array())));
+    }
+
+    boolean isEmpty() {
+        return readPosition == writePosition;
+    }
+
+    long sizeBytes() {
+        return writePosition - readPosition;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Truncated spill file: " + path);
+            }
+            position += read;
+        }
+    }
+
+    private void writeRecord(DataOutputStream out, Record record) throws IOException {
+        out.writeLong(record.getSequence());
+        writeString(out, record.getId());
+        out.writeLong(record.getTimestampMillis());
+        writeString(out, record.getSource());
+        out.writeInt(record.getRetryCount());
+        RecordSchema schema = record.getSchema();
+        out.writeInt(schema.size());
+        for (int i = 0; i < schema.size(); i++) {
+            writeString(out, schema.getField(i));
+        }
+        for (int i = 0; i < schema.size(); i++) {
+            writeValue(out, record.get(i));
+        }
+    }
+
+    private Record readRecord(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        String id = readString(in);
+        long timestampMillis = in.readLong();
+        String source = readString(in);
+        int retryCount = in.readInt();
+        int size = in.readInt();
+        List<String> fields = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            fields.add(readString(in));
+        }
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = readValue(in);
+        }
+        return new Record(sequence, id, schemas.get(fields), values, timestampMillis, source, retryCount);
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NULL);
+            case String string -> {
+                out.writeByte(STRING);
+                writeString(out, string);
+            }
+            case Boolean bool -> {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(bool);
+            }
+            case Byte b -> {
+                out.writeByte(BYTE);
+                out.writeByte(b);
+            }
+            case Short s -> {
+                out.writeByte(SHORT);
+                out.writeShort(s);
+            }
+            case Integer i -> {
+                out.writeByte(INT);
+                out.writeInt(i);
+            }
+            case Long l -> {
+                out.writeByte(LONG);
+                out.writeLong(l);
+            }
+            case Float f -> {
+                out.writeByte(FLOAT);
+                out.writeFloat(f);
+            }
+            case Double d -> {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            }
+            case BigInteger integer -> {
+                out.writeByte(BIG_INTEGER);
+                writeBytes(out, integer.toByteArray());
+            }
+            case BigDecimal decimal -> {
+                out.writeByte(BIG_DECIMAL);
+                out.writeInt(decimal.scale());
+                writeBytes(out, decimal.unscaledValue().toByteArray());
+            }
+            case Instant instant -> {
+                out.writeByte(INSTANT);
+                out.writeLong(instant.getEpochSecond());
+                out.writeInt(instant.getNano());
+            }
+            case byte[] bytes -> {
+                out.writeByte(BYTES);
+                writeBytes(out, bytes);
+            }
+            case Map<?, ?> map -> {
+                out.writeByte(MAP);
+                out.writeInt(map.size());
+                for (Map.Entry<?, ?> field : map.entrySet()) {
+                    writeString(out, String.valueOf(field.getKey()));
+                    writeValue(out, field.getValue());
+                }
+            }
+            case List<?> list -> {
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object element : list) {
+                    writeValue(out, element);
+                }
+            }
+            default -> {
+                out.writeByte(JSON);
+                writeBytes(out, objectMapper.writeValueAsBytes(value));
+            }
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> readString(in);
+            case BOOLEAN -> in.readBoolean();
+            case BYTE -> in.readByte();
+            case SHORT -> in.readShort();
+            case INT -> in.readInt();
+            case LONG -> in.readLong();
+            case FLOAT -> in.readFloat();
+            case DOUBLE -> in.readDouble();
+            case BIG_INTEGER -> new BigInteger(readBytes(in));
+            case BIG_DECIMAL -> {
+                int scale = in.readInt();
+                yield new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+            case INSTANT -> Instant.ofEpochSecond(in.readLong(), in.readInt());
+            case BYTES -> readBytes(in);
+            case MAP -> {
+                int size = in.readInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in), readValue(in));
+                }
+                yield map;
+            }
+            case LIST -> {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case JSON -> objectMapper.readValue(readBytes(in), Object.class);
+            default -> throw new IOException("Unknown value tag " + tag + " in spill file " + path);
+        };
+    }
+
+    /**
+     * Length-prefixed UTF-8, since writeUTF caps strings at 64KB; -1 stands for null
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(readBytes(in, length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        return readBytes(in, in.readInt());
+    }
+
+    private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+}
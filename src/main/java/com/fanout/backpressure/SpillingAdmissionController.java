@@ -0,0 +1,176 @@
+package com.fanout.backpressure;
+
+import com.fanout.model.Record;
+import com.fanout.orchestrator.InFlightTracker;
+import com.fanout.util.MetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * BUFFER strategy - overflows to a bounded on-disk spill file when the pipeline is full
+ * and replays it in order as slots free up. Falls back to blocking once the spill file is full.
+ */
+public class SpillingAdmissionController implements AdmissionController {
+    private static final Logger logger = LoggerFactory.getLogger(SpillingAdmissionController.class);
+
+    private final InFlightTracker tracker;
+    private final Consumer<Record> dispatcher;
+    private final MetricsCollector metrics;
+    private final SpillFile spillFile;
+    private final AtomicLong parked = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition spillAvailable = lock.newCondition();
+    private final Condition replayed = lock.newCondition();
+    private final Thread replayThread;
+    private volatile boolean closed = false;
+
+    public SpillingAdmissionController(InFlightTracker tracker, Consumer<Record> dispatcher,
+                                       MetricsCollector metrics, Path spillDirectory,
+                                       long maxSpillBytes) throws IOException {
+        this.tracker = tracker;
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        this.spillFile = new SpillFile(spillDirectory, maxSpillBytes);
+        this.replayThread = Thread.ofPlatform()
+                .name("spill-replay")
+                .daemon(true)
+                .start(this::replayLoop);
+        logger.info("Spill buffer initialized at {} (max {} bytes)", spillDirectory, maxSpillBytes);
+    }
+
+    @Override
+    public void submit(Record record) throws InterruptedException {
+        long start = System.nanoTime();
+
+        // Once anything is parked, new records queue behind it to keep replay fair
+        if (parked.get() == 0 && tracker.tryAdmit(0, TimeUnit.NANOSECONDS)) {
+            metrics.recordAdmitted(System.nanoTime() - start);
+            dispatcher.accept(record);
+            return;
+        }
+
+        if (spill(record)) {
+            metrics.recordSpilled();
+            return;
+        }
+
+        // Spill file is full - degrade to BLOCK rather than lose the record
+        tracker.admit();
+        metrics.recordAdmitted(System.nanoTime() - start);
+        dispatcher.accept(record);
+    }
+
+    private boolean spill(Record record) {
+        lock.lock();
+        try {
+            if (closed || !spillFile.append(record)) {
+                return false;
+            }
+            parked.incrementAndGet();
+            spillAvailable.signal();
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to spill record {}", record.getId(), e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void replayLoop() {
+        try {
+            while (true) {
+                Record next = takeSpilled();
+                if (next == null) {
+                    return;
+                }
+
+                tracker.admit();
+                metrics.recordReplayed();
+                dispatcher.accept(next);
+
+                if (parked.decrementAndGet() == 0) {
+                    signalReplayed();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Spill file unreadable, {} parked records lost", parked.get(), e);
+            parked.set(0);
+            signalReplayed();
+        }
+    }
+
+    private Record takeSpilled() throws InterruptedException, IOException {
+        lock.lock();
+        try {
+            Record next;
+            while ((next = spillFile.poll()) == null) {
+                if (closed) {
+                    return null;
+                }
+                spillAvailable.await();
+            }
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signalReplayed() {
+        lock.lock();
+        try {
+            replayed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitReplayed() throws InterruptedException {
+        lock.lock();
+        try {
+            while (parked.get() > 0) {
+                replayed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getParked() {
+        return parked.get();
+    }
+
+    @Override
+    public String getStrategy() {
+        return "BUFFER";
+    }
+
+    @Override
+    public void close() throws Exception {
+        lock.lock();
+        try {
+            closed = true;
+            spillAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        replayThread.interrupt();
+        replayThread.join();
+
+        if (parked.get() > 0) {
+            logger.warn("Closing spill buffer with {} records still parked", parked.get());
+        }
+        spillFile.close();
+    }
+}
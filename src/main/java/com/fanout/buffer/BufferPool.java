@@ -0,0 +1,135 @@
+package com.fanout.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of heap or direct ByteBuffers in power-of-two size classes. Encoded records borrow a
+ * buffer instead of allocating a fresh array, and return it once every sink is done with it.
+ * With leak detection on, every outstanding buffer remembers where it was acquired.
+ */
+public class BufferPool {
+    static final int MIN_CLASS_SHIFT = 8;    // 256 B
+    static final int MAX_CLASS_SHIFT = 22;   // 4 MB; larger requests are not pooled
+
+    private final boolean direct;
+    private final BlockingQueue<ByteBuffer>[] classes;
+    private final Map<PooledBuffer, Throwable> outstandingSites;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder released = new LongAdder();
+
+    public BufferPool(boolean direct, int maxPooledPerClass) {
+        this(direct, maxPooledPerClass, false);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(boolean direct, int maxPooledPerClass, boolean leakDetection) {
+        this.direct = direct;
+        this.classes = new BlockingQueue[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ArrayBlockingQueue<>(maxPooledPerClass);
+        }
+        this.outstandingSites = leakDetection ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Borrow a buffer with room for at least size bytes whose content will be size bytes long
+     */
+    public PooledBuffer acquire(int size) {
+        acquired.increment();
+        int sizeClass = sizeClass(size);
+        ByteBuffer storage = sizeClass >= 0 ? classes[sizeClass].poll() : null;
+        if (storage == null) {
+            int capacity = sizeClass >= 0 ? 1 << (sizeClass + MIN_CLASS_SHIFT) : size;
+            storage = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            allocated.increment();
+            allocatedBytes.add(capacity);
+        }
+
+        PooledBuffer buffer = new PooledBuffer(this, storage, size);
+        if (outstandingSites != null) {
+            outstandingSites.put(buffer, new Throwable("Buffer of " + size + " bytes acquired here"));
+        }
+        return buffer;
+    }
+
+    /**
+     * Borrow a buffer holding a copy of bytes[offset, offset + length)
+     */
+    public PooledBuffer copyOf(byte[] bytes, int offset, int length) {
+        PooledBuffer buffer = acquire(length);
+        buffer.storage().clear().put(bytes, offset, length);
+        return buffer;
+    }
+
+    void recycle(PooledBuffer buffer) {
+        released.increment();
+        if (outstandingSites != null) {
+            outstandingSites.remove(buffer);
+        }
+        ByteBuffer storage = buffer.storage();
+        int sizeClass = sizeClass(storage.capacity());
+        if (sizeClass >= 0 && storage.capacity() == 1 << (sizeClass + MIN_CLASS_SHIFT)) {
+            classes[sizeClass].offer(storage.clear());
+        }
+    }
+
+    private static int sizeClass(int size) {
+        int shift = Math.max(MIN_CLASS_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1));
+        return shift <= MAX_CLASS_SHIFT ? shift - MIN_CLASS_SHIFT : -1;
+    }
+
+    /**
+     * Acquisition sites of buffers not yet released; empty unless leak detection is on
+     */
+    public List<Throwable> getLeaks() {
+        return outstandingSites != null ? new ArrayList<>(outstandingSites.values()) : List.of();
+    }
+
+    /**
+     * Fail with the first leaked buffer's acquisition site as the cause
+     */
+    public void assertNoLeaks() {
+        List<Throwable> leaks = getLeaks();
+        if (!leaks.isEmpty()) {
+            throw new IllegalStateException(leaks.size() + " pooled buffers were never released", leaks.get(0));
+        }
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    /**
+     * Acquisitions that needed a new buffer because none was pooled
+     */
+    public long getAllocated() {
+        return allocated.sum();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    public long getOutstanding() {
+        return acquired.sum() - released.sum();
+    }
+
+    public double getReuseRate() {
+        long total = acquired.sum();
+        return total > 0 ? 1.0 - (double) allocated.sum() / total : 0;
+    }
+}
@@ -0,0 +1,85 @@
+package com.fanout.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference-counted buffer borrowed from a {@link BufferPool}. It starts with one reference;
+ * every holder that keeps it past the owner's release must retain it, and every retain must
+ * be paired with a release. The storage goes back to the pool when the count reaches zero.
+ */
+public final class PooledBuffer {
+    private final BufferPool pool;
+    private final ByteBuffer storage;
+    private final int length;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    PooledBuffer(BufferPool pool, ByteBuffer storage, int length) {
+        this.pool = pool;
+        this.storage = storage;
+        this.length = length;
+    }
+
+    /**
+     * Independent view of the content, positioned at 0 with limit at its length.
+     * Readers may move the view's position but must not write through it.
+     */
+    public ByteBuffer nioBuffer() {
+        checkLive();
+        return storage.duplicate().position(0).limit(length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Copy of the content for APIs that only take arrays
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[length];
+        nioBuffer().get(bytes);
+        return bytes;
+    }
+
+    public PooledBuffer retain() {
+        int current;
+        do {
+            current = references.get();
+            if (current <= 0) {
+                throw new IllegalStateException("Buffer already released");
+            }
+        } while (!references.compareAndSet(current, current + 1));
+        return this;
+    }
+
+    /**
+     * @return true if this was the last reference and the storage went back to the pool
+     */
+    public boolean release() {
+        int remaining = references.decrementAndGet();
+        if (remaining < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Buffer released more times than retained");
+        }
+        if (remaining == 0) {
+            pool.recycle(this);
+            return true;
+        }
+        return false;
+    }
+
+    public int refCount() {
+        return references.get();
+    }
+
+    ByteBuffer storage() {
+        return storage;
+    }
+
+    private void checkLive() {
+        if (references.get() <= 0) {
+            throw new IllegalStateException("Buffer already released");
+        }
+    }
+}
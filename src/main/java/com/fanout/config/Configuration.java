@@ -1,6 +1,11 @@
 package com.fanout.config;
 
+import com.fanout.ingestion.FixedWidthColumn;
 import com.fanout.model.SinkConfig;
+import com.fanout.resilience.CircuitBreakerConfig;
+import com.fanout.resilience.ConcurrencyLimitConfig;
+import com.fanout.util.DeadLetterQueueConfig;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
@@ -19,6 +24,7 @@ public class Configuration {
     private Map<String, Object> backpressure;
     private Map<String, Object> monitoring;
     private Map<String, Object> resilience;
+    private Map<String, Object> buffers;
 
     private static Configuration instance;
 
@@ -105,6 +111,14 @@ public class Configuration {
         this.resilience = resilience;
     }
 
+    public Map<String, Object> getBuffers() {
+        return buffers;
+    }
+
+    public void setBuffers(Map<String, Object> buffers) {
+        this.buffers = buffers;
+    }
+
     // Convenience methods
     public String getSourceType() {
         return (String) source.get("type");
@@ -114,6 +128,28 @@ public class Configuration {
         return (String) source.get("filePath");
     }
 
+    public List<FixedWidthColumn> getFixedWidthLayout() {
+        List<FixedWidthColumn> layout = new ObjectMapper().convertValue(source.get("layout"),
+                new TypeReference<List<FixedWidthColumn>>() { });
+        if (layout == null || layout.isEmpty()) {
+            throw new IllegalArgumentException("fixed-width source requires a layout");
+        }
+        return layout;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> getSourceColumns() {
+        return (List<String>) source.get("columns");
+    }
+
+    public int getRecordLength() {
+        return ((Number) source.getOrDefault("recordLength", 0)).intValue();
+    }
+
+    public String getSourceEncoding() {
+        return (String) source.getOrDefault("encoding", "ISO-8859-1");
+    }
+
     public int getBatchSize() {
         return (int) source.get("batchSize");
     }
@@ -134,10 +170,77 @@ public class Configuration {
         return (int) backpressure.get("queueCapacity");
     }
 
+    public String getBackpressureStrategy() {
+        return (String) backpressure.getOrDefault("strategy", "BLOCK");
+    }
+
+    public String getSpillPath() {
+        return (String) backpressure.getOrDefault("spillPath", "spill/");
+    }
+
+    public long getMaxSpillBytes() {
+        return ((Number) backpressure.getOrDefault("maxSpillMb", 256)).longValue() * 1024 * 1024;
+    }
+
     public int getStatusUpdateInterval() {
         return (int) monitoring.get("statusUpdateIntervalSeconds");
     }
 
+    /**
+     * Whether the periodic status report is printed to stdout; the final report always is
+     */
+    public boolean isConsoleStatusEnabled() {
+        return (boolean) monitoring.getOrDefault("consoleStatus", true);
+    }
+
+    /**
+     * Port serving Prometheus metrics at /metrics, or 0 to not serve them
+     */
+    public int getMetricsPort() {
+        return (int) monitoring.getOrDefault("metricsPort", 0);
+    }
+
+    /**
+     * Address the metrics endpoint binds to; loopback unless scrapes come from another host
+     */
+    public String getMetricsHost() {
+        return (String) monitoring.getOrDefault("metricsHost", "127.0.0.1");
+    }
+
+    /**
+     * Trace one record in this many through the pipeline, or 0 to trace none
+     */
+    public int getTraceSampleEvery() {
+        return (int) tracing().getOrDefault("sampleEvery", 0);
+    }
+
+    /**
+     * Spans kept in the trace ring buffer; older ones are overwritten
+     */
+    public int getTraceBufferSize() {
+        return (int) tracing().getOrDefault("bufferSize", 65536);
+    }
+
+    /**
+     * File the Chrome trace of the sampled spans is written to at shutdown
+     */
+    public String getTracePath() {
+        return (String) tracing().getOrDefault("path", "logs/trace.json");
+    }
+
+    /**
+     * Whether spans are also emitted as JFR events to a running flight recording
+     */
+    public boolean isTraceJfrEnabled() {
+        return (boolean) tracing().getOrDefault("jfr", false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> tracing() {
+        Object tracing = monitoring.get("tracing");
+        return tracing instanceof Map ? (Map<String, Object>) tracing : Map.of();
+    }
+
     public boolean isDeadLetterQueueEnabled() {
         return (boolean) resilience.get("deadLetterQueueEnabled");
     }
@@ -145,4 +248,48 @@ public class Configuration {
     public String getDeadLetterPath() {
         return (String) resilience.get("deadLetterPath");
     }
+
+    public DeadLetterQueueConfig getDeadLetterQueueConfig() {
+        Object deadLetterQueue = resilience.get("deadLetterQueue");
+        if (deadLetterQueue == null) {
+            return new DeadLetterQueueConfig();
+        }
+        return new ObjectMapper().convertValue(deadLetterQueue, DeadLetterQueueConfig.class);
+    }
+
+    public boolean isCircuitBreakerEnabled() {
+        return (boolean) resilience.getOrDefault("circuitBreakerEnabled", false);
+    }
+
+    public CircuitBreakerConfig getCircuitBreakerConfig() {
+        Object circuitBreaker = resilience.get("circuitBreaker");
+        if (circuitBreaker == null) {
+            return new CircuitBreakerConfig();
+        }
+        return new ObjectMapper().convertValue(circuitBreaker, CircuitBreakerConfig.class);
+    }
+
+    public boolean isConcurrencyLimitEnabled() {
+        return (boolean) resilience.getOrDefault("concurrencyLimitEnabled", false);
+    }
+
+    public ConcurrencyLimitConfig getConcurrencyLimitConfig() {
+        Object concurrencyLimit = resilience.get("concurrencyLimit");
+        if (concurrencyLimit == null) {
+            return new ConcurrencyLimitConfig();
+        }
+        return new ObjectMapper().convertValue(concurrencyLimit, ConcurrencyLimitConfig.class);
+    }
+
+    public boolean isBufferPoolEnabled() {
+        return buffers != null && (boolean) buffers.getOrDefault("enabled", false);
+    }
+
+    public boolean isBufferPoolDirect() {
+        return buffers != null && (boolean) buffers.getOrDefault("direct", false);
+    }
+
+    public int getBufferPoolMaxPerClass() {
+        return buffers != null ? ((Number) buffers.getOrDefault("maxPooledPerSizeClass", 1024)).intValue() : 1024;
+    }
 }
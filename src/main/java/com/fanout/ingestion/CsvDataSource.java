@@ -1,6 +1,7 @@
 package com.fanout.ingestion;
 
 import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -11,8 +12,6 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -24,6 +23,8 @@ public class CsvDataSource implements DataSource {
     private final Path filePath;
     private BufferedReader reader;
     private CSVParser csvParser;
+    private RecordSchema schema;
+    private String sourceName;
 
     public CsvDataSource(String filePath) {
         this.filePath = Path.of(filePath);
@@ -39,6 +40,8 @@ public class CsvDataSource implements DataSource {
                 .setHeader()
                 .setSkipHeaderRecord(true)
                 .build());
+        schema = RecordSchema.of(csvParser.getHeaderNames());
+        sourceName = "CSV:" + filePath.getFileName();
 
         return StreamSupport.stream(csvParser.spliterator(), false)
                 .map(this::convertToRecord)
@@ -52,9 +55,13 @@ public class CsvDataSource implements DataSource {
     }
 
     private Record convertToRecord(CSVRecord csvRecord) {
-        Map<String, Object> data = new HashMap<>();
-        csvRecord.toMap().forEach(data::put);
-        return new Record(data, "CSV:" + filePath.getFileName());
+        // Short rows leave their trailing fields null
+        Object[] values = new Object[schema.size()];
+        int columns = Math.min(values.length, csvRecord.size());
+        for (int i = 0; i < columns; i++) {
+            values[i] = csvRecord.get(i);
+        }
+        return new Record(schema, values, sourceName);
     }
 
     @Override
@@ -1,8 +1,10 @@
 package com.fanout.ingestion;
 
 import com.fanout.model.Record;
+import com.fanout.util.Tracer;
 
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Interface for data source readers
@@ -13,6 +15,19 @@ public interface DataSource {
      * This uses streaming to avoid loading entire file into memory
      */
     Stream<Record> stream() throws Exception;
+
+    /**
+     * Stream the records, recording a parse span for each sampled one. Without a tracer
+     * this is {@link #stream()} as it is.
+     */
+    default Stream<Record> stream(Tracer tracer) throws Exception {
+        Stream<Record> records = stream();
+        if (tracer == null) {
+            return records;
+        }
+        return StreamSupport.stream(new TracingSpliterator(records.spliterator(), tracer), records.isParallel())
+                .onClose(records::close);
+    }
     
     /**
      * Get the source type
@@ -1,5 +1,9 @@
 package com.fanout.ingestion;
 
+import com.fanout.config.Configuration;
+
+import java.nio.charset.Charset;
+
 /**
  * Factory for creating data source instances
  */
@@ -8,10 +12,24 @@ public class DataSourceFactory {
     public static DataSource createDataSource(String type, String filePath) {
         return switch (type.toUpperCase()) {
             case "CSV" -> new CsvDataSource(filePath);
+            case "CSV_MAPPED" -> new MappedCsvDataSource(filePath);
             case "JSONL" -> new JsonlDataSource(filePath);
-            case "FIXED_WIDTH" -> throw new UnsupportedOperationException(
-                    "Fixed-width format not yet implemented");
+            case "JSONL_MAPPED" -> new MappedJsonlDataSource(filePath);
+            case "FIXED_WIDTH" -> throw new IllegalArgumentException(
+                    "Fixed-width sources need a column layout, create them from the Configuration");
             default -> throw new IllegalArgumentException("Unknown data source type: " + type);
         };
     }
+
+    public static DataSource createDataSource(Configuration config) {
+        if ("FIXED_WIDTH".equalsIgnoreCase(config.getSourceType())) {
+            return new FixedWidthDataSource(
+                    config.getSourceFilePath(),
+                    config.getFixedWidthLayout(),
+                    config.getSourceColumns(),
+                    config.getRecordLength(),
+                    Charset.forName(config.getSourceEncoding()));
+        }
+        return createDataSource(config.getSourceType(), config.getSourceFilePath());
+    }
 }
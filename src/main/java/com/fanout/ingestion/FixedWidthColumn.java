@@ -0,0 +1,78 @@
+package com.fanout.ingestion;
+
+/**
+ * One column of a fixed-width record layout
+ */
+public class FixedWidthColumn {
+
+    public enum Type {
+        STRING,
+        INT,
+        LONG,
+        DOUBLE,
+        DECIMAL
+    }
+
+    private String name;
+    private int offset;
+    private int length;
+    private Type type = Type.STRING;
+    private boolean trim = true;
+
+    public FixedWidthColumn() {
+    }
+
+    public FixedWidthColumn(String name, int offset, int length, Type type, boolean trim) {
+        this.name = name;
+        this.offset = offset;
+        this.length = length;
+        this.type = type;
+        this.trim = trim;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Byte offset of the column from the start of the record
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public void setLength(int length) {
+        this.length = length;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Whether padding spaces are stripped from the value
+     */
+    public boolean isTrim() {
+        return trim;
+    }
+
+    public void setTrim(boolean trim) {
+        this.trim = trim;
+    }
+}
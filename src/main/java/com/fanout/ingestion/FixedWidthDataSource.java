@@ -0,0 +1,280 @@
+package com.fanout.ingestion;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Fixed-width data source driven by a column layout. Records are a fixed stride apart,
+ * so splits are computed arithmetically, and only the selected columns are read out
+ * of the memory-mapped file.
+ */
+public class FixedWidthDataSource implements DataSource {
+    private static final Logger logger = LoggerFactory.getLogger(FixedWidthDataSource.class);
+    private static final long DEFAULT_MIN_SPLIT_RECORDS = 8 * 1024;
+
+    private final Path filePath;
+    private final List<FixedWidthColumn> columns;
+    private final RecordSchema schema;
+    private final int recordLength;
+    private final int dataWidth;
+    private final Charset charset;
+    private final boolean asciiCompatible;
+    private final int windowRecords;
+    private final long minSplitRecords;
+    private final String sourceName;
+    private FileChannel channel;
+
+    /**
+     * @param layout every column of the record
+     * @param selected names of the columns to materialize, or null for all of them
+     * @param recordLength bytes from one record start to the next, including any separator;
+     *                     0 means the layout width plus a single newline
+     */
+    public FixedWidthDataSource(String filePath, List<FixedWidthColumn> layout, Collection<String> selected,
+                                int recordLength, Charset charset) {
+        this(filePath, layout, selected, recordLength, charset,
+                MappedFileSpliterator.DEFAULT_WINDOW_SIZE, DEFAULT_MIN_SPLIT_RECORDS);
+    }
+
+    /**
+     * @param windowSize bytes mapped at a time, rounded down to whole records but at least one
+     */
+    FixedWidthDataSource(String filePath, List<FixedWidthColumn> layout, Collection<String> selected,
+                         int recordLength, Charset charset, int windowSize, long minSplitRecords) {
+        if (selected != null) {
+            Set<String> names = layout.stream().map(FixedWidthColumn::getName).collect(Collectors.toSet());
+            List<String> unknown = selected.stream().filter(name -> !names.contains(name)).toList();
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("Selected columns not in the fixed-width layout: " + unknown);
+            }
+        }
+        this.filePath = Path.of(filePath);
+        this.columns = selected == null
+                ? List.copyOf(layout)
+                : layout.stream().filter(column -> selected.contains(column.getName())).toList();
+        this.schema = RecordSchema.of(columns.stream().map(FixedWidthColumn::getName).toList());
+        this.dataWidth = layout.stream().mapToInt(column -> column.getOffset() + column.getLength()).max().orElse(0);
+        this.recordLength = recordLength > 0 ? recordLength : dataWidth + 1;
+        this.charset = charset;
+        this.asciiCompatible = charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1)
+                || charset.equals(StandardCharsets.UTF_8);
+        this.windowRecords = Math.max(1, windowSize / this.recordLength);
+        this.minSplitRecords = minSplitRecords;
+        this.sourceName = "FIXED_WIDTH:" + this.filePath.getFileName();
+
+        if (dataWidth > this.recordLength) {
+            throw new IllegalArgumentException("Layout is " + dataWidth + " bytes wide but records are "
+                    + this.recordLength);
+        }
+    }
+
+    @Override
+    public Stream<Record> stream() throws Exception {
+        logger.info("Mapping fixed-width file: {} ({} byte records, {} of {} columns)",
+                filePath, recordLength, columns.size(), dataWidth);
+
+        channel = FileChannel.open(filePath, StandardOpenOption.READ);
+        long size = channel.size();
+        long recordCount = size / recordLength;
+        // The last record may lack its trailing separator
+        if (size % recordLength >= dataWidth && dataWidth > 0) {
+            recordCount++;
+        }
+
+        return StreamSupport.stream(new FixedWidthSpliterator(0, recordCount), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (Exception e) {
+                        logger.error("Error closing fixed-width file", e);
+                    }
+                });
+    }
+
+    private Object readColumn(MappedByteBuffer buffer, int recordStart, FixedWidthColumn column, byte[] scratch) {
+        int start = recordStart + column.getOffset();
+        int length = column.getLength();
+
+        if (asciiCompatible && column.isTrim()) {
+            while (length > 0 && buffer.get(start) == ' ') {
+                start++;
+                length--;
+            }
+            while (length > 0 && buffer.get(start + length - 1) == ' ') {
+                length--;
+            }
+        }
+
+        if (asciiCompatible && (column.getType() == FixedWidthColumn.Type.INT
+                || column.getType() == FixedWidthColumn.Type.LONG)) {
+            if (length == 0) {
+                return null;
+            }
+            long value = parseLong(buffer, start, length, column);
+            if (column.getType() == FixedWidthColumn.Type.LONG) {
+                return value;
+            }
+            if ((int) value != value) {
+                throw new NumberFormatException("Value out of int range in column " + column.getName());
+            }
+            return (int) value;
+        }
+
+        buffer.get(start, scratch, 0, length);
+        String text = new String(scratch, 0, length, charset);
+        if (column.isTrim() && !asciiCompatible) {
+            text = text.strip();
+        }
+        if (column.getType() != FixedWidthColumn.Type.STRING && text.isEmpty()) {
+            return null;
+        }
+
+        return switch (column.getType()) {
+            case STRING -> text;
+            case INT -> Integer.parseInt(text);
+            case LONG -> Long.parseLong(text);
+            case DOUBLE -> Double.parseDouble(text);
+            case DECIMAL -> new BigDecimal(text);
+        };
+    }
+
+    /**
+     * Parse digits straight out of the mapped bytes, failing like Long.parseLong does on a
+     * field without digits or a value out of range
+     */
+    private static long parseLong(MappedByteBuffer buffer, int start, int length, FixedWidthColumn column) {
+        int i = start;
+        int limit = start + length;
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        if (i == limit) {
+            throw new NumberFormatException("No digits in column " + column.getName());
+        }
+
+        // Accumulate negatively, since Long.MIN_VALUE has no positive counterpart
+        long value = 0;
+        try {
+            for (; i < limit; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("Invalid digit in column " + column.getName());
+                }
+                value = Math.subtractExact(Math.multiplyExact(value, 10), digit);
+            }
+            return negative ? value : Math.negateExact(value);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Value out of long range in column " + column.getName());
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "FIXED_WIDTH";
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (channel != null) {
+            channel.close();
+        }
+        logger.info("Closed fixed-width data source");
+    }
+
+    /**
+     * Spliterator over a range of record indexes; record i starts at i * recordLength
+     */
+    private class FixedWidthSpliterator implements Spliterator<Record> {
+        private long index;
+        private final long end;
+        private final byte[] scratch;
+        private MappedByteBuffer window;
+        private long windowFirst;
+        private long windowLast;
+
+        FixedWidthSpliterator(long index, long end) {
+            this.index = index;
+            this.end = end;
+            this.scratch = new byte[Math.max(1, dataWidth)];
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Record> action) {
+            if (index >= end) {
+                return false;
+            }
+            if (window == null || index < windowFirst || index >= windowLast) {
+                map(index);
+            }
+
+            int recordStart = (int) ((index - windowFirst) * recordLength);
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readColumn(window, recordStart, columns.get(i), scratch);
+            }
+            index++;
+            action.accept(new Record(schema, values, sourceName));
+            return true;
+        }
+
+        private void map(long first) {
+            try {
+                long last = Math.min(end, first + windowRecords);
+                long offset = first * recordLength;
+                long size = Math.min(last * recordLength, channel.size()) - offset;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+                windowFirst = first;
+                windowLast = last;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Spliterator<Record> trySplit() {
+            long remaining = end - index;
+            if (remaining < minSplitRecords * 2) {
+                return null;
+            }
+            long mid = index + remaining / 2;
+            FixedWidthSpliterator prefix = new FixedWidthSpliterator(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.fanout.ingestion;
 
 import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,6 +9,7 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -18,6 +20,7 @@ public class JsonlDataSource implements DataSource {
     private static final Logger logger = LoggerFactory.getLogger(JsonlDataSource.class);
     private final Path filePath;
     private final ObjectMapper objectMapper;
+    private final RecordSchema.Cache schemas = new RecordSchema.Cache();
     private BufferedReader reader;
 
     public JsonlDataSource(String filePath) {
@@ -47,7 +50,8 @@ public class JsonlDataSource implements DataSource {
     private Record convertToRecord(String jsonLine) {
         try {
             Map<String, Object> data = objectMapper.readValue(jsonLine, Map.class);
-            return new Record(data, "JSONL:" + filePath.getFileName());
+            RecordSchema schema = schemas.get(new ArrayList<>(data.keySet()));
+            return new Record(schema, data.values().toArray(), "JSONL:" + filePath.getFileName());
         } catch (Exception e) {
             logger.error("Failed to parse JSON line: {}", jsonLine, e);
             throw new RuntimeException("Failed to parse JSON", e);
@@ -0,0 +1,251 @@
+package com.fanout.ingestion;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Memory-mapped CSV data source - splits the file at record boundaries (quote-aware)
+ * so parallel streams parse chunks on every core. Finding a boundary means scanning quotes
+ * from a known record start, so the first split reads half the file serially; every byte is
+ * scanned at most once across all splits, since each scan leaves record starts behind for
+ * the splits made inside it.
+ */
+public class MappedCsvDataSource implements DataSource {
+    private static final Logger logger = LoggerFactory.getLogger(MappedCsvDataSource.class);
+    private static final byte QUOTE = '"';
+    private static final byte COMMA = ',';
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final Path filePath;
+    private final int windowSize;
+    private final long minSplitSize;
+    private final String sourceName;
+    private FileChannel channel;
+    private RecordSchema schema;
+
+    public MappedCsvDataSource(String filePath) {
+        this(filePath, MappedFileSpliterator.DEFAULT_WINDOW_SIZE, MappedFileSpliterator.DEFAULT_MIN_SPLIT_SIZE);
+    }
+
+    MappedCsvDataSource(String filePath, int windowSize, long minSplitSize) {
+        this.filePath = Path.of(filePath);
+        this.windowSize = windowSize;
+        this.minSplitSize = minSplitSize;
+        this.sourceName = "CSV:" + this.filePath.getFileName();
+    }
+
+    @Override
+    public Stream<Record> stream() throws Exception {
+        logger.info("Mapping CSV file: {}", filePath);
+
+        channel = FileChannel.open(filePath, StandardOpenOption.READ);
+        long dataStart = readHeader();
+
+        return StreamSupport.stream(new CsvChunkSpliterator(dataStart, channel.size(), new ArrayList<>()), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (Exception e) {
+                        logger.error("Error closing mapped CSV file", e);
+                    }
+                });
+    }
+
+    /**
+     * Parse the header line and return the offset of the first data record
+     */
+    private long readHeader() throws IOException {
+        long size = Math.min(windowSize, channel.size());
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int terminator = findUnquotedNewline(head, 0, (int) size);
+        int length = terminator >= 0 ? terminator : (int) size;
+
+        byte[] bytes = new byte[length];
+        head.get(0, bytes);
+        schema = RecordSchema.of(length > 0 ? parseFields(bytes, length) : List.of());
+        return terminator >= 0 ? terminator + 1 : size;
+    }
+
+    /**
+     * Index of the first newline outside quotes; from must be a record start
+     */
+    static int findUnquotedNewline(MappedByteBuffer buffer, int from, int limit) {
+        boolean inQuotes = false;
+        for (int i = from; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                inQuotes = !inQuotes;
+            } else if (b == NEWLINE && !inQuotes) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Split a CSV record into decoded fields per RFC 4180
+     */
+    static List<String> parseFields(byte[] bytes, int length) {
+        if (length > 0 && bytes[length - 1] == CARRIAGE_RETURN) {
+            length--;
+        }
+
+        List<String> fields = new ArrayList<>();
+        int i = 0;
+        while (true) {
+            if (i < length && bytes[i] == QUOTE) {
+                // Quoted field: copy up to the closing quote, collapsing doubled quotes
+                int out = i + 1;
+                int write = out;
+                i++;
+                while (i < length) {
+                    if (bytes[i] == QUOTE) {
+                        if (i + 1 < length && bytes[i + 1] == QUOTE) {
+                            bytes[write++] = QUOTE;
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    bytes[write++] = bytes[i++];
+                }
+                fields.add(new String(bytes, out, write - out, StandardCharsets.UTF_8));
+                while (i < length && bytes[i] != COMMA) {
+                    i++;
+                }
+            } else {
+                int start = i;
+                while (i < length && bytes[i] != COMMA) {
+                    i++;
+                }
+                fields.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+            }
+
+            if (i >= length) {
+                return fields;
+            }
+            i++; // skip comma
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "CSV";
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (channel != null) {
+            channel.close();
+        }
+        logger.info("Closed mapped CSV data source");
+    }
+
+    private class CsvChunkSpliterator extends MappedFileSpliterator {
+        // Record starts in this range found by earlier scans, ascending
+        private List<Long> recordStarts;
+
+        CsvChunkSpliterator(long start, long end, List<Long> recordStarts) {
+            super(MappedCsvDataSource.this.channel, start, end,
+                    MappedCsvDataSource.this.windowSize, MappedCsvDataSource.this.minSplitSize);
+            this.recordStarts = recordStarts;
+        }
+
+        @Override
+        protected int findRecordEnd(MappedByteBuffer buffer, int from, int limit) {
+            return findUnquotedNewline(buffer, from, limit);
+        }
+
+        @Override
+        protected Record parseRecord(byte[] bytes, int length) {
+            if (length == 0 || (length == 1 && bytes[0] == CARRIAGE_RETURN)) {
+                return null;
+            }
+
+            List<String> fields = parseFields(bytes, length);
+            Object[] values = new Object[schema.size()];
+            int columns = Math.min(values.length, fields.size());
+            for (int i = 0; i < columns; i++) {
+                values[i] = fields.get(i);
+            }
+            return new Record(schema, values, sourceName);
+        }
+
+        /**
+         * Quote state at an arbitrary offset is only known by scanning from a record start,
+         * so use a record start an earlier scan found at or after the offset if there is one.
+         * Otherwise count quotes from the last known start before the offset, then find the
+         * next newline that falls outside quotes, noting a record start every minSplitSize
+         * bytes on the way for the splits that will be made inside this one.
+         */
+        @Override
+        protected long alignToRecordStart(long offset) throws IOException {
+            long scanFrom = position;
+            for (long start : recordStarts) {
+                if (start >= offset) {
+                    return start;
+                }
+                scanFrom = Math.max(scanFrom, start);
+            }
+
+            boolean inQuotes = false;
+            long lastNoted = scanFrom;
+            long chunkStart = scanFrom;
+            while (chunkStart < end) {
+                long size = Math.min(windowSize, end - chunkStart);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, size);
+                for (int i = 0; i < size; i++) {
+                    byte b = chunk.get(i);
+                    if (b == QUOTE) {
+                        inQuotes = !inQuotes;
+                    } else if (b == NEWLINE && !inQuotes) {
+                        long recordStart = chunkStart + i + 1;
+                        if (recordStart > offset) {
+                            recordStarts.add(recordStart);
+                            return recordStart;
+                        }
+                        if (recordStart - lastNoted >= minSplitSize) {
+                            recordStarts.add(recordStart);
+                            lastNoted = recordStart;
+                        }
+                    }
+                }
+                chunkStart += size;
+            }
+            return end;
+        }
+
+        /**
+         * The prefix takes the known record starts inside it, this split keeps the rest
+         */
+        @Override
+        protected MappedFileSpliterator createSplit(long start, long end) {
+            List<Long> prefixStarts = new ArrayList<>();
+            List<Long> kept = new ArrayList<>();
+            for (long recordStart : recordStarts) {
+                if (recordStart >= end) {
+                    kept.add(recordStart);
+                } else if (recordStart > start) {
+                    prefixStarts.add(recordStart);
+                }
+            }
+            recordStarts = kept;
+            return new CsvChunkSpliterator(start, end, prefixStarts);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.fanout.ingestion;
+
+import com.fanout.model.Record;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a byte range of a file, read through a sliding memory-mapped window.
+ * Splits are cut at record boundaries so each half can be parsed independently;
+ * subclasses define what a record boundary is and how a record's bytes are parsed.
+ */
+abstract class MappedFileSpliterator implements Spliterator<Record> {
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    static final long DEFAULT_MIN_SPLIT_SIZE = 1024 * 1024;
+
+    protected final FileChannel channel;
+    protected final int windowSize;
+    protected final long minSplitSize;
+    protected long position;
+    protected long end;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+    private byte[] scratch = new byte[8192];
+
+    protected MappedFileSpliterator(FileChannel channel, long start, long end, int windowSize, long minSplitSize) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+        this.windowSize = windowSize;
+        this.minSplitSize = minSplitSize;
+    }
+
+    /**
+     * Index of the byte that terminates the record starting at from, or -1 if it does not
+     * terminate before limit
+     */
+    protected abstract int findRecordEnd(MappedByteBuffer buffer, int from, int limit);
+
+    /**
+     * Parse one record from bytes[0, length), terminator excluded
+     * @return the record, or null to skip the line
+     */
+    protected abstract Record parseRecord(byte[] bytes, int length);
+
+    /**
+     * First record start at or after offset, or end if there is none
+     */
+    protected abstract long alignToRecordStart(long offset) throws IOException;
+
+    /**
+     * Spliterator of the same kind over [start, end)
+     */
+    protected abstract MappedFileSpliterator createSplit(long start, long end);
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Record> action) {
+        while (position < end) {
+            Record record = nextRecord();
+            if (record != null) {
+                action.accept(record);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Record nextRecord() {
+        ensureMapped(position);
+        int from = (int) (position - windowStart);
+        int limit = (int) (Math.min(end, windowEnd) - windowStart);
+        int terminator = findRecordEnd(window, from, limit);
+        long next;
+
+        if (terminator >= 0) {
+            next = windowStart + terminator + 1;
+        } else if (windowEnd < end) {
+            // Record straddles the window: remap starting at it and look again
+            if (windowStart == position) {
+                throw new IllegalStateException("Record at offset " + position + " exceeds window size " + windowSize);
+            }
+            map(position);
+            return null;
+        } else {
+            // Final record without a trailing terminator
+            terminator = limit;
+            next = end;
+        }
+
+        int length = terminator - from;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(from, scratch, 0, length);
+        position = next;
+        return parseRecord(scratch, length);
+    }
+
+    private void ensureMapped(long offset) {
+        if (window == null || offset < windowStart || offset >= windowEnd) {
+            map(offset);
+        }
+    }
+
+    private void map(long offset) {
+        try {
+            long size = Math.min(windowSize, channel.size() - offset);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+            windowStart = offset;
+            windowEnd = offset + size;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Offset of the first occurrence of target in [from, end), or -1
+     */
+    protected long indexOf(byte target, long from) throws IOException {
+        long chunkStart = from;
+        while (chunkStart < end) {
+            long size = Math.min(windowSize, end - chunkStart);
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, size);
+            for (int i = 0; i < size; i++) {
+                if (chunk.get(i) == target) {
+                    return chunkStart + i;
+                }
+            }
+            chunkStart += size;
+        }
+        return -1;
+    }
+
+    @Override
+    public Spliterator<Record> trySplit() {
+        long remaining = end - position;
+        if (remaining < minSplitSize * 2) {
+            return null;
+        }
+
+        long splitAt;
+        try {
+            splitAt = alignToRecordStart(position + remaining / 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (splitAt <= position || splitAt >= end) {
+            return null;
+        }
+
+        MappedFileSpliterator prefix = createSplit(position, splitAt);
+        position = splitAt;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,192 @@
+package com.fanout.ingestion;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Memory-mapped JSONL data source - splits on newline offsets and parses each line
+ * straight from its bytes, so parallel streams scale across cores
+ */
+public class MappedJsonlDataSource implements DataSource {
+    private static final Logger logger = LoggerFactory.getLogger(MappedJsonlDataSource.class);
+    private static final byte NEWLINE = '\n';
+
+    private final Path filePath;
+    private final int windowSize;
+    private final long minSplitSize;
+    private final String sourceName;
+    private final ObjectMapper objectMapper;
+    private final RecordSchema.Cache schemas = new RecordSchema.Cache();
+    private FileChannel channel;
+
+    public MappedJsonlDataSource(String filePath) {
+        this(filePath, MappedFileSpliterator.DEFAULT_WINDOW_SIZE, MappedFileSpliterator.DEFAULT_MIN_SPLIT_SIZE);
+    }
+
+    MappedJsonlDataSource(String filePath, int windowSize, long minSplitSize) {
+        this.filePath = Path.of(filePath);
+        this.windowSize = windowSize;
+        this.minSplitSize = minSplitSize;
+        this.sourceName = "JSONL:" + this.filePath.getFileName();
+        this.objectMapper = new ObjectMapper();
+    }
+
+    @Override
+    public Stream<Record> stream() throws Exception {
+        logger.info("Mapping JSONL file: {}", filePath);
+
+        channel = FileChannel.open(filePath, StandardOpenOption.READ);
+
+        return StreamSupport.stream(new JsonlChunkSpliterator(0, channel.size()), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (Exception e) {
+                        logger.error("Error closing mapped JSONL file", e);
+                    }
+                });
+    }
+
+    /**
+     * Read one JSON object from bytes[0, length) into field names and values
+     * without decoding the line to a String first
+     */
+    private void parseObject(byte[] bytes, int length, List<String> names, List<Object> values) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(bytes, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                names.add(parser.currentName());
+                values.add(readValue(parser, parser.nextToken()));
+            }
+        }
+    }
+
+    /**
+     * Lines usually repeat the previous line's keys, so check that schema before the cache
+     */
+    private Record toRecord(RecordSchema previous, List<String> names, List<Object> values) {
+        RecordSchema schema = previous != null && previous.matches(names) ? previous : null;
+        if (schema == null) {
+            try {
+                schema = schemas.get(names);
+            } catch (IllegalArgumentException e) {
+                // Duplicate keys: the last one wins, as with databind
+                Map<String, Object> data = new LinkedHashMap<>();
+                for (int i = 0; i < names.size(); i++) {
+                    data.put(names.get(i), values.get(i));
+                }
+                return new Record(data, sourceName);
+            }
+        }
+        return new Record(schema, values.toArray(), sourceName);
+    }
+
+    private Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT -> parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_NULL -> null;
+            // Nested structures are rare enough to hand to databind
+            default -> objectMapper.readValue(parser, Object.class);
+        };
+    }
+
+    private static boolean isBlank(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getType() {
+        return "JSONL";
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (channel != null) {
+            channel.close();
+        }
+        logger.info("Closed mapped JSONL data source");
+    }
+
+    private class JsonlChunkSpliterator extends MappedFileSpliterator {
+        private final List<String> names = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+        private RecordSchema lastSchema;
+
+        JsonlChunkSpliterator(long start, long end) {
+            super(MappedJsonlDataSource.this.channel, start, end,
+                    MappedJsonlDataSource.this.windowSize, MappedJsonlDataSource.this.minSplitSize);
+        }
+
+        @Override
+        protected int findRecordEnd(MappedByteBuffer buffer, int from, int limit) {
+            for (int i = from; i < limit; i++) {
+                if (buffer.get(i) == NEWLINE) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        protected Record parseRecord(byte[] bytes, int length) {
+            if (isBlank(bytes, length)) {
+                return null;
+            }
+            try {
+                names.clear();
+                values.clear();
+                parseObject(bytes, length, names, values);
+                Record record = toRecord(lastSchema, names, values);
+                lastSchema = record.getSchema();
+                return record;
+            } catch (Exception e) {
+                String line = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                logger.error("Failed to parse JSON line: {}", line, e);
+                throw new RuntimeException("Failed to parse JSON", e);
+            }
+        }
+
+        @Override
+        protected long alignToRecordStart(long offset) throws IOException {
+            // JSON lines cannot contain raw newlines, so any newline ends a record
+            long newline = indexOf(NEWLINE, offset);
+            return newline < 0 ? end : newline + 1;
+        }
+
+        @Override
+        protected MappedFileSpliterator createSplit(long start, long end) {
+            return new JsonlChunkSpliterator(start, end);
+        }
+    }
+}
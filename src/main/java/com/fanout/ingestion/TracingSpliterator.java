@@ -0,0 +1,55 @@
+package com.fanout.ingestion;
+
+import com.fanout.model.Record;
+import com.fanout.util.Tracer;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Times each record a source produces, from reading through parsing to building the Record,
+ * and records it as a parse span when the record is sampled. Splits are traced the same way,
+ * so parallel streams keep their parallelism.
+ */
+class TracingSpliterator implements Spliterator<Record> {
+    private final Spliterator<Record> source;
+    private final Tracer tracer;
+    private Record next;
+
+    TracingSpliterator(Spliterator<Record> source, Tracer tracer) {
+        this.source = source;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Record> action) {
+        long start = System.nanoTime();
+        if (!source.tryAdvance(record -> next = record)) {
+            return false;
+        }
+        Record record = next;
+        next = null;
+        if (tracer.isSampled(record)) {
+            tracer.span(record, "parse", null, start, System.nanoTime());
+        }
+        // Downstream work is left out of the span
+        action.accept(record);
+        return true;
+    }
+
+    @Override
+    public Spliterator<Record> trySplit() {
+        Spliterator<Record> prefix = source.trySplit();
+        return prefix != null ? new TracingSpliterator(prefix, tracer) : null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics();
+    }
+}
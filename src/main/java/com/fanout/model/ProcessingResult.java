@@ -1,6 +1,7 @@
 package com.fanout.model;
 
 import java.time.Instant;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Represents the result of processing a record through a sink
@@ -11,7 +12,7 @@ public class ProcessingResult {
     private final Status status;
     private final String errorMessage;
     private final Instant processedAt;
-    private final long processingTimeMs;
+    private final long processingTimeNanos;
 
     public enum Status {
         SUCCESS,
@@ -20,27 +21,27 @@ public class ProcessingResult {
     }
 
     private ProcessingResult(Record record, String sinkName, Status status, 
-                            String errorMessage, long processingTimeMs) {
+                            String errorMessage, long processingTimeNanos) {
         this.record = record;
         this.sinkName = sinkName;
         this.status = status;
         this.errorMessage = errorMessage;
         this.processedAt = Instant.now();
-        this.processingTimeMs = processingTimeMs;
+        this.processingTimeNanos = processingTimeNanos;
     }
 
-    public static ProcessingResult success(Record record, String sinkName, long processingTimeMs) {
-        return new ProcessingResult(record, sinkName, Status.SUCCESS, null, processingTimeMs);
+    public static ProcessingResult success(Record record, String sinkName, long processingTimeNanos) {
+        return new ProcessingResult(record, sinkName, Status.SUCCESS, null, processingTimeNanos);
     }
 
     public static ProcessingResult failure(Record record, String sinkName, 
-                                          String errorMessage, long processingTimeMs) {
-        return new ProcessingResult(record, sinkName, Status.FAILURE, errorMessage, processingTimeMs);
+                                          String errorMessage, long processingTimeNanos) {
+        return new ProcessingResult(record, sinkName, Status.FAILURE, errorMessage, processingTimeNanos);
     }
 
     public static ProcessingResult retry(Record record, String sinkName, 
-                                        String errorMessage, long processingTimeMs) {
-        return new ProcessingResult(record, sinkName, Status.RETRY, errorMessage, processingTimeMs);
+                                        String errorMessage, long processingTimeNanos) {
+        return new ProcessingResult(record, sinkName, Status.RETRY, errorMessage, processingTimeNanos);
     }
 
     public Record getRecord() {
@@ -63,8 +64,12 @@ public class ProcessingResult {
         return processedAt;
     }
 
+    public long getProcessingTimeNanos() {
+        return processingTimeNanos;
+    }
+
     public long getProcessingTimeMs() {
-        return processingTimeMs;
+        return TimeUnit.NANOSECONDS.toMillis(processingTimeNanos);
     }
 
     public boolean isSuccess() {
@@ -85,7 +90,7 @@ public class ProcessingResult {
                 "recordId='" + record.getId() + '\'' +
                 ", sinkName='" + sinkName + '\'' +
                 ", status=" + status +
-                ", processingTimeMs=" + processingTimeMs +
+                ", processingTimeNanos=" + processingTimeNanos +
                 (errorMessage != null ? ", error='" + errorMessage + '\'' : "") +
                 '}';
     }
@@ -1,46 +1,178 @@
 package com.fanout.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Represents a single data record flowing through the system
+ * Represents a single data record flowing through the system. Values are held in a flat
+ * array laid out by a schema shared across the source; null values are allowed.
  */
 public class Record {
-    private final String id;
-    private final Map<String, Object> data;
-    private final Instant timestamp;
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    // Distinguishes IDs from different runs, e.g. records replayed from the dead letter queue
+    private static final String ID_PREFIX = Long.toHexString(System.currentTimeMillis()) + "-";
+    private static final VarHandle ENCODINGS;
+
+    static {
+        try {
+            ENCODINGS = MethodHandles.lookup().findVarHandle(Record.class, "encodings", RecordEncodings.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long sequence;
+    private String id;
+    private final RecordSchema schema;
+    private final Object[] values;
+    private final long timestampMillis;
     private final String source;
     private int retryCount;
+    private Map<String, Object> dataView;
+    private volatile RecordEncodings encodings;
 
-    public Record(Map<String, Object> data, String source) {
-        this.id = UUID.randomUUID().toString();
-        this.data = Map.copyOf(data);
-        this.timestamp = Instant.now();
+    /**
+     * Create a record that takes ownership of the values array, laid out by the schema
+     */
+    public Record(RecordSchema schema, Object[] values, String source) {
+        if (values.length != schema.size()) {
+            throw new IllegalArgumentException("Expected " + schema.size() + " values but got " + values.length);
+        }
+        this.sequence = SEQUENCE.incrementAndGet();
+        this.schema = schema;
+        this.values = values;
+        this.timestampMillis = System.currentTimeMillis();
         this.source = source;
         this.retryCount = 0;
     }
 
+    public Record(Map<String, Object> data, String source) {
+        this(RecordSchema.of(data.keySet().toArray(new String[0])), data.values().toArray(), source);
+    }
+
     public Record(String id, Map<String, Object> data, Instant timestamp, String source, int retryCount) {
+        this(0, id, RecordSchema.of(data.keySet().toArray(new String[0])), data.values().toArray(),
+                timestamp.toEpochMilli(), source, retryCount);
+    }
+
+    /**
+     * Rebuild a record read back from storage, keeping the sequence it was originally read in
+     */
+    public Record(long sequence, String id, RecordSchema schema, Object[] values, long timestampMillis,
+                  String source, int retryCount) {
+        if (values.length != schema.size()) {
+            throw new IllegalArgumentException("Expected " + schema.size() + " values but got " + values.length);
+        }
+        this.sequence = sequence;
         this.id = id;
-        this.data = Map.copyOf(data);
-        this.timestamp = timestamp;
+        this.schema = schema;
+        this.values = values;
+        this.timestampMillis = timestampMillis;
         this.source = source;
         this.retryCount = retryCount;
     }
 
+    private Record(Record original, int retryCount) {
+        this.sequence = original.sequence;
+        this.id = original.id;
+        this.schema = original.schema;
+        this.values = original.values;
+        this.timestampMillis = original.timestampMillis;
+        this.source = original.source;
+        this.retryCount = retryCount;
+        this.encodings = original.getEncodings();
+    }
+
+    /**
+     * The ID string is only built the first time something asks for it
+     */
     public String getId() {
-        return id;
+        String current = id;
+        if (current == null) {
+            current = ID_PREFIX + sequence;
+            id = current;
+        }
+        return current;
     }
 
+    /**
+     * Order the record was read in, shared with its retry copies; 0 for records rebuilt by ID
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return the field's value, or null if the field is null or not in the schema
+     */
+    public Object get(String field) {
+        int index = schema.indexOf(field);
+        return index >= 0 ? values[index] : null;
+    }
+
+    /**
+     * Read-only Map view over the values, in schema order
+     */
     public Map<String, Object> getData() {
-        return data;
+        Map<String, Object> view = dataView;
+        if (view == null) {
+            view = new DataView();
+            dataView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Encoded forms of this record, created on first use and shared with its retry copies
+     */
+    public RecordEncodings getEncodings() {
+        RecordEncodings current = encodings;
+        if (current == null) {
+            RecordEncodings created = new RecordEncodings();
+            current = (RecordEncodings) ENCODINGS.compareAndExchange(this, null, created);
+            if (current == null) {
+                current = created;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Release pooled encodings, if any were made; called once the record is fully delivered
+     */
+    public void releaseEncodings() {
+        RecordEncodings current = encodings;
+        if (current != null) {
+            current.release();
+        }
     }
 
     public Instant getTimestamp() {
-        return timestamp;
+        return Instant.ofEpochMilli(timestampMillis);
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
     }
 
     public String getSource() {
@@ -56,7 +188,7 @@ public class Record {
     }
 
     public Record withIncrementedRetry() {
-        return new Record(id, data, timestamp, source, retryCount + 1);
+        return new Record(this, retryCount + 1);
     }
 
     @Override
@@ -64,21 +196,70 @@ public class Record {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Record record = (Record) o;
-        return Objects.equals(id, record.id);
+        return getId().equals(record.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return getId().hashCode();
     }
 
     @Override
     public String toString() {
         return "Record{" +
-                "id='" + id + '\'' +
+                "id='" + getId() + '\'' +
                 ", source='" + source + '\'' +
                 ", retryCount=" + retryCount +
-                ", timestamp=" + timestamp +
+                ", timestamp=" + getTimestamp() +
                 '}';
     }
+
+    private class DataView extends AbstractMap<String, Object> {
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String field && schema.indexOf(field) >= 0;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return key instanceof String field ? Record.this.get(field) : null;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return values.length;
+                }
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < values.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (next >= values.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int index = next++;
+                            return new SimpleImmutableEntry<>(schema.getField(index), values[index]);
+                        }
+                    };
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.fanout.model;
+
+import com.fanout.buffer.PooledBuffer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Encoded forms of one record, one slot per output format. Each slot is computed at most once
+ * and then shared by every sink using that format and by retries of the record. A slot holds
+ * either a byte[] or a pooled buffer, which is released by {@link #release()}.
+ */
+public final class RecordEncodings {
+    public static final int MAX_SLOTS = 16;
+
+    private final AtomicReferenceArray<Object> slots = new AtomicReferenceArray<>(MAX_SLOTS);
+
+    /**
+     * Whether a slot index is cached, i.e. below MAX_SLOTS
+     */
+    public static boolean isCacheable(int slot) {
+        return slot >= 0 && slot < MAX_SLOTS;
+    }
+
+    /**
+     * Return the slot's encoded form, computing it on the first call. Concurrent callers for the
+     * same slot wait for the first one instead of encoding again. A failed encoding is not
+     * kept, so a retry encodes afresh.
+     */
+    public <T> T computeIfAbsent(int slot, Callable<T> encoder) throws Exception {
+        if (!isCacheable(slot)) {
+            return encoder.call();
+        }
+
+        while (true) {
+            Object current = slots.get(slot);
+            if (current != null && !(current instanceof FutureTask<?>)) {
+                return cast(current);
+            }
+
+            FutureTask<T> task;
+            if (current == null) {
+                FutureTask<T> ours = new FutureTask<>(encoder);
+                if (!slots.compareAndSet(slot, null, ours)) {
+                    continue;
+                }
+                ours.run();
+                task = ours;
+            } else {
+                task = inProgress(current);
+            }
+
+            try {
+                T encoded = task.get();
+                slots.compareAndSet(slot, task, encoded);
+                return encoded;
+            } catch (ExecutionException e) {
+                slots.compareAndSet(slot, task, null);
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception exception) {
+                    throw exception;
+                }
+                throw new CompletionException(cause);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> FutureTask<T> inProgress(Object slotValue) {
+        return (FutureTask<T>) slotValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object slotValue) {
+        return (T) slotValue;
+    }
+
+    /**
+     * @return the slot's encoded form if it has been computed, otherwise null
+     */
+    public Object getIfPresent(int slot) {
+        if (slot < 0 || slot >= MAX_SLOTS) {
+            return null;
+        }
+        Object current = slots.get(slot);
+        return current instanceof FutureTask<?> ? null : current;
+    }
+
+    /**
+     * Give pooled buffers back once every sink has finished with the record
+     */
+    public void release() {
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            Object current = slots.get(i);
+            if (current instanceof PooledBuffer buffer && slots.compareAndSet(i, current, null)) {
+                buffer.release();
+            }
+        }
+    }
+}
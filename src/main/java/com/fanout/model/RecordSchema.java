@@ -0,0 +1,111 @@
+package com.fanout.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ordered field names shared by every record of a source, mapping each name to its
+ * slot in the record's value array
+ */
+public final class RecordSchema {
+    private final String[] fields;
+    private final Map<String, Integer> indexes;
+    private final int hashCode;
+
+    private RecordSchema(String[] fields) {
+        this.fields = fields;
+        this.hashCode = Arrays.hashCode(fields);
+        this.indexes = new HashMap<>(fields.length * 2);
+        for (int i = 0; i < fields.length; i++) {
+            if (indexes.putIfAbsent(fields[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate field: " + fields[i]);
+            }
+        }
+    }
+
+    public static RecordSchema of(List<String> fields) {
+        return new RecordSchema(fields.toArray(new String[0]));
+    }
+
+    public static RecordSchema of(String... fields) {
+        return new RecordSchema(fields.clone());
+    }
+
+    public int size() {
+        return fields.length;
+    }
+
+    public String getField(int index) {
+        return fields[index];
+    }
+
+    /**
+     * @return the slot of the field, or -1 if the schema does not have it
+     */
+    public int indexOf(String field) {
+        Integer index = indexes.get(field);
+        return index != null ? index : -1;
+    }
+
+    public List<String> getFields() {
+        return List.of(fields);
+    }
+
+    /**
+     * Whether this schema has exactly these fields in this order
+     */
+    public boolean matches(List<String> fieldNames) {
+        if (fieldNames.size() != fields.length) {
+            return false;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (!fields[i].equals(fieldNames.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(fields, ((RecordSchema) o).fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordSchema" + Arrays.toString(fields);
+    }
+
+    /**
+     * Interns schemas for sources whose records don't share a fixed header, such as JSON lines,
+     * so records with the same fields share one schema
+     */
+    public static final class Cache {
+        private static final int MAX_SCHEMAS = 1024;
+
+        private final Map<List<String>, RecordSchema> schemas = new ConcurrentHashMap<>();
+
+        public RecordSchema get(List<String> fields) {
+            RecordSchema schema = schemas.get(fields);
+            if (schema != null) {
+                return schema;
+            }
+            // Stop interning once a source turns out to have unbounded key sets
+            if (schemas.size() >= MAX_SCHEMAS) {
+                return of(fields);
+            }
+            List<String> key = List.copyOf(fields);
+            return schemas.computeIfAbsent(key, RecordSchema::of);
+        }
+    }
+}
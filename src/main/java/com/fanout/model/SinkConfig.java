@@ -15,6 +15,19 @@ public class SinkConfig {
     private String topic;
     private String keyspace;
     private String table;
+    private String threadPoolType;
+    private int threadPoolSize;
+    private int batchSize;
+    private long lingerMs;
+    private long retryBackoffMs = 100;
+    private long retryMaxBackoffMs = 5000;
+    private double retryBackoffMultiplier = 2.0;
+    private double retryJitter = 0.2;
+    private int maxInFlight = 64;
+    private boolean simulate;
+    private int partitions = 1;
+    private String partitionKey;
+    private String brokerDir;
 
     // Getters and Setters
     public String getName() {
@@ -105,6 +118,145 @@ public class SinkConfig {
         this.table = table;
     }
 
+    /**
+     * Pool type for a dedicated executor, or null to share the engine-wide pool
+     */
+    public String getThreadPoolType() {
+        return threadPoolType;
+    }
+
+    public void setThreadPoolType(String threadPoolType) {
+        this.threadPoolType = threadPoolType;
+    }
+
+    public int getThreadPoolSize() {
+        return threadPoolSize;
+    }
+
+    public void setThreadPoolSize(int threadPoolSize) {
+        this.threadPoolSize = threadPoolSize;
+    }
+
+    /**
+     * Maximum records per batch; 0 inherits source.batchSize when lingerMs is set
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Maximum time the oldest record of a batch waits before the batch is flushed
+     */
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(long lingerMs) {
+        this.lingerMs = lingerMs;
+    }
+
+    public boolean isBatchingEnabled() {
+        return lingerMs > 0 && batchSize > 1;
+    }
+
+    /**
+     * Delay before the first retry
+     */
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    public void setRetryBackoffMs(long retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    public long getRetryMaxBackoffMs() {
+        return retryMaxBackoffMs;
+    }
+
+    public void setRetryMaxBackoffMs(long retryMaxBackoffMs) {
+        this.retryMaxBackoffMs = retryMaxBackoffMs;
+    }
+
+    public double getRetryBackoffMultiplier() {
+        return retryBackoffMultiplier;
+    }
+
+    public void setRetryBackoffMultiplier(double retryBackoffMultiplier) {
+        this.retryBackoffMultiplier = retryBackoffMultiplier;
+    }
+
+    /**
+     * Fraction (0-1) of each delay that is randomly taken off to spread retries out
+     */
+    public double getRetryJitter() {
+        return retryJitter;
+    }
+
+    public void setRetryJitter(double retryJitter) {
+        this.retryJitter = retryJitter;
+    }
+
+    /**
+     * Most requests a sink with a non-blocking client keeps outstanding at once
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Fake the downstream with random latency and failures instead of calling the endpoint
+     */
+    public boolean isSimulate() {
+        return simulate;
+    }
+
+    public void setSimulate(boolean simulate) {
+        this.simulate = simulate;
+    }
+
+    /**
+     * Partitions of the topic a message queue sink publishes to
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Record field whose value picks the partition, so records sharing it stay in order;
+     * the record id when unset
+     */
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(String partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    /**
+     * Directory the built-in broker appends partition logs to; memory only when unset
+     */
+    public String getBrokerDir() {
+        return brokerDir;
+    }
+
+    public void setBrokerDir(String brokerDir) {
+        this.brokerDir = brokerDir;
+    }
+
     @Override
     public String toString() {
         return "SinkConfig{" +
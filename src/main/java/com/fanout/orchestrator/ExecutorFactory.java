@@ -0,0 +1,57 @@
+package com.fanout.orchestrator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for the executors that run sink work, selected by thread pool type
+ */
+public class ExecutorFactory {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorFactory.class);
+
+    /**
+     * Create an executor of the given type (VIRTUAL, FORK_JOIN or FIXED)
+     * @param type the pool type, unknown types fall back to VIRTUAL
+     * @param poolSize parallelism for FORK_JOIN and thread count for FIXED
+     * @param namePrefix prefix for the names of the created threads
+     */
+    public static ExecutorService create(String type, int poolSize, String namePrefix) {
+        logger.info("Creating executor service '{}' of type: {} (size {})", namePrefix, type, poolSize);
+
+        return switch (type.toUpperCase()) {
+            case "VIRTUAL" -> Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(namePrefix + "-", 0).factory());
+            case "FORK_JOIN" -> new ForkJoinPool(
+                    poolSize,
+                    pool -> {
+                        var worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                        worker.setName(namePrefix + "-" + worker.getPoolIndex());
+                        return worker;
+                    },
+                    null,
+                    true
+            );
+            case "FIXED" -> Executors.newFixedThreadPool(poolSize, platformThreads(namePrefix));
+            default -> {
+                logger.warn("Unknown pool type {}, defaulting to VIRTUAL", type);
+                yield Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name(namePrefix + "-", 0).factory());
+            }
+        };
+    }
+
+    private static ThreadFactory platformThreads(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,22 +1,35 @@
 package com.fanout.orchestrator;
 
+import com.fanout.backpressure.AdmissionController;
+import com.fanout.backpressure.AdmissionControllerFactory;
+import com.fanout.backpressure.SpillingAdmissionController;
+import com.fanout.buffer.BufferPool;
 import com.fanout.config.Configuration;
 import com.fanout.ingestion.DataSource;
 import com.fanout.ingestion.DataSourceFactory;
 import com.fanout.model.ProcessingResult;
 import com.fanout.model.Record;
 import com.fanout.model.SinkConfig;
+import com.fanout.resilience.BackoffPolicy;
+import com.fanout.resilience.CircuitBreaker;
+import com.fanout.resilience.ConcurrencyLimiter;
+import com.fanout.resilience.RetryScheduler;
 import com.fanout.sink.DataSink;
+import com.fanout.sink.SinkContext;
 import com.fanout.sink.SinkFactory;
 import com.fanout.util.DeadLetterQueue;
 import com.fanout.util.MetricsCollector;
+import com.fanout.util.MetricsServer;
+import com.fanout.util.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
 
 /**
  * Main orchestrator that coordinates data ingestion, transformation, and distribution
@@ -26,59 +39,156 @@ public class FanOutOrchestrator {
     
     private final Configuration config;
     private final List<DataSink> sinks;
+    private final Map<String, BackoffPolicy> backoffPolicies = new HashMap<>();
     private final ExecutorService executorService;
-    private final BlockingQueue<Record> recordQueue;
+    private final List<ExecutorService> sinkExecutors = new ArrayList<>();
+    private final ScheduledExecutorService sinkScheduler;
+    private final InFlightTracker inFlightTracker;
+    private final AdmissionController admissionController;
     private final MetricsCollector metricsCollector;
+    private final BufferPool bufferPool;
     private final DeadLetterQueue deadLetterQueue;
+    private final RetryScheduler retryScheduler;
     private final ScheduledExecutorService monitoringExecutor;
+    private final Tracer tracer;
+    private MetricsServer metricsServer;
     
     private volatile boolean running = false;
 
-    public FanOutOrchestrator(Configuration config) {
+    public FanOutOrchestrator(Configuration config) throws Exception {
         this.config = config;
-        this.sinks = initializeSinks();
         this.executorService = createExecutorService();
-        this.recordQueue = new LinkedBlockingQueue<>(config.getQueueCapacity());
+        this.sinkScheduler = Executors.newSingleThreadScheduledExecutor();
         this.metricsCollector = new MetricsCollector();
+        this.tracer = config.getTraceSampleEvery() > 0
+                ? new Tracer(config.getTraceSampleEvery(), config.getTraceBufferSize(), config.isTraceJfrEnabled())
+                : null;
+        this.bufferPool = config.isBufferPoolEnabled()
+                ? new BufferPool(config.isBufferPoolDirect(), config.getBufferPoolMaxPerClass())
+                : null;
+        metricsCollector.setBufferPool(bufferPool);
+        this.sinks = initializeSinks();
+        this.inFlightTracker = new InFlightTracker(config.getQueueCapacity());
         this.deadLetterQueue = new DeadLetterQueue(
                 config.getDeadLetterPath(), 
-                config.isDeadLetterQueueEnabled()
+                config.isDeadLetterQueueEnabled(),
+                config.getDeadLetterQueueConfig()
         );
+        this.retryScheduler = new RetryScheduler(deadLetterQueue::writeFailedRecord);
+        this.admissionController = AdmissionControllerFactory.createAdmissionController(
+                config, inFlightTracker, this::dispatch, metricsCollector);
         this.monitoringExecutor = Executors.newSingleThreadScheduledExecutor();
+        registerGauges();
         
-        logger.info("FanOutOrchestrator initialized with {} sinks", sinks.size());
+        logger.info("FanOutOrchestrator initialized with {} sinks, backpressure strategy {}",
+                sinks.size(), admissionController.getStrategy());
+    }
+
+    /**
+     * Export the state owned outside the collector, read on each scrape
+     */
+    private void registerGauges() {
+        metricsCollector.register("fanout_in_flight", "gauge",
+                "Records admitted and not yet finished by every sink", inFlightTracker::getInFlight);
+        metricsCollector.register("fanout_queue_capacity", "gauge",
+                "Records allowed in flight before admission pushes back", inFlightTracker::getCapacity);
+        metricsCollector.register("fanout_retries_pending", "gauge",
+                "Retries waiting out their backoff", retryScheduler::getPending);
+        metricsCollector.register("fanout_dead_letter_writes_total", "counter",
+                "Records written to the dead letter queue", deadLetterQueue::getWritten);
+        metricsCollector.register("fanout_dead_letter_dropped_total", "counter",
+                "Failed records the dead letter queue lost, being full or failing to write", deadLetterQueue::getDropped);
+        metricsCollector.register("fanout_dead_letter_queued", "gauge",
+                "Failed records waiting for the dead letter writer", deadLetterQueue::getQueued);
+        if (admissionController instanceof SpillingAdmissionController spilling) {
+            metricsCollector.register("fanout_spill_parked", "gauge",
+                    "Records spilled to disk and not yet replayed", spilling::getParked);
+        }
     }
 
     private List<DataSink> initializeSinks() {
-        return config.getSinks().stream()
-                .filter(SinkConfig::isEnabled)
-                .map(SinkFactory::createSink)
-                .collect(Collectors.toList());
+        List<DataSink> created = new ArrayList<>();
+        for (SinkConfig sinkConfig : config.getSinks()) {
+            if (sinkConfig.isEnabled()) {
+                applyBatchDefaults(sinkConfig);
+                backoffPolicies.put(sinkConfig.getName(), BackoffPolicy.fromConfig(sinkConfig));
+                created.add(SinkFactory.createSink(sinkConfig, createSinkContext(sinkConfig)));
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Batching sinks that don't set their own batch size use source.batchSize
+     */
+    private void applyBatchDefaults(SinkConfig sinkConfig) {
+        if (sinkConfig.getLingerMs() > 0 && sinkConfig.getBatchSize() <= 0) {
+            sinkConfig.setBatchSize(config.getBatchSize());
+        }
     }
 
     private ExecutorService createExecutorService() {
-        String poolType = config.getThreadPoolType();
-        logger.info("Creating executor service of type: {}", poolType);
-        
-        return switch (poolType.toUpperCase()) {
-            case "VIRTUAL" -> Executors.newVirtualThreadPerTaskExecutor();
-            case "FORK_JOIN" -> new ForkJoinPool(
-                    config.getMaxPoolSize(),
-                    ForkJoinPool.defaultForkJoinWorkerThreadFactory,
-                    null,
-                    true
-            );
-            case "FIXED" -> Executors.newFixedThreadPool(config.getMaxPoolSize());
-            default -> {
-                logger.warn("Unknown pool type {}, defaulting to VIRTUAL", poolType);
-                yield Executors.newVirtualThreadPerTaskExecutor();
-            }
-        };
+        return ExecutorFactory.create(config.getThreadPoolType(), config.getMaxPoolSize(), "fanout");
+    }
+
+    /**
+     * Wire a sink to its executor and the shared scheduler, buffer pool and tracer, plus its
+     * own stage latencies, circuit breaker and concurrency limiter when those are enabled
+     */
+    private SinkContext createSinkContext(SinkConfig sinkConfig) {
+        SinkContext context = new SinkContext(resolveSinkExecutor(sinkConfig), sinkScheduler);
+        context.setBufferPool(bufferPool);
+        context.setStageLatencies(metricsCollector.stageLatencies(sinkConfig.getName()));
+        context.setTracer(tracer);
+        if (config.isCircuitBreakerEnabled()) {
+            context.setCircuitBreaker(new CircuitBreaker(
+                    sinkConfig.getName(),
+                    config.getCircuitBreakerConfig(),
+                    this::onCircuitTransition));
+        }
+        if (config.isConcurrencyLimitEnabled()) {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                    sinkConfig.getName(),
+                    config.getConcurrencyLimitConfig(),
+                    this::onConcurrencyLimitChange);
+            metricsCollector.recordConcurrencyLimit(sinkConfig.getName(), limiter.getLimit());
+            context.setConcurrencyLimiter(limiter);
+        }
+        return context;
+    }
+
+    /**
+     * Sinks share the engine-wide executor unless they configure a dedicated pool,
+     * which isolates a slow sink so it cannot starve the others
+     */
+    private ExecutorService resolveSinkExecutor(SinkConfig sinkConfig) {
+        if (sinkConfig.getThreadPoolType() == null) {
+            return executorService;
+        }
+
+        int poolSize = sinkConfig.getThreadPoolSize() > 0
+                ? sinkConfig.getThreadPoolSize()
+                : config.getMaxPoolSize();
+        ExecutorService sinkExecutor = ExecutorFactory.create(
+                sinkConfig.getThreadPoolType(), poolSize, "sink-" + sinkConfig.getName());
+        sinkExecutors.add(sinkExecutor);
+        return sinkExecutor;
+    }
+
+    private void onCircuitTransition(String sinkName, CircuitBreaker.State from, CircuitBreaker.State to) {
+        logger.warn("Circuit breaker for sink {} moved {} -> {}", sinkName, from, to);
+        metricsCollector.recordCircuitTransition(sinkName, from, to);
+    }
+
+    private void onConcurrencyLimitChange(String sinkName, int from, int to) {
+        logger.debug("Concurrency limit for sink {} moved {} -> {}", sinkName, from, to);
+        metricsCollector.recordConcurrencyLimit(sinkName, to);
     }
 
     public void start() throws Exception {
         logger.info("Starting Fan-Out Engine...");
         running = true;
+        deadLetterQueue.start();
 
         // Initialize all sinks
         for (DataSink sink : sinks) {
@@ -86,24 +196,28 @@ public class FanOutOrchestrator {
         }
 
         // Start monitoring
-        monitoringExecutor.scheduleAtFixedRate(
-                metricsCollector::printStatus,
-                config.getStatusUpdateInterval(),
-                config.getStatusUpdateInterval(),
-                TimeUnit.SECONDS
-        );
-
+        if (config.isConsoleStatusEnabled()) {
+            monitoringExecutor.scheduleAtFixedRate(
+                    metricsCollector::printStatus,
+                    config.getStatusUpdateInterval(),
+                    config.getStatusUpdateInterval(),
+                    TimeUnit.SECONDS
+            );
+        }
         // Create data source
-        DataSource dataSource = DataSourceFactory.createDataSource(
-                config.getSourceType(),
-                config.getSourceFilePath()
-        );
+        DataSource dataSource = DataSourceFactory.createDataSource(config);
 
         logger.info("Starting data processing from: {}", config.getSourceFilePath());
 
         try {
+            // Inside the try so a port that fails to bind still shuts the sinks down
+            if (config.getMetricsPort() > 0) {
+                metricsServer = new MetricsServer(metricsCollector, config.getMetricsHost(), config.getMetricsPort());
+                metricsServer.start();
+            }
+
             // Process records in streaming fashion
-            dataSource.stream()
+            dataSource.stream(tracer)
                     .parallel()
                     .forEach(this::processRecord);
                     
@@ -120,64 +234,68 @@ public class FanOutOrchestrator {
 
     private void processRecord(Record record) {
         try {
-            // Add to queue with backpressure handling
-            if (!recordQueue.offer(record, 10, TimeUnit.SECONDS)) {
-                logger.warn("Queue full, dropping record: {}", record.getId());
-                return;
+            if (tracer != null && tracer.isSampled(record)) {
+                long start = System.nanoTime();
+                admissionController.submit(record);
+                tracer.span(record, "admit", null, start, System.nanoTime());
+            } else {
+                admissionController.submit(record);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while admitting record {}", record.getId(), e);
+        }
+    }
+
+    /**
+     * Fan an admitted record out to every sink, releasing its in-flight slot and pooled
+     * encodings once every sink has reached a final result, including any retries
+     */
+    private void dispatch(Record record) {
+        long dispatched = tracer != null && tracer.isSampled(record) ? System.nanoTime() : 0;
+        try {
+            CompletableFuture<?>[] deliveries = new CompletableFuture<?>[sinks.size()];
+            for (int i = 0; i < deliveries.length; i++) {
+                deliveries[i] = deliver(sinks.get(i), record);
             }
 
-            // Fan out to all sinks concurrently
-            List<CompletableFuture<ProcessingResult>> futures = sinks.stream()
-                    .map(sink -> sink.process(record))
-                    .collect(Collectors.toList());
-
-            // Wait for all sinks to complete processing
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                    .thenAccept(v -> {
-                        // Process results
-                        futures.forEach(future -> {
-                            try {
-                                ProcessingResult result = future.get();
-                                handleResult(result);
-                            } catch (Exception e) {
-                                logger.error("Error getting result", e);
-                            }
-                        });
-                        
-                        // Remove from queue
-                        recordQueue.remove(record);
-                    })
-                    .exceptionally(ex -> {
-                        logger.error("Error processing record {}", record.getId(), ex);
-                        recordQueue.remove(record);
-                        return null;
+            CompletableFuture.allOf(deliveries)
+                    .whenComplete((v, ex) -> {
+                        if (ex != null) {
+                            logger.error("Error processing record {}", record.getId(), ex);
+                        }
+                        if (dispatched != 0) {
+                            tracer.span(record, "fan-out", null, dispatched, System.nanoTime());
+                        }
+                        record.releaseEncodings();
+                        inFlightTracker.complete();
                     });
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            logger.error("Interrupted while processing record", e);
+        } catch (RuntimeException e) {
+            logger.error("Failed to dispatch record {}", record.getId(), e);
+            record.releaseEncodings();
+            inFlightTracker.complete();
         }
     }
 
-    private void handleResult(ProcessingResult result) {
+    /**
+     * Send a record to one sink and follow it through retries to a final result
+     */
+    private CompletableFuture<ProcessingResult> deliver(DataSink sink, Record record) {
+        return sink.process(record).thenCompose(result -> handleResult(sink, result));
+    }
+
+    private CompletableFuture<ProcessingResult> handleResult(DataSink sink, ProcessingResult result) {
         metricsCollector.recordResult(result);
         
         if (result.shouldRetry()) {
-            // Retry the record
+            // Retry after the sink's backoff instead of hammering it immediately
             Record retriedRecord = result.getRecord().withIncrementedRetry();
-            logger.info("Retrying record {} (attempt {})", 
-                    retriedRecord.getId(), retriedRecord.getRetryCount());
-            
-            // Re-process with incremented retry count
-            DataSink sink = sinks.stream()
-                    .filter(s -> s.getName().equals(result.getSinkName()))
-                    .findFirst()
-                    .orElse(null);
-                    
-            if (sink != null) {
-                sink.process(retriedRecord)
-                        .thenAccept(this::handleResult);
-            }
+            long delayMs = backoffPolicies.get(sink.getName()).delayMillis(retriedRecord.getRetryCount());
+            logger.info("Retrying record {} (attempt {}) in {}ms",
+                    retriedRecord.getId(), retriedRecord.getRetryCount(), delayMs);
+
+            return retryScheduler.schedule(result, delayMs, () -> deliver(sink, retriedRecord));
             
         } else if (result.isFailure()) {
             // Write to dead letter queue
@@ -185,13 +303,13 @@ public class FanOutOrchestrator {
             logger.error("Record {} failed permanently for sink {}", 
                     result.getRecord().getId(), result.getSinkName());
         }
+        return CompletableFuture.completedFuture(result);
     }
 
     private void waitForQueueToDrain() throws InterruptedException {
-        logger.info("Waiting for queue to drain...");
-        while (!recordQueue.isEmpty()) {
-            Thread.sleep(100);
-        }
+        logger.info("Waiting for {} in-flight records to drain...", inFlightTracker.getInFlight());
+        admissionController.awaitReplayed();
+        inFlightTracker.awaitDrained();
         logger.info("Queue drained successfully");
     }
 
@@ -201,18 +319,30 @@ public class FanOutOrchestrator {
 
         monitoringExecutor.shutdown();
         monitoringExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+
+        admissionController.close();
+        retryScheduler.close();
 
-        executorService.shutdown();
-        if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
-            executorService.shutdownNow();
+        shutdownExecutor(executorService);
+        for (ExecutorService sinkExecutor : sinkExecutors) {
+            shutdownExecutor(sinkExecutor);
         }
 
         for (DataSink sink : sinks) {
             sink.shutdown();
         }
+        sinkScheduler.shutdown();
+        // Last, as abandoned retries and late sink results still go to it
+        deadLetterQueue.close();
 
         // Final metrics report
         metricsCollector.printStatus();
+        if (tracer != null) {
+            tracer.writeChromeTrace(Path.of(config.getTracePath()));
+        }
         
         logger.info("Shutdown complete. Total processed: {}, Success: {}, Failures: {}",
                 metricsCollector.getTotalProcessed(),
@@ -220,6 +350,13 @@ public class FanOutOrchestrator {
                 metricsCollector.getTotalFailure());
     }
 
+    private void shutdownExecutor(ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
     public MetricsCollector getMetrics() {
         return metricsCollector;
     }
@@ -0,0 +1,81 @@
+package com.fanout.orchestrator;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks records that have been admitted but not yet acknowledged by every sink.
+ * Admission is bounded by a permit per record; admit, complete and drain are all O(1).
+ */
+public class InFlightTracker {
+    private final int capacity;
+    private final Semaphore permits;
+    private final AtomicLong inFlight = new AtomicLong();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final Condition drained = drainLock.newCondition();
+
+    public InFlightTracker(int capacity) {
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+    }
+
+    /**
+     * Admit a record, blocking until a slot is free
+     */
+    public void admit() throws InterruptedException {
+        permits.acquire();
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Admit a record if a slot frees up within the timeout
+     * @return true if the record was admitted
+     */
+    public boolean tryAdmit(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!permits.tryAcquire(timeout, unit)) {
+            return false;
+        }
+        inFlight.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Mark an admitted record as done, waking drain waiters when it was the last one
+     */
+    public void complete() {
+        permits.release();
+        if (inFlight.decrementAndGet() == 0) {
+            drainLock.lock();
+            try {
+                drained.signalAll();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Block until every admitted record has completed
+     */
+    public void awaitDrained() throws InterruptedException {
+        drainLock.lock();
+        try {
+            while (inFlight.get() > 0) {
+                drained.await();
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
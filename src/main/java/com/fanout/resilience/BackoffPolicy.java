@@ -0,0 +1,42 @@
+package com.fanout.resilience;
+
+import com.fanout.model.SinkConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter: base * multiplier^(attempt-1), capped at max,
+ * then reduced by a random fraction of up to jitter
+ */
+public class BackoffPolicy {
+    private final long baseMs;
+    private final long maxMs;
+    private final double multiplier;
+    private final double jitter;
+
+    public BackoffPolicy(long baseMs, long maxMs, double multiplier, double jitter) {
+        this.baseMs = baseMs;
+        this.maxMs = maxMs;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+    }
+
+    public static BackoffPolicy fromConfig(SinkConfig config) {
+        return new BackoffPolicy(
+                config.getRetryBackoffMs(),
+                config.getRetryMaxBackoffMs(),
+                config.getRetryBackoffMultiplier(),
+                config.getRetryJitter());
+    }
+
+    /**
+     * Delay before the given retry attempt, starting at 1
+     */
+    public long delayMillis(int attempt) {
+        double delay = Math.min(maxMs, baseMs * Math.pow(multiplier, Math.max(0, attempt - 1)));
+        if (jitter > 0) {
+            delay -= delay * jitter * ThreadLocalRandom.current().nextDouble();
+        }
+        return (long) delay;
+    }
+}
@@ -0,0 +1,197 @@
+package com.fanout.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free closed/open/half-open circuit breaker driven by the failure rate and
+ * slow-call rate over a sliding window of the most recent calls
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    @FunctionalInterface
+    public interface TransitionListener {
+        void onTransition(String name, State from, State to);
+    }
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final TransitionListener listener;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicReference<Window> window;
+    private final AtomicReference<Trial> trial = new AtomicReference<>();
+    private volatile long openedAtNanos;
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config, TransitionListener listener) {
+        this.name = name;
+        this.config = config;
+        this.listener = listener;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationMs());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMs());
+        this.window = new AtomicReference<>(new Window(config.getWindowSize()));
+    }
+
+    /**
+     * Ask whether a call may proceed. Every permitted call must be followed by onResult, or
+     * by releasePermission if it never reached the downstream.
+     */
+    public boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                return false;
+            }
+            if (transition(State.OPEN, State.HALF_OPEN)) {
+                trial.set(new Trial(config.getHalfOpenCalls()));
+            }
+        }
+
+        // A trial left over from an earlier half-open period has no permits left
+        Trial currentTrial = trial.get();
+        return currentTrial != null && currentTrial.permits.getAndUpdate(p -> Math.max(0, p - 1)) > 0;
+    }
+
+    /**
+     * Give back the permission for a call that was never made, instead of reporting a result
+     */
+    public void releasePermission() {
+        if (state.get() == State.HALF_OPEN) {
+            Trial current = trial.get();
+            if (current != null) {
+                current.permits.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Record the outcome of a permitted call
+     * @param durationNanos how long the call took, compared against the slow-call threshold
+     */
+    public void onResult(long durationNanos, boolean success) {
+        boolean slow = durationNanos >= slowCallNanos;
+
+        switch (state.get()) {
+            case CLOSED -> {
+                Window current = window.get();
+                current.record(!success, slow);
+                if (current.calls.get() >= config.getMinimumCalls() && exceedsThresholds(current)) {
+                    open(State.CLOSED);
+                }
+            }
+            case HALF_OPEN -> {
+                Trial current = trial.get();
+                if (current == null) {
+                    return;
+                }
+                current.window.record(!success, slow);
+                if (current.completed.incrementAndGet() == config.getHalfOpenCalls()) {
+                    if (exceedsThresholds(current.window)) {
+                        open(State.HALF_OPEN);
+                    } else {
+                        window.set(new Window(config.getWindowSize()));
+                        transition(State.HALF_OPEN, State.CLOSED);
+                    }
+                }
+            }
+            case OPEN -> {
+                // Late result from a call admitted before the breaker opened
+            }
+        }
+    }
+
+    private boolean exceedsThresholds(Window w) {
+        int calls = w.calls.get();
+        return w.failures.get() * 100L >= (long) config.getFailureRateThreshold() * calls
+                || w.slow.get() * 100L >= (long) config.getSlowCallRateThreshold() * calls;
+    }
+
+    private void open(State from) {
+        openedAtNanos = System.nanoTime();
+        transition(from, State.OPEN);
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+        if (listener != null) {
+            listener.onTransition(name, from, to);
+        }
+        return true;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Ring of the most recent call outcomes with running totals, updated without locks
+     */
+    private static final class Window {
+        private static final int RECORDED = 1;
+        private static final int FAILED = 2;
+        private static final int SLOW = 4;
+
+        private final AtomicIntegerArray outcomes;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger slow = new AtomicInteger();
+
+        Window(int size) {
+            this.outcomes = new AtomicIntegerArray(size);
+        }
+
+        void record(boolean failed, boolean slowCall) {
+            int outcome = RECORDED | (failed ? FAILED : 0) | (slowCall ? SLOW : 0);
+            int index = (int) (cursor.getAndIncrement() % outcomes.length());
+            int evicted = outcomes.getAndSet(index, outcome);
+
+            if (evicted == 0) {
+                calls.incrementAndGet();
+            }
+            adjust(failures, outcome, evicted, FAILED);
+            adjust(slow, outcome, evicted, SLOW);
+        }
+
+        private static void adjust(AtomicInteger counter, int added, int evicted, int flag) {
+            int delta = ((added & flag) != 0 ? 1 : 0) - ((evicted & flag) != 0 ? 1 : 0);
+            if (delta != 0) {
+                counter.addAndGet(delta);
+            }
+        }
+    }
+
+    /**
+     * Trial calls allowed through while half-open and their outcomes
+     */
+    private static final class Trial {
+        private final AtomicInteger permits;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final Window window;
+
+        Trial(int calls) {
+            this.permits = new AtomicInteger(calls);
+            this.window = new Window(calls);
+        }
+    }
+}
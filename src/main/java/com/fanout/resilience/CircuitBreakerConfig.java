@@ -0,0 +1,85 @@
+package com.fanout.resilience;
+
+/**
+ * Thresholds for a per-sink circuit breaker
+ */
+public class CircuitBreakerConfig {
+    private int failureRateThreshold = 50;
+    private int slowCallRateThreshold = 80;
+    private long slowCallDurationMs = 1000;
+    private int windowSize = 100;
+    private int minimumCalls = 20;
+    private long openDurationMs = 10_000;
+    private int halfOpenCalls = 10;
+
+    /**
+     * Percentage of failed calls in the window that opens the breaker
+     */
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(int failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    /**
+     * Percentage of slow calls in the window that opens the breaker
+     */
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    public long getSlowCallDurationMs() {
+        return slowCallDurationMs;
+    }
+
+    public void setSlowCallDurationMs(long slowCallDurationMs) {
+        this.slowCallDurationMs = slowCallDurationMs;
+    }
+
+    /**
+     * Number of most recent calls the rates are computed over
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    /**
+     * How long the breaker stays open before letting trial calls through
+     */
+    public long getOpenDurationMs() {
+        return openDurationMs;
+    }
+
+    public void setOpenDurationMs(long openDurationMs) {
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * Number of trial calls allowed while half-open
+     */
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public void setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+    }
+}
@@ -0,0 +1,62 @@
+package com.fanout.resilience;
+
+/**
+ * Bounds and tuning for a per-sink adaptive concurrency limit
+ */
+public class ConcurrencyLimitConfig {
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 1000;
+    private double backoffRatio = 0.9;
+    private int probeMultiplier = 30;
+
+    /**
+     * Requests allowed in flight before any latency has been observed
+     */
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Factor the limit is multiplied by when a call fails
+     */
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Every probeMultiplier * limit calls the limit is halved briefly to re-measure the no-load
+     * latency, so a downstream that got slower for good isn't mistaken for a queue forever
+     */
+    public int getProbeMultiplier() {
+        return probeMultiplier;
+    }
+
+    public void setProbeMultiplier(int probeMultiplier) {
+        this.probeMultiplier = probeMultiplier;
+    }
+}
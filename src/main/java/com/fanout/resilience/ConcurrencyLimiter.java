@@ -0,0 +1,131 @@
+package com.fanout.resilience;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive limit on the calls a sink keeps in flight, estimated from latency the way TCP Vegas
+ * sizes its window: the lowest latency seen is taken as the no-load time, and
+ * limit * (1 - noLoad / latency) is how many calls are queued downstream. The limit grows while
+ * that queue is short; once it is long the limit drops to what the downstream served without
+ * queueing plus a small allowance, and a failed call cuts it multiplicatively. Like a TCP window
+ * it moves at most once per round trip, only on calls that started under the current limit.
+ * Every so often the limit is halved so the no-load latency can be measured afresh.
+ * Updates are lock-free.
+ */
+public class ConcurrencyLimiter {
+
+    @FunctionalInterface
+    public interface LimitListener {
+        void onLimitChange(String name, int from, int to);
+    }
+
+    private final String name;
+    private final ConcurrencyLimitConfig config;
+    private final LimitListener listener;
+    private final LongSupplier clock;
+    private final AtomicReference<Estimate> estimate;
+
+    public ConcurrencyLimiter(String name, ConcurrencyLimitConfig config, LimitListener listener) {
+        this(name, config, listener, System::nanoTime);
+    }
+
+    ConcurrencyLimiter(String name, ConcurrencyLimitConfig config, LimitListener listener, LongSupplier clock) {
+        if (config.getMinLimit() < 1 || config.getMaxLimit() < config.getMinLimit()) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= max: "
+                    + config.getMinLimit() + ".." + config.getMaxLimit());
+        }
+        this.name = name;
+        this.config = config;
+        this.listener = listener;
+        this.clock = clock;
+        this.estimate = new AtomicReference<>(
+                new Estimate(clamp(config.getInitialLimit()), 0, 0, clock.getAsLong()));
+    }
+
+    /**
+     * Record a call that has just completed
+     * @param rttNanos how long the call took
+     * @param inFlight calls in flight when it started, including itself
+     * @param dropped whether it failed in a way that points at an overloaded downstream
+     */
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        long now = clock.getAsLong();
+        long rtt = Math.max(1, rttNanos);
+        while (true) {
+            Estimate current = estimate.get();
+            Estimate next = next(current, now, rtt, inFlight, dropped);
+            if (estimate.compareAndSet(current, next)) {
+                if ((int) current.limit != (int) next.limit && listener != null) {
+                    listener.onLimitChange(name, (int) current.limit, (int) next.limit);
+                }
+                return;
+            }
+        }
+    }
+
+    private Estimate next(Estimate current, long now, long rtt, int inFlight, boolean dropped) {
+        double limit = current.limit;
+        long samples = current.samples + 1;
+        boolean fresh = now - rtt >= current.changedAt;
+        if (!fresh) {
+            // Started under an older limit, so it says nothing about this one
+            long noLoadRtt = current.noLoadRtt == 0 ? 0 : Math.min(current.noLoadRtt, rtt);
+            return new Estimate(limit, noLoadRtt, samples, current.changedAt);
+        }
+        if (dropped) {
+            return changed(current, clamp(limit * config.getBackoffRatio()), current.noLoadRtt, samples, now);
+        }
+        if (current.noLoadRtt == 0) {
+            // First call since a probe lowered the limit; hold it a round trip while the latency settles
+            return new Estimate(limit, rtt, samples, now);
+        }
+        if (samples >= (long) config.getProbeMultiplier() * (int) limit) {
+            // The no-load latency may have moved up for good; only an emptier downstream shows it
+            return changed(current, clamp(limit / 2), 0, 0, now);
+        }
+
+        long noLoadRtt = Math.min(current.noLoadRtt, rtt);
+        if (inFlight * 2 < limit) {
+            // Too little traffic to tell whether the limit is too low
+            return new Estimate(limit, noLoadRtt, samples, current.changedAt);
+        }
+
+        int log = Math.max(1, (int) Math.log10(limit));
+        double served = limit * noLoadRtt / rtt;
+        double queued = Math.ceil(limit - served);
+        if (queued <= log) {
+            limit += 6 * log;
+        } else if (queued < 3 * log) {
+            limit += log;
+        } else if (queued > 6 * log) {
+            limit = served + 3 * log;
+        }
+        return changed(current, clamp(limit), noLoadRtt, samples, now);
+    }
+
+    private static Estimate changed(Estimate current, double limit, long noLoadRtt, long samples, long now) {
+        return new Estimate(limit, noLoadRtt, samples, (int) limit != (int) current.limit ? now : current.changedAt);
+    }
+
+    private double clamp(double limit) {
+        return Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), limit));
+    }
+
+    /**
+     * Calls currently allowed in flight
+     */
+    public int getLimit() {
+        return (int) estimate.get().limit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param changedAt when the limit last changed; calls started before then are stale
+     */
+    private record Estimate(double limit, long noLoadRtt, long samples, long changedAt) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.fanout.resilience;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free rate limiter using the generic cell rate algorithm: the whole state is the
+ * theoretical arrival time of the next permit, advanced by one emission interval per permit
+ * with a CAS. Permits unused while idle accumulate up to the burst size. Besides a blocking
+ * acquire, callers can reserve a permit and schedule their work after the returned delay,
+ * or take one only if it is available now.
+ */
+public class RateLimiter {
+    private final long intervalNanos;
+    // How far ahead of now the arrival time may run before permits have to wait
+    private final long toleranceNanos;
+    private final LongSupplier clock;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param permitsPerSecond sustained rate
+     * @param burst permits that may be taken at once after an idle period, at least 1
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    RateLimiter(double permitsPerSecond, int burst, LongSupplier clock) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1: "
+                    + permitsPerSecond + "/s, burst " + burst);
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = (burst - 1) * intervalNanos;
+        this.clock = clock;
+        this.theoreticalArrival = new AtomicLong(clock.getAsLong() - toleranceNanos);
+    }
+
+    /**
+     * Limiter that allows one second's worth of permits in a burst, like Guava's default
+     */
+    public static RateLimiter create(double permitsPerSecond) {
+        return new RateLimiter(permitsPerSecond, (int) Math.max(1, Math.min(permitsPerSecond, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Take a permit now if one is available
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long now = clock.getAsLong();
+            long start = Math.max(arrival, now - toleranceNanos);
+            if (start > now) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Claim the next permit, however far ahead it is
+     * @return nanoseconds to wait before using it, 0 if it can be used now
+     */
+    public long reserve() {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long now = clock.getAsLong();
+            long start = Math.max(arrival, now - toleranceNanos);
+            if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return Math.max(0, start - now);
+            }
+        }
+    }
+
+    /**
+     * Claim a permit and complete once it may be used, on the executor, without parking a thread
+     */
+    public CompletableFuture<Void> acquireAsync(Executor executor) {
+        long waitNanos = reserve();
+        return waitNanos == 0
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> { },
+                        CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS, executor));
+    }
+
+    /**
+     * Claim a permit and park the calling thread until it may be used
+     * @return nanoseconds spent waiting
+     */
+    public long acquire() {
+        long waitNanos = reserve();
+        long deadline = System.nanoTime() + waitNanos;
+        for (long remaining = waitNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+        return waitNanos;
+    }
+
+    public double getRate() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+}
@@ -0,0 +1,136 @@
+package com.fanout.resilience;
+
+import com.fanout.model.ProcessingResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs retries after their backoff delay on a single dispatcher thread instead of
+ * re-sending immediately. Retries still pending at shutdown are abandoned to a handler.
+ */
+public class RetryScheduler implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RetryScheduler.class);
+
+    private final DelayQueue<ScheduledRetry> queue = new DelayQueue<>();
+    private final Consumer<ProcessingResult> abandonedHandler;
+    private final Thread dispatcher;
+    private volatile boolean closed = false;
+
+    /**
+     * @param abandonedHandler receives the permanent failure for every retry dropped at shutdown
+     */
+    public RetryScheduler(Consumer<ProcessingResult> abandonedHandler) {
+        this.abandonedHandler = abandonedHandler;
+        this.dispatcher = Thread.ofPlatform()
+                .name("retry-scheduler")
+                .daemon(true)
+                .start(this::dispatchLoop);
+    }
+
+    /**
+     * Run the retry once the delay has elapsed
+     * @param failed the result that triggered the retry
+     * @param retry starts the retry and yields its eventual result
+     * @return future completed with the retry's result, or with a failure if it was abandoned
+     */
+    public CompletableFuture<ProcessingResult> schedule(ProcessingResult failed, long delayMs,
+                                                        Supplier<CompletableFuture<ProcessingResult>> retry) {
+        ScheduledRetry scheduled = new ScheduledRetry(failed, retry,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs));
+        queue.put(scheduled);
+
+        // Lost the race with close(): the dispatcher will never see this entry
+        if (closed && queue.remove(scheduled)) {
+            abandon(scheduled);
+        }
+        return scheduled.result;
+    }
+
+    private void dispatchLoop() {
+        try {
+            while (!closed) {
+                ScheduledRetry next = queue.take();
+                try {
+                    next.retry.get().whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            next.result.completeExceptionally(ex);
+                        } else {
+                            next.result.complete(result);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    next.result.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void abandon(ScheduledRetry scheduled) {
+        ProcessingResult failed = scheduled.failed;
+        ProcessingResult abandoned = ProcessingResult.failure(failed.getRecord(), failed.getSinkName(),
+                "Shut down before retry: " + failed.getErrorMessage(), failed.getProcessingTimeNanos());
+        abandonedHandler.accept(abandoned);
+        scheduled.result.complete(abandoned);
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    /**
+     * Stop dispatching and abandon every retry that has not started yet
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        dispatcher.interrupt();
+        dispatcher.join();
+
+        // Whoever removes an entry abandons it, so a concurrent schedule() never doubles up
+        List<ScheduledRetry> pending = new ArrayList<>();
+        for (ScheduledRetry scheduled : queue.toArray(new ScheduledRetry[0])) {
+            if (queue.remove(scheduled)) {
+                pending.add(scheduled);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            logger.warn("Abandoning {} pending retries at shutdown", pending.size());
+        }
+        pending.forEach(this::abandon);
+    }
+
+    private static class ScheduledRetry implements Delayed {
+        private final ProcessingResult failed;
+        private final Supplier<CompletableFuture<ProcessingResult>> retry;
+        private final long dueNanos;
+        private final CompletableFuture<ProcessingResult> result = new CompletableFuture<>();
+
+        ScheduledRetry(ProcessingResult failed, Supplier<CompletableFuture<ProcessingResult>> retry, long dueNanos) {
+            this.failed = failed;
+            this.retry = retry;
+            this.dueNanos = dueNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((ScheduledRetry) other).dueNanos);
+        }
+    }
+}
@@ -1,15 +1,33 @@
 package com.fanout.sink;
 
+import com.fanout.buffer.BufferPool;
+import com.fanout.buffer.PooledBuffer;
 import com.fanout.model.ProcessingResult;
 import com.fanout.model.Record;
+import com.fanout.model.RecordEncodings;
 import com.fanout.model.SinkConfig;
+import com.fanout.resilience.CircuitBreaker;
+import com.fanout.resilience.ConcurrencyLimiter;
+import com.fanout.resilience.RateLimiter;
 import com.fanout.transformation.DataTransformer;
 import com.fanout.transformation.TransformerFactory;
-import com.google.common.util.concurrent.RateLimiter;
+import com.fanout.util.StageLatencies;
+import com.fanout.util.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Abstract base class for all sinks with common functionality
@@ -18,52 +36,383 @@ public abstract class AbstractSink implements DataSink {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     protected final SinkConfig config;
     protected final DataTransformer transformer;
+    private final int encodingSlot;
+    private final BufferPool bufferPool;
     protected final RateLimiter rateLimiter;
+    protected final SinkContext context;
+    private final Map<Integer, BatchAccumulator> batchAccumulators = new ConcurrentHashMap<>();
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final InFlightWindow concurrencyWindow;
+    private final StageLatencies stageLatencies;
+    private final Tracer tracer;
     protected volatile boolean healthy = true;
 
-    protected AbstractSink(SinkConfig config) {
+    protected AbstractSink(SinkConfig config, SinkContext context) {
         this.config = config;
+        this.context = context;
         this.transformer = TransformerFactory.getTransformer(config.getTransformation());
+        this.encodingSlot = TransformerFactory.getEncodingSlot(transformer);
+        // Pooled buffers need a shared slot, whose owner releases them once every sink is done
+        this.bufferPool = RecordEncodings.isCacheable(encodingSlot) ? context.getBufferPool() : null;
         this.rateLimiter = RateLimiter.create(config.getRateLimit());
+        if (config.isBatchingEnabled()) {
+            if (context.getScheduler() == null) {
+                throw new IllegalStateException("Sink " + config.getName() + " batches but has no scheduler for linger");
+            }
+            logger.info("Sink {} batching up to {} records, linger {}ms",
+                    config.getName(), config.getBatchSize(), config.getLingerMs());
+        }
+        this.circuitBreaker = context.getCircuitBreaker();
+        this.concurrencyLimiter = context.getConcurrencyLimiter();
+        this.stageLatencies = context.getStageLatencies();
+        this.tracer = context.getTracer();
+        // Sends may block, so those that had to wait are started on the executor
+        this.concurrencyWindow = concurrencyLimiter != null
+                ? new InFlightWindow(concurrencyLimiter.getLimit(), context.getExecutor())
+                : null;
+    }
+
+    private BatchAccumulator batchAccumulator(int partition) {
+        return batchAccumulators.computeIfAbsent(partition, p -> new BatchAccumulator(
+                config.getBatchSize(), config.getLingerMs(), isBatchOrdered(),
+                context.getExecutor(), context.getScheduler(), this::flushBatch));
     }
 
     @Override
     public CompletableFuture<ProcessingResult> process(Record record) {
+        // Short-circuit while the downstream is known to be failing
+        if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+            logger.debug("Circuit open, rejecting record {}", record.getId());
+            return CompletableFuture.completedFuture(
+                    ProcessingResult.failure(record, getName(), "Circuit breaker open", 0));
+        }
+
+        if (config.isBatchingEnabled()) {
+            return processBatched(record);
+        }
+
+        long arrived = System.nanoTime();
+        long permitWaitNanos = rateLimiter.reserve();
         return CompletableFuture.supplyAsync(() -> {
-            long startTime = System.currentTimeMillis();
-            
+            long callStart = System.nanoTime();
+            recordWaits(record, arrived, callStart, permitWaitNanos);
+            // The time spent waiting for the permit counts towards processing time
+            long startNanos = callStart - permitWaitNanos;
+
             try {
-                // Apply rate limiting
-                rateLimiter.acquire();
-                
-                // Transform the record
-                byte[] transformedData = transformer.transform(record);
-                
-                // Send to sink
-                sendToSink(transformedData, record);
-                
-                long processingTime = System.currentTimeMillis() - startTime;
-                logger.debug("Successfully processed record {} in {}ms", record.getId(), processingTime);
-                
-                return ProcessingResult.success(record, getName(), processingTime);
-                
+                // Transform the record, reusing bytes another sink or attempt already produced,
+                // and send to sink
+                ByteBuffer data = transform(record);
+                long sendStart = System.nanoTime();
+                return limited(() -> sendAsync(data, record)).handle((v, ex) -> {
+                    long now = System.nanoTime();
+                    recordStage(record, StageLatencies.Stage.SEND, sendStart, now);
+                    long processingTime = now - startNanos;
+                    if (ex != null) {
+                        Throwable error = unwrap(ex);
+                        // A rejected record says nothing about the downstream's health
+                        recordCall(callStart, error instanceof NonRetryableException);
+                        return failedResult(record, error, processingTime);
+                    }
+                    recordCall(callStart, true);
+                    logger.debug("Successfully processed record {} in {}ns", record.getId(), processingTime);
+                    return ProcessingResult.success(record, getName(), processingTime);
+                });
+
             } catch (Exception e) {
-                long processingTime = System.currentTimeMillis() - startTime;
-                logger.error("Failed to process record {}: {}", record.getId(), e.getMessage());
-                
-                if (record.getRetryCount() < config.getRetryAttempts()) {
-                    return ProcessingResult.retry(record, getName(), e.getMessage(), processingTime);
-                } else {
-                    return ProcessingResult.failure(record, getName(), e.getMessage(), processingTime);
+                // The record failed to encode before any call was made
+                releaseCall();
+                return CompletableFuture.completedFuture(
+                        failedResult(record, e, System.nanoTime() - startNanos));
+            }
+        }, afterPermit(permitWaitNanos)).thenCompose(Function.identity());
+    }
+
+    /**
+     * Take the record's place in the open batch right away, so batches keep the order records
+     * arrived in, then transform on the executor once rate limiting allows. The batch is sent
+     * once every record in it has been transformed.
+     */
+    private CompletableFuture<ProcessingResult> processBatched(Record record) {
+        long arrived = System.nanoTime();
+        long permitWaitNanos = rateLimiter.reserve();
+
+        CompletableFuture<ByteBuffer> data = CompletableFuture.supplyAsync(() -> {
+            recordWaits(record, arrived, System.nanoTime(), permitWaitNanos);
+            try {
+                return transform(record);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, afterPermit(permitWaitNanos));
+        return batchAccumulator(batchPartition(record)).append(data, record, arrived);
+    }
+
+    private ByteBuffer transform(Record record) throws Exception {
+        long start = System.nanoTime();
+        ByteBuffer data = bufferPool != null
+                ? encodeToBuffer(record).nioBuffer()
+                : ByteBuffer.wrap(encode(record));
+        recordStage(record, StageLatencies.Stage.TRANSFORM, start, System.nanoTime());
+        return data;
+    }
+
+    /**
+     * Split the time from the record reaching the sink until its task started into the wait
+     * for the rate limit permit and the wait for a thread after that
+     */
+    private void recordWaits(Record record, long arrived, long started, long permitWaitNanos) {
+        long permitDue = arrived + permitWaitNanos;
+        recordStage(record, StageLatencies.Stage.RATE_LIMIT, arrived, permitDue);
+        recordStage(record, StageLatencies.Stage.QUEUE, Math.min(permitDue, started), started);
+    }
+
+    private void recordStage(Record record, StageLatencies.Stage stage, long startNanos, long endNanos) {
+        if (stageLatencies != null) {
+            stageLatencies.record(stage, endNanos - startNanos);
+        }
+        if (tracer != null && tracer.isSampled(record)) {
+            tracer.span(record, stage.getLabel(), getName(), startNanos, endNanos);
+        }
+    }
+
+    /**
+     * Executor for work holding a reserved rate limit permit: the work is scheduled for when
+     * the permit falls due, so no thread is parked waiting for it
+     */
+    private Executor afterPermit(long waitNanos) {
+        return waitNanos > 0
+                ? CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS, context.getExecutor())
+                : context.getExecutor();
+    }
+
+    /**
+     * Encode the record in this sink's format at most once across all sinks sharing the format
+     */
+    protected byte[] encode(Record record) throws Exception {
+        return record.getEncodings().computeIfAbsent(encodingSlot, () -> transformer.transform(record));
+    }
+
+    /**
+     * Encode the record into a pooled buffer shared by all sinks using the format. The record's
+     * encodings own the buffer and release it when the orchestrator is done with the record.
+     */
+    protected PooledBuffer encodeToBuffer(Record record) throws Exception {
+        return record.getEncodings().computeIfAbsent(encodingSlot, () -> transformer.transform(record, bufferPool));
+    }
+
+    private CompletableFuture<Void> flushBatch(List<BatchAccumulator.PendingSend> batch) {
+        CompletableFuture<?>[] encodings = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < encodings.length; i++) {
+            encodings[i] = batch.get(i).data;
+        }
+        return CompletableFuture.allOf(encodings)
+                .handle((v, ex) -> null)
+                .thenCompose(v -> sendEncoded(batch));
+    }
+
+    /**
+     * Send the records of a batch that transformed successfully and fail the others
+     */
+    private CompletableFuture<Void> sendEncoded(List<BatchAccumulator.PendingSend> batch) {
+        List<BatchAccumulator.PendingSend> sendable = new ArrayList<>(batch.size());
+        List<ByteBuffer> data = new ArrayList<>(batch.size());
+        List<Record> records = new ArrayList<>(batch.size());
+        for (BatchAccumulator.PendingSend pending : batch) {
+            if (pending.data.isCompletedExceptionally()) {
+                releaseCall();
+                pending.future.complete(failedResult(pending.record, unwrap(pending.data.exceptionNow()),
+                        System.nanoTime() - pending.startNanos));
+            } else {
+                sendable.add(pending);
+                data.add(pending.data.resultNow());
+                records.add(pending.record);
+            }
+        }
+        if (sendable.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long callStart = System.nanoTime();
+        return limited(() -> sendBatchAsync(data, records)).handle((v, ex) -> {
+            long now = System.nanoTime();
+            // The batch is one call to the downstream, so it reports one outcome; the
+            // permissions taken by the other records in it are handed back
+            for (int i = 1; i < sendable.size(); i++) {
+                releaseCall();
+            }
+            if (ex == null) {
+                recordCall(callStart, true);
+                logger.debug("Successfully sent batch of {} records", sendable.size());
+                for (BatchAccumulator.PendingSend pending : sendable) {
+                    recordStage(pending.record, StageLatencies.Stage.SEND, callStart, now);
+                    pending.future.complete(ProcessingResult.success(pending.record, getName(), now - pending.startNanos));
+                }
+            } else {
+                Throwable error = unwrap(ex);
+                recordCall(callStart, error instanceof NonRetryableException);
+                for (BatchAccumulator.PendingSend pending : sendable) {
+                    recordStage(pending.record, StageLatencies.Stage.SEND, callStart, now);
+                    pending.future.complete(failedResult(pending.record, error, now - pending.startNanos));
                 }
             }
+            return null;
         });
     }
 
     /**
-     * Template method for sending data to the specific sink implementation
+     * Start the call once the adaptive concurrency limit allows, and feed its latency and
+     * outcome back into the limit. Without a limiter the call starts right away.
      */
-    protected abstract void sendToSink(byte[] data, Record record) throws Exception;
+    private CompletableFuture<Void> limited(Supplier<CompletableFuture<Void>> call) {
+        if (concurrencyLimiter == null) {
+            return start(call);
+        }
+        return concurrencyWindow.execute(() -> {
+            int inFlight = concurrencyWindow.getInFlight();
+            long callStart = System.nanoTime();
+            return start(call).whenComplete((v, ex) -> {
+                // A rejected record says nothing about how loaded the downstream is
+                boolean dropped = ex != null && !(unwrap(ex) instanceof NonRetryableException);
+                concurrencyLimiter.onSample(System.nanoTime() - callStart, inFlight, dropped);
+                concurrencyWindow.setLimit(concurrencyLimiter.getLimit());
+            });
+        });
+    }
+
+    private static CompletableFuture<Void> start(Supplier<CompletableFuture<Void>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Report a call outcome to the circuit breaker, if there is one
+     */
+    private void recordCall(long callStartNanos, boolean success) {
+        if (circuitBreaker != null) {
+            circuitBreaker.onResult(System.nanoTime() - callStartNanos, success);
+        }
+    }
+
+    /**
+     * Hand back the circuit breaker permission of a record that never reached the downstream
+     */
+    private void releaseCall() {
+        if (circuitBreaker != null) {
+            circuitBreaker.releasePermission();
+        }
+    }
+
+    /**
+     * Retry while the record has attempts left, otherwise fail it permanently
+     */
+    private ProcessingResult failedResult(Record record, Throwable error, long processingTimeNanos) {
+        // Timeouts carry no message, so fall back to the exception's name
+        String message = error.getMessage() != null ? error.getMessage() : error.toString();
+        logger.error("Failed to process record {}: {}", record.getId(), message);
+
+        if (!(error instanceof NonRetryableException) && record.getRetryCount() < config.getRetryAttempts()) {
+            return ProcessingResult.retry(record, getName(), message, processingTimeNanos);
+        } else {
+            return ProcessingResult.failure(record, getName(), message, processingTimeNanos);
+        }
+    }
+
+    /**
+     * Template method for sending data to the specific sink implementation. The record's
+     * bytes are data[offset, offset + length); the array may be a larger pooled buffer.
+     */
+    protected abstract void sendToSink(byte[] data, int offset, int length, Record record) throws Exception;
+
+    /**
+     * Send a record and complete once the downstream has answered. The default sends on the
+     * calling executor thread; sinks with a non-blocking client override this so a request
+     * in flight doesn't hold a thread. The buffer stays valid until the future completes.
+     */
+    protected CompletableFuture<Void> sendAsync(ByteBuffer data, Record record) {
+        try {
+            sendBuffer(data, record);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stand-in for a real call when the sink is configured to simulate: completes after up to
+     * maxLatencyMs without holding a thread, failing at the given rate
+     */
+    protected CompletableFuture<Void> simulateCall(ByteBuffer data, long maxLatencyMs, double failureRate) {
+        logger.debug("Simulating call to {} with {} bytes", config.getEndpoint(), data.remaining());
+        long latencyMs = ThreadLocalRandom.current().nextLong(maxLatencyMs);
+        return CompletableFuture.runAsync(() -> {
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                throw new RuntimeException("Simulated " + getType() + " error");
+            }
+        }, CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS, context.getExecutor()));
+    }
+
+    /**
+     * Send a record encoded into a buffer. The buffer is shared with other sinks, so it must
+     * only be read, and only until this call or the batch containing it completes.
+     * The default hands sendToSink the backing array in place, copying only direct buffers.
+     */
+    protected void sendBuffer(ByteBuffer data, Record record) throws Exception {
+        if (data.hasArray()) {
+            sendToSink(data.array(), data.arrayOffset() + data.position(), data.remaining(), record);
+        } else {
+            byte[] bytes = new byte[data.remaining()];
+            data.duplicate().get(bytes);
+            sendToSink(bytes, 0, bytes.length, record);
+        }
+    }
+
+    /**
+     * Batch a record belongs to when batching is on. Each partition accumulates and flushes
+     * its own batches; the default puts every record in one.
+     */
+    protected int batchPartition(Record record) {
+        return 0;
+    }
+
+    /**
+     * Whether a partition sends its batches one at a time, in the order they were filled,
+     * rather than concurrently. Sinks promising per-key ordering turn this on.
+     */
+    protected boolean isBatchOrdered() {
+        return false;
+    }
+
+    /**
+     * Send a batch and complete once the downstream has acknowledged all of it. The default
+     * calls sendBatch on the executor thread; sinks with asynchronous acks override this.
+     */
+    protected CompletableFuture<Void> sendBatchAsync(List<ByteBuffer> data, List<Record> records) {
+        try {
+            sendBatch(data, records);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Send a batch in one round trip. The default sends record by record;
+     * sinks with a native batch API override this. A failure fails every record in the batch.
+     */
+    protected void sendBatch(List<ByteBuffer> data, List<Record> records) throws Exception {
+        for (int i = 0; i < records.size(); i++) {
+            sendBuffer(data.get(i), records.get(i));
+        }
+    }
 
     @Override
     public String getName() {
@@ -77,7 +426,7 @@ public abstract class AbstractSink implements DataSink {
 
     @Override
     public boolean isHealthy() {
-        return healthy;
+        return healthy && (circuitBreaker == null || circuitBreaker.getState() != CircuitBreaker.State.OPEN);
     }
 
     @Override
@@ -88,5 +437,8 @@ public abstract class AbstractSink implements DataSink {
     @Override
     public void shutdown() throws Exception {
         logger.info("Shutting down sink: {}", getName());
+        for (BatchAccumulator accumulator : batchAccumulators.values()) {
+            accumulator.flushNow();
+        }
     }
 }
@@ -0,0 +1,142 @@
+package com.fanout.sink;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Collects transformed records for a sink and hands them over in batches,
+ * flushing when a batch reaches batchSize or its oldest entry has lingered for lingerMs.
+ * When ordered, a batch is only flushed once the previous one has completed.
+ */
+class BatchAccumulator {
+    private final int batchSize;
+    private final long lingerMs;
+    private final boolean ordered;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final Function<List<PendingSend>, CompletableFuture<Void>> flusher;
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<PendingSend> current;
+    // Completes when the last batch handed over has been sent; only used when ordered
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+    BatchAccumulator(int batchSize, long lingerMs, boolean ordered, Executor executor,
+                     ScheduledExecutorService scheduler, Function<List<PendingSend>, CompletableFuture<Void>> flusher) {
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.ordered = ordered;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.flusher = flusher;
+        this.current = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Add a record, possibly still being transformed, to the open batch
+     * @return future completed with the record's own result once its batch has been sent
+     */
+    CompletableFuture<ProcessingResult> append(CompletableFuture<ByteBuffer> data, Record record, long startNanos) {
+        PendingSend pending = new PendingSend(data, record, startNanos);
+        List<PendingSend> full = null;
+
+        lock.lock();
+        try {
+            List<PendingSend> batch = current;
+            batch.add(pending);
+            if (batch.size() == 1) {
+                scheduler.schedule(() -> flushOnLinger(batch), lingerMs, TimeUnit.MILLISECONDS);
+            }
+            if (batch.size() >= batchSize) {
+                full = batch;
+                current = new ArrayList<>(batchSize);
+                handOver(full);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null && !ordered) {
+            List<PendingSend> batch = full;
+            executor.execute(() -> flusher.apply(batch));
+        }
+        return pending.future;
+    }
+
+    private void flushOnLinger(List<PendingSend> batch) {
+        lock.lock();
+        try {
+            // The batch may already have been flushed by size
+            if (current != batch) {
+                return;
+            }
+            current = new ArrayList<>(batchSize);
+            handOver(batch);
+        } finally {
+            lock.unlock();
+        }
+        if (!ordered) {
+            executor.execute(() -> flusher.apply(batch));
+        }
+    }
+
+    /**
+     * Queue a closed batch behind the previous one, if ordered. Called under the lock,
+     * so batches queue in the order they were closed.
+     */
+    private CompletableFuture<Void> handOver(List<PendingSend> batch) {
+        if (ordered) {
+            // A failed flush must not stall the batches behind it
+            tail = tail.exceptionally(ex -> null).thenComposeAsync(v -> flusher.apply(batch), executor);
+        }
+        return tail;
+    }
+
+    /**
+     * Flush whatever is pending and wait until it has been sent
+     */
+    void flushNow() {
+        List<PendingSend> batch;
+        CompletableFuture<Void> queued;
+        lock.lock();
+        try {
+            batch = current;
+            current = new ArrayList<>(batchSize);
+            queued = batch.isEmpty() ? tail : handOver(batch);
+        } finally {
+            lock.unlock();
+        }
+        if (ordered) {
+            queued.join();
+        } else if (!batch.isEmpty()) {
+            flusher.apply(batch).join();
+        }
+    }
+
+    /**
+     * A record waiting in a batch together with the future for its result
+     */
+    static class PendingSend {
+        // Completes once the record is transformed
+        final CompletableFuture<ByteBuffer> data;
+        final Record record;
+        // System.nanoTime() when the record reached the sink
+        final long startNanos;
+        final CompletableFuture<ProcessingResult> future = new CompletableFuture<>();
+
+        PendingSend(CompletableFuture<ByteBuffer> data, Record record, long startNanos) {
+            this.data = data;
+            this.record = record;
+            this.startNanos = startNanos;
+        }
+    }
+}
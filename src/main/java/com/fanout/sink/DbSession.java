@@ -0,0 +1,77 @@
+package com.fanout.sink;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Connection to a wide-column database cluster, in the shape of the Cassandra/ScyllaDB
+ * drivers: statements are prepared once and executed asynchronously against the replica
+ * owning the partition, so writes skip the coordinator hop.
+ */
+public interface DbSession extends AutoCloseable {
+
+    /**
+     * Prepare a statement on the cluster; callers cache the result
+     */
+    Prepared prepare(String query);
+
+    /**
+     * Replica owning the token in the keyspace
+     */
+    String replicaFor(String keyspace, long token);
+
+    /**
+     * Execute one statement on the replica
+     */
+    CompletableFuture<Void> executeAsync(String replica, Bound statement);
+
+    /**
+     * Execute statements as one UNLOGGED batch on the replica. Only worth it when they
+     * share a partition; a multi-partition batch makes the coordinator fan out.
+     */
+    CompletableFuture<Void> executeBatchAsync(String replica, List<Bound> statements);
+
+    /**
+     * A statement the cluster has parsed and cached
+     */
+    final class Prepared {
+        private final String query;
+
+        public Prepared(String query) {
+            this.query = query;
+        }
+
+        public Bound bind(Object... values) {
+            return new Bound(this, values);
+        }
+
+        public String getQuery() {
+            return query;
+        }
+    }
+
+    /**
+     * A prepared statement with its values. ByteBuffer values are only valid until execution completes.
+     */
+    final class Bound {
+        private final Prepared statement;
+        private final Object[] values;
+
+        Bound(Prepared statement, Object[] values) {
+            this.statement = statement;
+            this.values = values;
+        }
+
+        public Prepared getStatement() {
+            return statement;
+        }
+
+        public Object getValue(int index) {
+            return values[index];
+        }
+
+        public int size() {
+            return values.length;
+        }
+    }
+}
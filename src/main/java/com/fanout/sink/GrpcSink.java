@@ -2,51 +2,373 @@ package com.fanout.sink;
 
 import com.fanout.model.Record;
 import com.fanout.model.SinkConfig;
+import com.fanout.resilience.BackoffPolicy;
+import com.fanout.sink.RecordStreamProtocol.Ack;
+import com.fanout.sink.RecordStreamProtocol.Frame;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ClientResponseObserver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Mock gRPC sink - simulates bi-directional streaming gRPC client
+ * gRPC sink - streams records over one long-lived bidirectional call per sink (see
+ * {@link RecordStreamProtocol}). Frames are only written while the call reports isReady, so
+ * HTTP/2 flow control pushes back on the sink instead of buffering without bound; the rest
+ * wait in a queue until the onReady handler fires. Each record completes when the server acks
+ * its sequence. A broken stream fails its unacked records for retry and is reopened on the
+ * next send, or after a backoff when records are still queued for it.
  */
 public class GrpcSink extends AbstractSink {
+    private final InFlightWindow window;
+    private final Queue<Outbound> outbound = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Outbound> unacked = new ConcurrentHashMap<>();
+    private final AtomicLong sequences = new AtomicLong();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final BackoffPolicy reconnectBackoff;
+    private final AtomicInteger reconnectAttempts = new AtomicInteger();
+    private final AtomicBoolean reconnectScheduled = new AtomicBoolean();
+    private ManagedChannel channel;
+    private volatile RecordStream stream;
+    private volatile boolean closing;
+
+    public GrpcSink(SinkConfig config, SinkContext context) {
+        this(config, context, null);
+    }
 
-    public GrpcSink(SinkConfig config) {
-        super(config);
+    /**
+     * Use the given channel instead of one built from the endpoint; the sink shuts it down
+     */
+    GrpcSink(SinkConfig config, SinkContext context, ManagedChannel channel) {
+        super(config, context);
+        this.window = new InFlightWindow(config.getMaxInFlight());
+        this.reconnectBackoff = BackoffPolicy.fromConfig(config);
+        this.channel = channel;
     }
 
     @Override
     public void initialize() throws Exception {
         super.initialize();
-        // In production: initialize gRPC channel and stub
-        logger.info("gRPC Sink initialized for endpoint: {}", config.getEndpoint());
+        if (channel == null && !config.isSimulate()) {
+            channel = ManagedChannelBuilder.forTarget(config.getEndpoint())
+                    .usePlaintext()
+                    .build();
+        }
+        logger.info("gRPC Sink initialized for endpoint: {} ({} in flight{})",
+                config.getEndpoint(), config.getMaxInFlight(), config.isSimulate() ? ", simulated" : "");
+    }
+
+    @Override
+    protected void sendToSink(byte[] data, int offset, int length, Record record) throws Exception {
+        try {
+            sendAsync(ByteBuffer.wrap(data, offset, length), record).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
     }
 
     @Override
-    protected void sendToSink(byte[] data, Record record) throws Exception {
-        // Simulate gRPC call
-        logger.debug("Simulating gRPC call to {} with {} bytes", config.getEndpoint(), data.length);
-        
-        // Simulate network latency
-        Thread.sleep((long) (Math.random() * 30));
-        
-        // Simulate occasional failures (3% failure rate)
-        if (Math.random() < 0.03) {
-            throw new RuntimeException("Simulated gRPC error");
-        }
-        
-        // In production, actual gRPC call would be:
-        /*
-        ManagedChannel channel = ManagedChannelBuilder
-                .forTarget(config.getEndpoint())
-                .usePlaintext()
-                .build();
-                
-        // Use generated stub to make call
-        // stub.sendData(request);
-        */
+    protected CompletableFuture<Void> sendAsync(ByteBuffer data, Record record) {
+        if (config.isSimulate()) {
+            return simulateCall(data, 30, 0.03);
+        }
+
+        Outbound send = new Outbound(new Frame(sequences.incrementAndGet(), data));
+        window.submit(() -> {
+            // An ack that never comes fails the record for retry rather than holding its slot
+            send.done.orTimeout(config.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                    .whenComplete((v, ex) -> {
+                        unacked.remove(send.frame.sequence);
+                        window.release();
+                        send.settle();
+                    });
+            outbound.add(send);
+            drain();
+        });
+        return send.result;
+    }
+
+    /**
+     * Write queued frames while the stream is ready. Calls from any thread are folded into
+     * one drain loop, since a stream observer must not be written to concurrently.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            try {
+                // While a reconnect is pending the queued frames wait for it
+                RecordStream current = reconnectScheduled.get() ? stream : openStream();
+                Outbound send;
+                while (current != null && current.requests.isReady() && (send = outbound.poll()) != null) {
+                    // Timed out or failed while queued; its buffer may already be back in the pool
+                    if (send.claim()) {
+                        current.write(send);
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to write to gRPC stream for {}", getName(), e);
+                failQueued(e);
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private RecordStream openStream() {
+        RecordStream current = stream;
+        if (current == null) {
+            current = new RecordStream();
+            stream = current;
+            ClientCalls.asyncBidiStreamingCall(
+                    channel.newCall(RecordStreamProtocol.STREAM_METHOD, CallOptions.DEFAULT), current);
+            logger.info("Opened gRPC stream to {}", config.getEndpoint());
+        }
+        return current;
+    }
+
+    /**
+     * Reopen the stream after a backoff, so a server that keeps ending it isn't hammered
+     */
+    private void scheduleReconnect() {
+        if (!reconnectScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        long delayMs = reconnectBackoff.delayMillis(reconnectAttempts.incrementAndGet());
+        Runnable reopen = () -> {
+            reconnectScheduled.set(false);
+            if (closing) {
+                failQueued(new IOException("gRPC sink " + getName() + " is shut down"));
+            } else if (hasLiveQueued()) {
+                drain();
+            }
+        };
+        try {
+            ScheduledExecutorService scheduler = context.getScheduler();
+            if (scheduler != null) {
+                scheduler.schedule(reopen, delayMs, TimeUnit.MILLISECONDS);
+            } else {
+                CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS, context.getExecutor()).execute(reopen);
+            }
+        } catch (RejectedExecutionException e) {
+            reconnectScheduled.set(false);
+            failQueued(e);
+        }
+    }
+
+    /**
+     * Whether any queued frame is still waiting on its ack, dropping those already completed
+     */
+    private boolean hasLiveQueued() {
+        outbound.removeIf(send -> send.done.isDone());
+        return !outbound.isEmpty();
+    }
+
+    private void failQueued(Throwable error) {
+        Outbound send;
+        while ((send = outbound.poll()) != null) {
+            send.done.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Records queued for the stream, not yet written because it wasn't ready
+     */
+    int getQueued() {
+        return outbound.size();
+    }
+
+    /**
+     * Records written to the stream and still awaiting their ack
+     */
+    int getUnacked() {
+        return unacked.size();
     }
 
     @Override
     public void shutdown() throws Exception {
         super.shutdown();
-        // In production: shutdown gRPC channel
+        closing = true;
+        RecordStream current = stream;
+        if (current != null) {
+            current.close();
+        }
+        if (channel != null) {
+            channel.shutdown();
+            if (!channel.awaitTermination(config.getTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                channel.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * A frame and its outcome. done completes on the ack, a failure or the timeout; result
+     * passes that on to the caller, who then releases the buffer, so it waits for any
+     * onNext still reading the frame.
+     */
+    private static final class Outbound {
+        private static final int QUEUED = 0;
+        private static final int WRITING = 1;
+        private static final int IDLE = 2;
+
+        final Frame frame;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        volatile RecordStream stream;
+
+        Outbound(Frame frame) {
+            this.frame = frame;
+        }
+
+        /**
+         * Take the frame for writing, unless its outcome is already settled
+         */
+        boolean claim() {
+            return state.compareAndSet(QUEUED, WRITING);
+        }
+
+        /**
+         * Hand back a claimed frame, either to wait in the queue again or as written
+         */
+        void unclaim(boolean requeued) {
+            state.set(requeued ? QUEUED : IDLE);
+            if (done.isDone()) {
+                settle();
+            }
+        }
+
+        /**
+         * Pass the outcome on once nothing is reading the buffer; a frame being written
+         * settles when its writer unclaims it
+         */
+        void settle() {
+            if (state.compareAndSet(QUEUED, IDLE) || state.get() == IDLE) {
+                done.whenComplete((v, ex) -> {
+                    if (ex != null) {
+                        result.completeExceptionally(ex);
+                    } else {
+                        result.complete(null);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * One bidirectional call; acks complete records, and its end fails whatever it left unacked
+     */
+    private final class RecordStream implements ClientResponseObserver<Frame, Ack> {
+        private ClientCallStreamObserver<Frame> requests;
+        private volatile boolean closed;
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<Frame> requestStream) {
+            this.requests = requestStream;
+            requestStream.setOnReadyHandler(GrpcSink.this::drain);
+        }
+
+        void write(Outbound send) {
+            send.stream = this;
+            unacked.put(send.frame.sequence, send);
+            if (send.done.isDone()) {
+                // Timed out after it was claimed, so its cleanup has already run
+                unacked.remove(send.frame.sequence);
+                send.unclaim(false);
+                return;
+            }
+            if (closed) {
+                // Lost the race with the stream ending; retry on the next stream
+                unacked.remove(send.frame.sequence);
+                send.unclaim(true);
+                outbound.add(send);
+                return;
+            }
+            try {
+                requests.onNext(send.frame);
+            } finally {
+                send.unclaim(false);
+            }
+        }
+
+        @Override
+        public void onNext(Ack ack) {
+            reconnectAttempts.set(0);
+            Outbound send = unacked.remove(ack.sequence);
+            if (send == null) {
+                return;
+            }
+            Status.Code code = Status.fromCodeValue(ack.code).getCode();
+            String error = "gRPC error: " + code + (ack.message != null ? " " + ack.message : "");
+            if (code == Status.Code.OK) {
+                send.done.complete(null);
+            } else if (isRejection(code)) {
+                send.done.completeExceptionally(new NonRetryableException(error));
+            } else {
+                send.done.completeExceptionally(new IOException(error));
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            logger.warn("gRPC stream to {} failed: {}", config.getEndpoint(), t.getMessage());
+            end(new IOException("gRPC stream failed: " + Status.fromThrowable(t).getCode(), t));
+        }
+
+        @Override
+        public void onCompleted() {
+            end(new IOException("gRPC stream closed by server"));
+        }
+
+        void close() {
+            if (!closed) {
+                requests.onCompleted();
+            }
+        }
+
+        private void end(Throwable error) {
+            closed = true;
+            if (stream == this) {
+                stream = null;
+            }
+            unacked.values().removeIf(send -> {
+                if (send.stream == this) {
+                    send.done.completeExceptionally(error);
+                    return true;
+                }
+                return false;
+            });
+            if (hasLiveQueued()) {
+                scheduleReconnect();
+            }
+        }
+    }
+
+    /**
+     * Codes saying the record itself was refused, so sending it again cannot help
+     */
+    private static boolean isRejection(Status.Code code) {
+        return switch (code) {
+            case INVALID_ARGUMENT, FAILED_PRECONDITION, OUT_OF_RANGE, ALREADY_EXISTS -> true;
+            default -> false;
+        };
     }
 }
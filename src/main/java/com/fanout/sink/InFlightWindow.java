@@ -0,0 +1,125 @@
+package com.fanout.sink;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caps the requests a sink has outstanding without parking a thread per request.
+ * Sends that don't fit queue up and start as earlier ones complete.
+ */
+class InFlightWindow {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    private final Executor executor;
+    private volatile int limit;
+
+    InFlightWindow(int limit) {
+        this(limit, null);
+    }
+
+    /**
+     * @param executor where sends that had to wait are started, or null to start them on the
+     *                 thread that freed the slot, which suits sends that don't block
+     */
+    InFlightWindow(int limit, Executor executor) {
+        checkLimit(limit);
+        this.limit = limit;
+        this.executor = executor;
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("In-flight limit must be positive: " + limit);
+        }
+    }
+
+    /**
+     * Change the limit. Lowering it lets requests already in flight finish; raising it starts
+     * waiting sends right away.
+     */
+    void setLimit(int limit) {
+        checkLimit(limit);
+        int previous = this.limit;
+        this.limit = limit;
+        if (limit > previous) {
+            drain();
+        }
+    }
+
+    /**
+     * Start the send now if the window has room, otherwise once a slot frees up.
+     * The send must call {@link #release()} exactly once when its request completes.
+     */
+    void submit(Runnable send) {
+        waiting.add(send);
+        drain();
+    }
+
+    /**
+     * Start the call once the window has room, holding the slot until the call's future completes
+     */
+    <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> done = new CompletableFuture<>();
+        submit(() -> {
+            CompletableFuture<T> started;
+            try {
+                started = call.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((result, ex) -> {
+                release();
+                if (ex != null) {
+                    done.completeExceptionally(ex);
+                } else {
+                    done.complete(result);
+                }
+            });
+        });
+        return done;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+        if (executor != null && !waiting.isEmpty()) {
+            executor.execute(this::drain);
+        } else {
+            drain();
+        }
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                // Whoever frees the slot drains again, and sees our entry
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable next = waiting.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            next.run();
+        }
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    int getWaiting() {
+        return waiting.size();
+    }
+
+    int getLimit() {
+        return limit;
+    }
+}
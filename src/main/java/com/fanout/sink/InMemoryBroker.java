@@ -0,0 +1,165 @@
+package com.fanout.sink;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local stand-in for a message broker. Each topic has a fixed number of partitions, each an
+ * append-only log that keeps its most recent messages in memory and, given a directory,
+ * also appends them to a file per partition as [key length][key][value length][value].
+ * Batches are acknowledged once appended.
+ */
+public class InMemoryBroker implements MessageProducer {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryBroker.class);
+
+    private final int partitions;
+    private final int retainedPerPartition;
+    private final Path directory;
+    private final Map<String, Partition[]> topics = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory where partition logs are written, or null to keep messages in memory only
+     */
+    public InMemoryBroker(int partitions, int retainedPerPartition, Path directory) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partitions must be positive: " + partitions);
+        }
+        this.partitions = partitions;
+        this.retainedPerPartition = retainedPerPartition;
+        this.directory = directory;
+    }
+
+    @Override
+    public int partitionCount(String topic) {
+        return partitions;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(String topic, int partition, List<Message> messages) {
+        try {
+            partitions(topic)[partition].append(messages);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Messages the partition still retains, oldest first
+     */
+    public List<Message> read(String topic, int partition) {
+        return partitions(topic)[partition].retained();
+    }
+
+    /**
+     * Offset the partition's next message will get, i.e. how many it has ever been sent
+     */
+    public long endOffset(String topic, int partition) {
+        return partitions(topic)[partition].nextOffset();
+    }
+
+    private Partition[] partitions(String topic) {
+        return topics.computeIfAbsent(topic, t -> {
+            Partition[] created = new Partition[partitions];
+            for (int i = 0; i < partitions; i++) {
+                created[i] = new Partition(directory != null ? directory.resolve(t + "-" + i + ".log") : null);
+            }
+            return created;
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Partition[] topicPartitions : topics.values()) {
+            for (Partition partition : topicPartitions) {
+                partition.close();
+            }
+        }
+    }
+
+    private final class Partition {
+        private final Path logFile;
+        private final ArrayDeque<Message> retained = new ArrayDeque<>();
+        private FileChannel log;
+        private long nextOffset;
+
+        Partition(Path logFile) {
+            this.logFile = logFile;
+        }
+
+        synchronized void append(List<Message> messages) throws IOException {
+            // Values belong to the sender only until the ack, so keep copies
+            List<Message> copies = new ArrayList<>(messages.size());
+            int logBytes = 0;
+            for (Message message : messages) {
+                ByteBuffer value = message.getValue().duplicate();
+                byte[] bytes = new byte[value.remaining()];
+                value.get(bytes);
+                copies.add(new Message(message.getKey(), ByteBuffer.wrap(bytes).asReadOnlyBuffer()));
+                logBytes += 8 + bytes.length + (message.getKey() != null ? message.getKey().length() * 3 : 0);
+            }
+
+            if (logFile != null) {
+                writeLog(copies, logBytes);
+            }
+            for (Message copy : copies) {
+                retained.addLast(copy);
+                if (retained.size() > retainedPerPartition) {
+                    retained.removeFirst();
+                }
+            }
+            nextOffset += copies.size();
+        }
+
+        private void writeLog(List<Message> copies, int maxBytes) throws IOException {
+            if (log == null) {
+                Files.createDirectories(logFile.getParent());
+                log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                logger.info("Broker partition log: {}", logFile);
+            }
+            ByteBuffer batch = ByteBuffer.allocate(maxBytes);
+            for (Message copy : copies) {
+                if (copy.getKey() != null) {
+                    byte[] key = copy.getKey().getBytes(StandardCharsets.UTF_8);
+                    batch.putInt(key.length).put(key);
+                } else {
+                    batch.putInt(-1);
+                }
+                batch.putInt(copy.getValue().remaining()).put(copy.getValue().duplicate());
+            }
+            batch.flip();
+            while (batch.hasRemaining()) {
+                log.write(batch);
+            }
+        }
+
+        synchronized List<Message> retained() {
+            return new ArrayList<>(retained);
+        }
+
+        synchronized long nextOffset() {
+            return nextOffset;
+        }
+
+        synchronized void close() throws IOException {
+            if (log != null) {
+                log.close();
+            }
+        }
+    }
+}
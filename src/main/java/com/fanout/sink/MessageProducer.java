@@ -0,0 +1,45 @@
+package com.fanout.sink;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client side of a partitioned message broker, in the shape of a Kafka producer:
+ * batches are appended to one partition at a time and acknowledged asynchronously
+ */
+public interface MessageProducer extends AutoCloseable {
+
+    /**
+     * Number of partitions of the topic
+     */
+    int partitionCount(String topic);
+
+    /**
+     * Append messages to a partition in order
+     * @return future completed once the broker has acknowledged the whole batch;
+     *         message values are only valid until then
+     */
+    CompletableFuture<Void> send(String topic, int partition, List<Message> messages);
+
+    /**
+     * A keyed message
+     */
+    final class Message {
+        private final String key;
+        private final ByteBuffer value;
+
+        public Message(String key, ByteBuffer value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public ByteBuffer getValue() {
+            return value;
+        }
+    }
+}
@@ -2,54 +2,113 @@ package com.fanout.sink;
 
 import com.fanout.model.Record;
 import com.fanout.model.SinkConfig;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Mock Message Queue sink - simulates publishing to Kafka/RabbitMQ
+ * Message Queue sink - publishes to a partitioned topic through a {@link MessageProducer},
+ * the built-in {@link InMemoryBroker} unless another is plugged in. Records are partitioned by
+ * the partitionKey field, and each partition lingers and batches on its own, sending one batch
+ * at a time, so records sharing a key are published in order when batching is on. Batches
+ * complete when the producer acks them, without a thread waiting on each round trip.
  */
 public class MessageQueueSink extends AbstractSink {
+    private static final int RETAINED_PER_PARTITION = 10_000;
+
+    private MessageProducer producer;
+    private int partitionCount;
+
+    public MessageQueueSink(SinkConfig config, SinkContext context) {
+        this(config, context, null);
+    }
 
-    public MessageQueueSink(SinkConfig config) {
-        super(config);
+    /**
+     * Publish through the given producer, which the sink closes on shutdown
+     */
+    public MessageQueueSink(SinkConfig config, SinkContext context, MessageProducer producer) {
+        super(config, context);
+        this.producer = producer;
     }
 
     @Override
     public void initialize() throws Exception {
         super.initialize();
-        // In production: initialize Kafka producer or RabbitMQ connection
-        logger.info("Message Queue Sink initialized for endpoint: {} topic: {}", 
-                config.getEndpoint(), config.getTopic());
+        if (producer == null) {
+            producer = new InMemoryBroker(config.getPartitions(), RETAINED_PER_PARTITION,
+                    config.getBrokerDir() != null ? Path.of(config.getBrokerDir()) : null);
+        }
+        partitionCount = producer.partitionCount(config.getTopic());
+        logger.info("Message Queue Sink initialized for endpoint: {} topic: {} ({} partitions, key {})",
+                config.getEndpoint(), config.getTopic(), partitionCount,
+                config.getPartitionKey() != null ? config.getPartitionKey() : "record id");
     }
 
     @Override
-    protected void sendToSink(byte[] data, Record record) throws Exception {
-        // Simulate message publishing
-        logger.debug("Simulating publish to topic {} with {} bytes", 
-                config.getTopic(), data.length);
-        
-        // Simulate network latency
-        Thread.sleep((long) (Math.random() * 20));
-        
-        // Simulate occasional failures (2% failure rate)
-        if (Math.random() < 0.02) {
-            throw new RuntimeException("Simulated MQ error");
+    protected void sendToSink(byte[] data, int offset, int length, Record record) throws Exception {
+        try {
+            sendAsync(ByteBuffer.wrap(data, offset, length), record).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
         }
-        
-        // In production with Kafka:
-        /*
-        ProducerRecord<String, byte[]> producerRecord = 
-                new ProducerRecord<>(config.getTopic(), record.getId(), data);
-        producer.send(producerRecord).get();
-        */
-        
-        // In production with RabbitMQ:
-        /*
-        channel.basicPublish("", config.getTopic(), null, data);
-        */
+    }
+
+    @Override
+    protected CompletableFuture<Void> sendAsync(ByteBuffer data, Record record) {
+        return publish(batchPartition(record), List.of(new MessageProducer.Message(key(record), data)));
+    }
+
+    @Override
+    protected CompletableFuture<Void> sendBatchAsync(List<ByteBuffer> data, List<Record> records) {
+        List<MessageProducer.Message> messages = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            messages.add(new MessageProducer.Message(key(records.get(i)), data.get(i)));
+        }
+        // Every record of a batch shares the partition
+        return publish(batchPartition(records.get(0)), messages);
+    }
+
+    private CompletableFuture<Void> publish(int partition, List<MessageProducer.Message> messages) {
+        logger.debug("Publishing {} messages to {}-{}", messages.size(), config.getTopic(), partition);
+        if (config.isSimulate()) {
+            return simulateCall(messages.get(0).getValue(), 20, 0.02)
+                    .thenCompose(v -> producer.send(config.getTopic(), partition, messages));
+        }
+        return producer.send(config.getTopic(), partition, messages);
+    }
+
+    @Override
+    protected int batchPartition(Record record) {
+        int hash = Hashing.murmur3_32_fixed().hashString(key(record), StandardCharsets.UTF_8).asInt();
+        return Math.floorMod(hash, partitionCount);
+    }
+
+    @Override
+    protected boolean isBatchOrdered() {
+        return true;
+    }
+
+    private String key(Record record) {
+        if (config.getPartitionKey() != null) {
+            Object value = record.get(config.getPartitionKey());
+            if (value != null) {
+                return value.toString();
+            }
+        }
+        return record.getId();
     }
 
     @Override
     public void shutdown() throws Exception {
         super.shutdown();
-        // In production: close producer/connection
+        if (producer != null) {
+            producer.close();
+        }
     }
 }
@@ -0,0 +1,13 @@
+package com.fanout.sink;
+
+/**
+ * Thrown by a sink when the downstream rejected the record itself, e.g. an HTTP 400,
+ * so retrying would fail the same way. The record goes straight to the dead letter queue.
+ */
+public class NonRetryableException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public NonRetryableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,210 @@
+package com.fanout.sink;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire protocol of the gRPC sink's bidirectional stream, hand-written so no generated stubs are needed:
+ * <pre>
+ * service RecordSink {
+ *   rpc Stream(stream RecordFrame) returns (stream RecordAck);
+ * }
+ * message RecordFrame { uint64 sequence = 1; bytes payload = 2; }
+ * message RecordAck { uint64 sequence = 1; int32 code = 2; string message = 3; }
+ * </pre>
+ * The payload is the record in the sink's transformation. The server answers every frame with an
+ * ack carrying its sequence, in any order; code is a google.rpc.Code, 0 meaning OK.
+ */
+final class RecordStreamProtocol {
+    static final MethodDescriptor<Frame, Ack> STREAM_METHOD = MethodDescriptor.<Frame, Ack>newBuilder()
+            .setType(MethodDescriptor.MethodType.BIDI_STREAMING)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName("fanout.RecordSink", "Stream"))
+            .setRequestMarshaller(new FrameMarshaller())
+            .setResponseMarshaller(new AckMarshaller())
+            .build();
+
+    private RecordStreamProtocol() {
+    }
+
+    /**
+     * A record sent on the stream. The payload is only read while the frame is being serialized.
+     */
+    static final class Frame {
+        final long sequence;
+        final ByteBuffer payload;
+
+        Frame(long sequence, ByteBuffer payload) {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+    }
+
+    static final class Ack {
+        final long sequence;
+        final int code;
+        final String message;
+
+        Ack(long sequence, int code, String message) {
+            this.sequence = sequence;
+            this.code = code;
+            this.message = message;
+        }
+    }
+
+    private static final class FrameMarshaller implements MethodDescriptor.Marshaller<Frame> {
+        @Override
+        public InputStream stream(Frame frame) {
+            return new FrameStream(frame);
+        }
+
+        @Override
+        public Frame parse(InputStream stream) {
+            try {
+                CodedInputStream input = CodedInputStream.newInstance(stream);
+                long sequence = 0;
+                ByteBuffer payload = ByteBuffer.allocate(0);
+                for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+                    switch (WireFormat.getTagFieldNumber(tag)) {
+                        case 1 -> sequence = input.readUInt64();
+                        case 2 -> payload = input.readByteBuffer();
+                        default -> input.skipField(tag);
+                    }
+                }
+                return new Frame(sequence, payload);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed record frame", e);
+            }
+        }
+    }
+
+    private static final class AckMarshaller implements MethodDescriptor.Marshaller<Ack> {
+        @Override
+        public InputStream stream(Ack ack) {
+            byte[] bytes = new byte[CodedOutputStream.computeUInt64Size(1, ack.sequence)
+                    + CodedOutputStream.computeInt32Size(2, ack.code)
+                    + (ack.message != null ? CodedOutputStream.computeStringSize(3, ack.message) : 0)];
+            CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+            try {
+                output.writeUInt64(1, ack.sequence);
+                output.writeInt32(2, ack.code);
+                if (ack.message != null) {
+                    output.writeString(3, ack.message);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public Ack parse(InputStream stream) {
+            try {
+                CodedInputStream input = CodedInputStream.newInstance(stream);
+                long sequence = 0;
+                int code = 0;
+                String message = null;
+                for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+                    switch (WireFormat.getTagFieldNumber(tag)) {
+                        case 1 -> sequence = input.readUInt64();
+                        case 2 -> code = input.readInt32();
+                        case 3 -> message = input.readString();
+                        default -> input.skipField(tag);
+                    }
+                }
+                return new Ack(sequence, code, message);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed record ack", e);
+            }
+        }
+    }
+
+    /**
+     * Serialized frame that gRPC drains straight into its transport buffers, so the payload is
+     * copied once, from the record's buffer into the outbound frame
+     */
+    private static final class FrameStream extends InputStream implements Drainable, KnownLength {
+        private final byte[] header;
+        private final ByteBuffer payload;
+        private InputStream fallback;
+        private boolean drained;
+
+        FrameStream(Frame frame) {
+            this.payload = frame.payload.duplicate();
+            this.header = new byte[CodedOutputStream.computeUInt64Size(1, frame.sequence)
+                    + CodedOutputStream.computeTagSize(2)
+                    + CodedOutputStream.computeUInt32SizeNoTag(payload.remaining())];
+            CodedOutputStream output = CodedOutputStream.newInstance(header);
+            try {
+                output.writeUInt64(1, frame.sequence);
+                output.writeTag(2, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeUInt32NoTag(payload.remaining());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int drainTo(OutputStream target) throws IOException {
+            int length = available();
+            target.write(header);
+            if (payload.hasArray()) {
+                target.write(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+            } else {
+                byte[] chunk = new byte[Math.min(payload.remaining(), 8192)];
+                while (payload.hasRemaining()) {
+                    int n = Math.min(chunk.length, payload.remaining());
+                    payload.get(chunk, 0, n);
+                    target.write(chunk, 0, n);
+                }
+            }
+            drained = true;
+            return length;
+        }
+
+        @Override
+        public int available() {
+            if (drained) {
+                return 0;
+            }
+            return fallback != null ? safeAvailable(fallback) : header.length + payload.remaining();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fallback().read();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            return fallback().read(bytes, offset, length);
+        }
+
+        private InputStream fallback() {
+            if (fallback == null) {
+                byte[] bytes = new byte[header.length + payload.remaining()];
+                System.arraycopy(header, 0, bytes, 0, header.length);
+                payload.get(bytes, header.length, payload.remaining());
+                fallback = new ByteArrayInputStream(bytes);
+            }
+            return fallback;
+        }
+
+        private static int safeAvailable(InputStream stream) {
+            try {
+                return stream.available();
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+    }
+}
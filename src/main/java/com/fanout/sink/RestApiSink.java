@@ -3,68 +3,106 @@ package com.fanout.sink;
 import com.fanout.model.Record;
 import com.fanout.model.SinkConfig;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Mock REST API sink - simulates HTTP/2 POST requests
+ * REST API sink - POSTs each record over HTTP/2 (HTTP/1.1 where the server doesn't speak it).
+ * Requests are sent asynchronously and pipelined up to maxInFlight per sink, so throughput at a
+ * given latency grows with the window rather than with threads. 408, 429 and 5xx responses are
+ * retried; any other 4xx means the record itself was rejected and it goes to the dead letter queue.
  */
 public class RestApiSink extends AbstractSink {
+    private final InFlightWindow window;
     private HttpClient httpClient;
+    private URI endpoint;
+    private String contentType;
 
-    public RestApiSink(SinkConfig config) {
-        super(config);
+    public RestApiSink(SinkConfig config, SinkContext context) {
+        super(config, context);
+        this.window = new InFlightWindow(config.getMaxInFlight());
     }
 
     @Override
     public void initialize() throws Exception {
         super.initialize();
+        this.endpoint = URI.create(config.getEndpoint());
+        this.contentType = contentType(transformer.getType());
         this.httpClient = HttpClient.newBuilder()
                 .version(HttpClient.Version.HTTP_2)
                 .connectTimeout(Duration.ofMillis(config.getTimeoutMs()))
+                .executor(context.getExecutor())
                 .build();
-        logger.info("REST API Sink initialized for endpoint: {}", config.getEndpoint());
+        logger.info("REST API Sink initialized for endpoint: {} ({} in flight{})",
+                config.getEndpoint(), config.getMaxInFlight(), config.isSimulate() ? ", simulated" : "");
     }
 
     @Override
-    protected void sendToSink(byte[] data, Record record) throws Exception {
-        // Simulate HTTP POST request
-        // In production, this would actually send to the endpoint
-        
-        logger.debug("Simulating POST to {} with {} bytes", config.getEndpoint(), data.length);
-        
-        // Simulate network latency
-        Thread.sleep((long) (Math.random() * 50));
-        
-        // Simulate occasional failures (5% failure rate for testing)
-        if (Math.random() < 0.05) {
-            throw new RuntimeException("Simulated network error");
+    protected void sendToSink(byte[] data, int offset, int length, Record record) throws Exception {
+        try {
+            sendAsync(ByteBuffer.wrap(data, offset, length), record).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
         }
-        
-        // Uncomment below for actual HTTP requests
-        /*
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(config.getEndpoint()))
+    }
+
+    @Override
+    protected CompletableFuture<Void> sendAsync(ByteBuffer data, Record record) {
+        return window.execute(() -> config.isSimulate() ? simulateCall(data, 50, 0.05) : post(data));
+    }
+
+    private CompletableFuture<Void> post(ByteBuffer data) {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
                 .timeout(Duration.ofMillis(config.getTimeoutMs()))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofByteArray(data))
+                .header("Content-Type", contentType)
+                .POST(body(data))
                 .build();
-                
-        HttpResponse<String> response = httpClient.send(request, 
-                HttpResponse.BodyHandlers.ofString());
-                
-        if (response.statusCode() >= 400) {
-            throw new RuntimeException("HTTP error: " + response.statusCode());
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenCompose(response -> {
+                    int status = response.statusCode();
+                    if (status < 300) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (status < 500 && status != 408 && status != 429) {
+                        return CompletableFuture.failedFuture(new NonRetryableException("HTTP error: " + status));
+                    }
+                    return CompletableFuture.failedFuture(new IOException("HTTP error: " + status));
+                });
+    }
+
+    private static HttpRequest.BodyPublisher body(ByteBuffer data) {
+        if (data.hasArray()) {
+            return HttpRequest.BodyPublishers.ofByteArray(
+                    data.array(), data.arrayOffset() + data.position(), data.remaining());
         }
-        */
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return HttpRequest.BodyPublishers.ofByteArray(bytes);
+    }
+
+    private static String contentType(String format) {
+        return switch (format) {
+            case "JSON" -> "application/json";
+            case "XML" -> "application/xml";
+            case "PROTOBUF" -> "application/x-protobuf";
+            case "AVRO", "AVRO_SINGLE_OBJECT" -> "avro/binary";
+            default -> "application/octet-stream";
+        };
     }
 
     @Override
     public void shutdown() throws Exception {
         super.shutdown();
-        // HttpClient doesn't need explicit shutdown
+        if (httpClient != null) {
+            httpClient.shutdown();
+        }
     }
 }
@@ -0,0 +1,67 @@
+package com.fanout.sink;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in cluster for running without a database: the comma-separated endpoints form the
+ * ring, tokens spread evenly over them, and writes are acknowledged after a random latency
+ * with an occasional failure
+ */
+public class SimulatedDbSession implements DbSession {
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedDbSession.class);
+
+    private final List<String> replicas;
+    private final long maxLatencyMs;
+    private final double failureRate;
+    private final Executor executor;
+
+    public SimulatedDbSession(String endpoints, long maxLatencyMs, double failureRate, Executor executor) {
+        this.replicas = Arrays.stream(endpoints.split(",")).map(String::trim).toList();
+        this.maxLatencyMs = maxLatencyMs;
+        this.failureRate = failureRate;
+        this.executor = executor;
+    }
+
+    @Override
+    public Prepared prepare(String query) {
+        logger.info("Prepared: {}", query);
+        return new Prepared(query);
+    }
+
+    @Override
+    public String replicaFor(String keyspace, long token) {
+        return replicas.get(Math.floorMod(token, replicas.size()));
+    }
+
+    @Override
+    public CompletableFuture<Void> executeAsync(String replica, Bound statement) {
+        return respond(replica, 1);
+    }
+
+    @Override
+    public CompletableFuture<Void> executeBatchAsync(String replica, List<Bound> statements) {
+        return respond(replica, statements.size());
+    }
+
+    private CompletableFuture<Void> respond(String replica, int rows) {
+        logger.debug("Simulating write of {} rows on {}", rows, replica);
+        long latencyMs = maxLatencyMs > 0 ? ThreadLocalRandom.current().nextLong(maxLatencyMs) : 0;
+        return CompletableFuture.runAsync(() -> {
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                throw new RuntimeException("Simulated DB error");
+            }
+        }, CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS, executor));
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,101 @@
+package com.fanout.sink;
+
+import com.fanout.buffer.BufferPool;
+import com.fanout.resilience.CircuitBreaker;
+import com.fanout.resilience.ConcurrencyLimiter;
+import com.fanout.util.StageLatencies;
+import com.fanout.util.Tracer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Execution context handed to a sink by the orchestrator
+ */
+public class SinkContext {
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private CircuitBreaker circuitBreaker;
+    private ConcurrencyLimiter concurrencyLimiter;
+    private BufferPool bufferPool;
+    private StageLatencies stageLatencies;
+    private Tracer tracer;
+
+    public SinkContext(Executor executor) {
+        this(executor, null);
+    }
+
+    public SinkContext(Executor executor, ScheduledExecutorService scheduler) {
+        this.executor = executor;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Executor that runs this sink's transform and send work
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Scheduler for timed sink work such as batch linger, may be null
+     */
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Circuit breaker guarding this sink, or null when breakers are disabled
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Adaptive limit on this sink's calls in flight, or null to leave them unbounded
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Pool that encoded records are borrowed from, or null to encode into plain arrays
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    public void setBufferPool(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Histograms the sink records its per-stage latencies into, or null to record none
+     */
+    public StageLatencies getStageLatencies() {
+        return stageLatencies;
+    }
+
+    public void setStageLatencies(StageLatencies stageLatencies) {
+        this.stageLatencies = stageLatencies;
+    }
+
+    /**
+     * Tracer recording spans of sampled records through the sink's stages, or null to trace none
+     */
+    public Tracer getTracer() {
+        return tracer;
+    }
+
+    public void setTracer(Tracer tracer) {
+        this.tracer = tracer;
+    }
+}
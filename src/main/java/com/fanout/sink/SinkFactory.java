@@ -7,12 +7,12 @@ import com.fanout.model.SinkConfig;
  */
 public class SinkFactory {
     
-    public static DataSink createSink(SinkConfig config) {
+    public static DataSink createSink(SinkConfig config, SinkContext context) {
         return switch (config.getType().toUpperCase()) {
-            case "REST" -> new RestApiSink(config);
-            case "GRPC" -> new GrpcSink(config);
-            case "MQ" -> new MessageQueueSink(config);
-            case "DB" -> new WideColumnDbSink(config);
+            case "REST" -> new RestApiSink(config, context);
+            case "GRPC" -> new GrpcSink(config, context);
+            case "MQ" -> new MessageQueueSink(config, context);
+            case "DB" -> new WideColumnDbSink(config, context);
             default -> throw new IllegalArgumentException("Unknown sink type: " + config.getType());
         };
     }
@@ -0,0 +1,33 @@
+package com.fanout.sink;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Prepared INSERT statements keyed by keyspace, table and columns, so each distinct statement
+ * is prepared once per session instead of once per write
+ */
+class StatementCache {
+    private final DbSession session;
+    private final Map<Key, DbSession.Prepared> statements = new ConcurrentHashMap<>();
+
+    StatementCache(DbSession session) {
+        this.session = session;
+    }
+
+    DbSession.Prepared insert(String keyspace, String table, List<String> columns) {
+        return statements.computeIfAbsent(new Key(keyspace, table, columns), key -> session.prepare(
+                "INSERT INTO " + keyspace + "." + table
+                        + " (" + columns.stream().map(column -> '"' + column + '"').collect(Collectors.joining(", "))
+                        + ") VALUES (" + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")"));
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private record Key(String keyspace, String table, List<String> columns) {
+    }
+}
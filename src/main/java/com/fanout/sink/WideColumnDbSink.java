@@ -2,52 +2,167 @@ package com.fanout.sink;
 
 import com.fanout.model.Record;
 import com.fanout.model.SinkConfig;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
- * Mock Wide-Column Database sink - simulates asynchronous UPSERT to Cassandra/ScyllaDB
+ * Wide-Column Database sink - upserts each record as a row of (partition key, id, timestamp,
+ * source, data) through a {@link DbSession}. The INSERT is prepared once via a statement cache,
+ * each row goes to the replica owning its partition key's token, and writes to a replica are
+ * pipelined asynchronously up to maxInFlight. With batching on, batches are gathered per
+ * replica and written as one UNLOGGED batch per partition.
  */
 public class WideColumnDbSink extends AbstractSink {
+    private final Map<String, InFlightWindow> replicaWindows = new ConcurrentHashMap<>();
+    private final Map<String, Integer> replicaIndexes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplicaIndex = new AtomicInteger();
+    private DbSession session;
+    private StatementCache statements;
+    private List<String> columns;
+
+    public WideColumnDbSink(SinkConfig config, SinkContext context) {
+        this(config, context, null);
+    }
 
-    public WideColumnDbSink(SinkConfig config) {
-        super(config);
+    /**
+     * Write through the given session, which the sink closes on shutdown
+     */
+    public WideColumnDbSink(SinkConfig config, SinkContext context, DbSession session) {
+        super(config, context);
+        this.session = session;
     }
 
     @Override
     public void initialize() throws Exception {
         super.initialize();
-        // In production: initialize Cassandra session
-        logger.info("Wide-Column DB Sink initialized for endpoint: {} keyspace: {} table: {}", 
-                config.getEndpoint(), config.getKeyspace(), config.getTable());
+        if (session == null) {
+            // No driver is bundled, so only a simulated cluster can be built here; acking
+            // writes nobody stores would report data as delivered when it was lost
+            if (!config.isSimulate()) {
+                throw new IllegalStateException("No DB driver configured for sink " + config.getName()
+                        + "; set simulate: true or supply a DbSession");
+            }
+            session = new SimulatedDbSession(config.getEndpoint(), 10, 0.01, context.getExecutor());
+        }
+        statements = new StatementCache(session);
+        columns = config.getPartitionKey() != null
+                ? List.of(config.getPartitionKey(), "id", "timestamp", "source", "data")
+                : List.of("id", "timestamp", "source", "data");
+        logger.info("Wide-Column DB Sink initialized for endpoint: {} keyspace: {} table: {} ({} in flight per replica)",
+                config.getEndpoint(), config.getKeyspace(), config.getTable(), config.getMaxInFlight());
+    }
+
+    @Override
+    protected void sendToSink(byte[] data, int offset, int length, Record record) throws Exception {
+        try {
+            sendAsync(ByteBuffer.wrap(data, offset, length), record).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Void> sendAsync(ByteBuffer data, Record record) {
+        String partitionKey = partitionKey(record);
+        if (partitionKey == null) {
+            return missingPartitionKey();
+        }
+        DbSession.Bound row = bind(partitionKey, data, record);
+        String replica = replicaFor(partitionKey);
+        return submit(replica, () -> session.executeAsync(replica, row));
+    }
+
+    @Override
+    protected CompletableFuture<Void> sendBatchAsync(List<ByteBuffer> data, List<Record> records) {
+        // The batch shares a replica; split it into one UNLOGGED batch per partition
+        Map<String, List<DbSession.Bound>> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            String partitionKey = partitionKey(records.get(i));
+            if (partitionKey == null) {
+                // Records without a key are batched apart from the rest
+                return missingPartitionKey();
+            }
+            partitions.computeIfAbsent(partitionKey, key -> new ArrayList<>())
+                    .add(bind(partitionKey, data.get(i), records.get(i)));
+        }
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>(partitions.size());
+        partitions.forEach((partitionKey, rows) -> {
+            String replica = replicaFor(partitionKey);
+            writes.add(submit(replica, () -> rows.size() == 1
+                    ? session.executeAsync(replica, rows.get(0))
+                    : session.executeBatchAsync(replica, rows)));
+        });
+        // Upserts are idempotent, so retrying the rows of partitions that did succeed is harmless
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]));
     }
 
+    /**
+     * Batches are gathered per replica, so every batch can be routed as a whole. Indexes come
+     * from a counter, since the map's size can repeat while two new replicas race to register.
+     */
     @Override
-    protected void sendToSink(byte[] data, Record record) throws Exception {
-        // Simulate database UPSERT
-        logger.debug("Simulating UPSERT to {}.{} with {} bytes", 
-                config.getKeyspace(), config.getTable(), data.length);
-        
-        // Simulate database latency
-        Thread.sleep((long) (Math.random() * 10));
-        
-        // Simulate occasional failures (1% failure rate)
-        if (Math.random() < 0.01) {
-            throw new RuntimeException("Simulated DB error");
+    protected int batchPartition(Record record) {
+        String partitionKey = partitionKey(record);
+        return partitionKey != null
+                ? replicaIndexes.computeIfAbsent(replicaFor(partitionKey), replica -> nextReplicaIndex.getAndIncrement())
+                : -1;
+    }
+
+    /**
+     * Run the write once the replica has a free slot, and free it when the write completes
+     */
+    private CompletableFuture<Void> submit(String replica, Supplier<CompletableFuture<Void>> write) {
+        return replicaWindows.computeIfAbsent(replica, r -> new InFlightWindow(config.getMaxInFlight()))
+                .execute(write);
+    }
+
+    private DbSession.Bound bind(String partitionKey, ByteBuffer data, Record record) {
+        DbSession.Prepared insert = statements.insert(config.getKeyspace(), config.getTable(), columns);
+        Instant timestamp = record.getTimestamp();
+        return config.getPartitionKey() != null
+                ? insert.bind(partitionKey, record.getId(), timestamp, record.getSource(), data)
+                : insert.bind(record.getId(), timestamp, record.getSource(), data);
+    }
+
+    private String replicaFor(String partitionKey) {
+        long token = Hashing.murmur3_128().hashString(partitionKey, StandardCharsets.UTF_8).asLong();
+        return session.replicaFor(config.getKeyspace(), token);
+    }
+
+    /**
+     * Value of the partitionKey field, or the record id when none is configured
+     */
+    private String partitionKey(Record record) {
+        if (config.getPartitionKey() == null) {
+            return record.getId();
         }
-        
-        // In production with Cassandra:
-        /*
-        String cql = "INSERT INTO " + config.getKeyspace() + "." + config.getTable() + 
-                     " (id, timestamp, data) VALUES (?, ?, ?)";
-        PreparedStatement prepared = session.prepare(cql);
-        BoundStatement bound = prepared.bind(record.getId(), 
-                record.getTimestamp(), ByteBuffer.wrap(data));
-        session.executeAsync(bound);
-        */
+        Object value = record.get(config.getPartitionKey());
+        return value != null ? value.toString() : null;
+    }
+
+    private CompletableFuture<Void> missingPartitionKey() {
+        return CompletableFuture.failedFuture(
+                new NonRetryableException("Missing partition key " + config.getPartitionKey()));
     }
 
     @Override
     public void shutdown() throws Exception {
         super.shutdown();
-        // In production: close Cassandra session
+        if (session != null) {
+            session.close();
+        }
     }
 }
@@ -0,0 +1,119 @@
+package com.fanout.transformation;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import org.apache.avro.JsonProperties;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.io.Encoder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Avro schema inferred for one record schema, with the field types used to write values
+ * straight to an encoder. Every data field is a ["null", type] union.
+ */
+final class AvroLayout {
+    private final RecordSchema recordSchema;
+    private final ValueType[] types;
+    private final Schema schema;
+    private final long fingerprint;
+
+    private AvroLayout(RecordSchema recordSchema, ValueType[] types) {
+        this.recordSchema = recordSchema;
+        this.types = types;
+        this.schema = buildSchema(recordSchema, types);
+        this.fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+    }
+
+    /**
+     * Infer field types from the first record seen for a schema
+     */
+    static AvroLayout infer(Record record) {
+        ValueType[] types = new ValueType[record.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = ValueType.of(record.get(i));
+        }
+        return new AvroLayout(record.getSchema(), types);
+    }
+
+    /**
+     * Copy of this layout with one field relaxed to fit a value that did not
+     */
+    AvroLayout widen(int field, Object value) {
+        ValueType[] widened = types.clone();
+        widened[field] = types[field].widenFor(value);
+        return new AvroLayout(recordSchema, widened);
+    }
+
+    /**
+     * Write the record as a datum of this layout's schema
+     * @return -1 once written, or the index of the first field whose value does not fit its type,
+     *         in which case the encoder holds a partial datum
+     */
+    int write(Record record, Encoder encoder) throws IOException {
+        encoder.writeString(record.getId());
+        encoder.writeLong(record.getTimestampMillis());
+        encoder.writeString(record.getSource());
+
+        for (int i = 0; i < types.length; i++) {
+            Object value = record.get(i);
+            if (value == null) {
+                encoder.writeIndex(0);
+                continue;
+            }
+            if (!types[i].accepts(value)) {
+                return i;
+            }
+            encoder.writeIndex(1);
+            switch (types[i]) {
+                case BOOLEAN -> encoder.writeBoolean((Boolean) value);
+                case LONG -> encoder.writeLong(((Number) value).longValue());
+                case DOUBLE -> encoder.writeDouble(((Number) value).doubleValue());
+                case STRING -> encoder.writeString(ValueType.asString(value));
+            }
+        }
+        return -1;
+    }
+
+    private static Schema buildSchema(RecordSchema recordSchema, ValueType[] types) {
+        String[] names = SchemaNames.identifiers(recordSchema);
+        List<Schema.Field> dataFields = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            Schema union = Schema.createUnion(Schema.create(Schema.Type.NULL), Schema.create(avroType(types[i])));
+            Schema.Field field = new Schema.Field(names[i], union, null, JsonProperties.NULL_VALUE);
+            if (!names[i].equals(recordSchema.getField(i))) {
+                field.addProp("sourceField", recordSchema.getField(i));
+            }
+            dataFields.add(field);
+        }
+        Schema data = Schema.createRecord("Data", null, "com.fanout", false, dataFields);
+
+        Schema timestamp = LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG));
+        return Schema.createRecord("DataRecord", null, "com.fanout", false, List.of(
+                new Schema.Field("id", Schema.create(Schema.Type.STRING)),
+                new Schema.Field("timestamp", timestamp),
+                new Schema.Field("source", Schema.create(Schema.Type.STRING)),
+                new Schema.Field("data", data)));
+    }
+
+    private static Schema.Type avroType(ValueType type) {
+        return switch (type) {
+            case BOOLEAN -> Schema.Type.BOOLEAN;
+            case LONG -> Schema.Type.LONG;
+            case DOUBLE -> Schema.Type.DOUBLE;
+            case STRING -> Schema.Type.STRING;
+        };
+    }
+
+    Schema getSchema() {
+        return schema;
+    }
+
+    long getFingerprint() {
+        return fingerprint;
+    }
+}
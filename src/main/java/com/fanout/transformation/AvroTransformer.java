@@ -1,59 +1,190 @@
 package com.fanout.transformation;
 
+import com.fanout.buffer.BufferPool;
+import com.fanout.buffer.PooledBuffer;
 import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
 import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericData;
-import org.apache.avro.generic.GenericDatumWriter;
-import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.EncoderFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Transforms records to Avro format for wide-column databases
+ * Transforms records to Avro format for wide-column databases. The schema is inferred
+ * per source from its first record, typed fields are written straight to a pooled encoder,
+ * and in single-object mode each datum carries the Avro single-object header with the
+ * schema fingerprint so consumers can resolve it.
  */
 public class AvroTransformer implements DataTransformer {
-    private final Schema schema;
-    private final GenericDatumWriter<GenericRecord> writer;
+    private static final Logger logger = LoggerFactory.getLogger(AvroTransformer.class);
+    private static final int POOL_SIZE = 256;
+    private static final int MAX_LAYOUTS = 1024;
+    // Oversized buffers are dropped rather than pooled
+    private static final int MAX_POOLED_BUFFER = 1024 * 1024;
+
+    private final boolean singleObject;
+    private final int maxLayouts;
+    private final Map<RecordSchema, AvroLayout> layouts = new ConcurrentHashMap<>();
+    private final Map<Long, Schema> schemasByFingerprint = new ConcurrentHashMap<>();
+    // One-off layouts past the cap, oldest first; only the latest maxLayouts stay resolvable
+    private final Queue<AvroLayout> oneOffLayouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger oneOffCount = new AtomicInteger();
+    // A pool rather than thread-locals: on virtual threads every task would get its own
+    private final BlockingQueue<PooledEncoder> encoders = new ArrayBlockingQueue<>(POOL_SIZE);
 
     public AvroTransformer() {
-        // Define a simple Avro schema
-        String schemaString = """
-            {
-                "type": "record",
-                "name": "DataRecord",
-                "fields": [
-                    {"name": "id", "type": "string"},
-                    {"name": "timestamp", "type": "string"},
-                    {"name": "source", "type": "string"},
-                    {"name": "payload", "type": "string"}
-                ]
-            }
-            """;
-        this.schema = new Schema.Parser().parse(schemaString);
-        this.writer = new GenericDatumWriter<>(schema);
+        this(false);
+    }
+
+    /**
+     * @param singleObject prefix each datum with the single-object header: C3 01 and the
+     *                     little-endian CRC-64-AVRO fingerprint of its schema
+     */
+    public AvroTransformer(boolean singleObject) {
+        this(singleObject, MAX_LAYOUTS);
+    }
+
+    AvroTransformer(boolean singleObject, int maxLayouts) {
+        this.singleObject = singleObject;
+        this.maxLayouts = maxLayouts;
     }
 
     @Override
     public byte[] transform(Record record) throws Exception {
-        GenericRecord avroRecord = new GenericData.Record(schema);
-        avroRecord.put("id", record.getId());
-        avroRecord.put("timestamp", record.getTimestamp().toString());
-        avroRecord.put("source", record.getSource());
-        avroRecord.put("payload", record.getData().toString());
+        return encode(record, Arrays::copyOf);
+    }
+
+    @Override
+    public PooledBuffer transform(Record record, BufferPool pool) throws Exception {
+        return encode(record, (scratch, length) -> pool.copyOf(scratch, 0, length));
+    }
+
+    private <T> T encode(Record record, EncodedOutput<T> result) throws Exception {
+        AvroLayout layout = layoutFor(record);
+        PooledEncoder pooled = acquire();
+        try {
+            while (true) {
+                pooled.output.reset();
+                if (singleObject) {
+                    writeHeader(pooled.output, layout.getFingerprint());
+                }
+                int mismatch = layout.write(record, pooled.encoder);
+                if (mismatch < 0) {
+                    pooled.encoder.flush();
+                    return result.from(pooled.output.array(), pooled.output.size());
+                }
+                layout = widen(record, layout, mismatch);
+            }
+        } finally {
+            release(pooled);
+        }
+    }
+
+    private AvroLayout layoutFor(Record record) {
+        AvroLayout layout = layouts.get(record.getSchema());
+        if (layout != null) {
+            return layout;
+        }
+        if (layouts.size() >= maxLayouts) {
+            // Sources with unbounded key sets get a one-off schema per record
+            return rememberOneOff(AvroLayout.infer(record));
+        }
+        return layouts.computeIfAbsent(record.getSchema(), schema -> register(AvroLayout.infer(record)));
+    }
+
+    /**
+     * A value didn't fit the inferred type, so move the source to a relaxed schema.
+     * Another thread may have widened it first, in which case its layout is retried.
+     * A one-off layout stays one-off rather than taking a registered slot past the cap.
+     */
+    private AvroLayout widen(Record record, AvroLayout layout, int field) {
+        AvroLayout widened = layouts.computeIfPresent(record.getSchema(), (schema, current) -> current != layout
+                ? current
+                : register(layout.widen(field, record.get(field))));
+        return widened != null ? widened : rememberOneOff(layout.widen(field, record.get(field)));
+    }
+
+    /**
+     * Keep a one-off layout's schema resolvable by fingerprint, evicting the oldest one-off
+     * beyond maxLayouts so sources with unbounded key sets don't grow the map without limit
+     */
+    private AvroLayout rememberOneOff(AvroLayout layout) {
+        if (schemasByFingerprint.putIfAbsent(layout.getFingerprint(), layout.getSchema()) == null) {
+            oneOffLayouts.add(layout);
+            if (oneOffCount.incrementAndGet() > maxLayouts) {
+                AvroLayout oldest = oneOffLayouts.poll();
+                if (oldest != null) {
+                    oneOffCount.decrementAndGet();
+                    // Only if a registered layout hasn't since claimed the fingerprint
+                    schemasByFingerprint.computeIfPresent(oldest.getFingerprint(),
+                            (fingerprint, schema) -> schema == oldest.getSchema() ? null : schema);
+                }
+            }
+        }
+        return layout;
+    }
+
+    private AvroLayout register(AvroLayout layout) {
+        schemasByFingerprint.put(layout.getFingerprint(), layout.getSchema());
+        logger.info("Registered Avro schema {} (fingerprint {})",
+                layout.getSchema(), Long.toHexString(layout.getFingerprint()));
+        return layout;
+    }
+
+    private static void writeHeader(ScratchOutputStream output, long fingerprint) {
+        output.write(0xC3);
+        output.write(0x01);
+        for (int i = 0; i < 8; i++) {
+            output.write((int) (fingerprint >>> (8 * i)));
+        }
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
-        writer.write(avroRecord, encoder);
-        encoder.flush();
-        
-        return outputStream.toByteArray();
+    private PooledEncoder acquire() {
+        PooledEncoder pooled = encoders.poll();
+        return pooled != null ? pooled : new PooledEncoder();
+    }
+
+    private void release(PooledEncoder pooled) {
+        if (pooled.output.size() <= MAX_POOLED_BUFFER) {
+            encoders.offer(pooled);
+        }
+    }
+
+    /**
+     * Current writer schema for records with this record schema, or null if none has been seen
+     */
+    public Schema getSchema(RecordSchema recordSchema) {
+        AvroLayout layout = layouts.get(recordSchema);
+        return layout != null ? layout.getSchema() : null;
+    }
+
+    /**
+     * Resolve the fingerprint in a single-object header to its writer schema
+     */
+    public Schema findSchema(long fingerprint) {
+        return schemasByFingerprint.get(fingerprint);
     }
 
     @Override
     public String getType() {
-        return "AVRO";
+        return singleObject ? "AVRO_SINGLE_OBJECT" : "AVRO";
+    }
+
+    /**
+     * Output buffer with a direct (unbuffered) encoder writing into it
+     */
+    private static final class PooledEncoder {
+        private final ScratchOutputStream output = new ScratchOutputStream(256);
+        private final BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(output, null);
     }
 }
@@ -1,5 +1,7 @@
 package com.fanout.transformation;
 
+import com.fanout.buffer.BufferPool;
+import com.fanout.buffer.PooledBuffer;
 import com.fanout.model.Record;
 
 /**
@@ -12,6 +14,15 @@ public interface DataTransformer {
      * @return transformed data as byte array
      */
     byte[] transform(Record record) throws Exception;
+
+    /**
+     * Transform a record into a buffer borrowed from the pool
+     * @return buffer holding one reference, which the caller must release
+     */
+    default PooledBuffer transform(Record record, BufferPool pool) throws Exception {
+        byte[] bytes = transform(record);
+        return pool.copyOf(bytes, 0, bytes.length);
+    }
     
     /**
      * Get the transformation type
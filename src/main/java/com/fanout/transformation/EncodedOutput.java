@@ -0,0 +1,10 @@
+package com.fanout.transformation;
+
+/**
+ * Turns the bytes a transformer wrote into its scratch buffer into the value it returns,
+ * either a fresh array or a pooled buffer
+ */
+@FunctionalInterface
+interface EncodedOutput<T> {
+    T from(byte[] scratch, int length);
+}
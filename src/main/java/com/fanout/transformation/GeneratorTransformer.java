@@ -0,0 +1,135 @@
+package com.fanout.transformation;
+
+import com.fanout.buffer.BufferPool;
+import com.fanout.buffer.PooledBuffer;
+import com.fanout.model.Record;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Base for Jackson-backed transformers that stream the record envelope through a pooled
+ * generator into a reusable buffer, instead of building a Map and serializing it reflectively.
+ * A generator is only ever used by one thread at a time, so one instance can serve every sink.
+ */
+abstract class GeneratorTransformer implements DataTransformer {
+    private static final int POOL_SIZE = 256;
+    // Oversized buffers are dropped rather than pooled
+    private static final int MAX_POOLED_BUFFER = 1024 * 1024;
+
+    protected final ObjectMapper mapper;
+    private final TimestampCache timestamps = new TimestampCache();
+    // A pool rather than thread-locals: on virtual threads every task would get its own
+    private final BlockingQueue<PooledGenerator> generators = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    protected GeneratorTransformer(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Create a generator that can write one root value after another to the output
+     */
+    protected abstract JsonGenerator createGenerator(ScratchOutputStream output) throws IOException;
+
+    /**
+     * Called before each envelope is started, e.g. to name the XML root element
+     */
+    protected void beforeEnvelope(JsonGenerator generator) {
+    }
+
+    @Override
+    public byte[] transform(Record record) throws Exception {
+        return encode(record, Arrays::copyOf);
+    }
+
+    @Override
+    public PooledBuffer transform(Record record, BufferPool pool) throws Exception {
+        return encode(record, (scratch, length) -> pool.copyOf(scratch, 0, length));
+    }
+
+    private <T> T encode(Record record, EncodedOutput<T> result) throws Exception {
+        PooledGenerator pooled = generators.poll();
+        if (pooled == null) {
+            pooled = new PooledGenerator();
+            pooled.generator = createGenerator(pooled.output);
+        }
+
+        // A generator that failed mid-record is in an unknown state, so it is not pooled again
+        writeEnvelope(pooled.generator, record);
+        pooled.generator.flush();
+        T encoded = result.from(pooled.output.array(), pooled.output.size());
+
+        if (pooled.output.size() <= MAX_POOLED_BUFFER) {
+            pooled.output.reset();
+            generators.offer(pooled);
+        }
+        return encoded;
+    }
+
+    private void writeEnvelope(JsonGenerator generator, Record record) throws IOException {
+        beforeEnvelope(generator);
+        generator.writeStartObject();
+        generator.writeStringField("id", record.getId());
+        generator.writeStringField("timestamp", timestamps.format(record.getTimestampMillis()));
+        generator.writeStringField("source", record.getSource());
+
+        generator.writeFieldName("data");
+        generator.writeStartObject();
+        for (int i = 0; i < record.size(); i++) {
+            generator.writeFieldName(record.getSchema().getField(i));
+            writeValue(generator, record.get(i));
+        }
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+    }
+
+    private void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String string) {
+            generator.writeString(string);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Double number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Float number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Boolean bool) {
+            generator.writeBoolean(bool);
+        } else if (value instanceof BigDecimal decimal) {
+            generator.writeNumber(decimal);
+        } else if (value instanceof BigInteger integer) {
+            generator.writeNumber(integer);
+        } else if (value instanceof Map<?, ?> map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                generator.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof List<?> list) {
+            generator.writeStartArray();
+            for (Object element : list) {
+                writeValue(generator, element);
+            }
+            generator.writeEndArray();
+        } else {
+            // Anything else databind knows how to write
+            mapper.writeValue(generator, value);
+        }
+    }
+
+    private static final class PooledGenerator {
+        private final ScratchOutputStream output = new ScratchOutputStream(512);
+        private JsonGenerator generator;
+    }
+}
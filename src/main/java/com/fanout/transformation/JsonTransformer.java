@@ -1,30 +1,25 @@
 package com.fanout.transformation;
 
-import com.fanout.model.Record;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
 
 /**
  * Transforms records to JSON format for REST APIs
  */
-public class JsonTransformer implements DataTransformer {
-    private final ObjectMapper objectMapper;
+public class JsonTransformer extends GeneratorTransformer {
 
     public JsonTransformer() {
-        this.objectMapper = new ObjectMapper();
+        super(new ObjectMapper());
     }
 
     @Override
-    public byte[] transform(Record record) throws Exception {
-        Map<String, Object> output = new HashMap<>();
-        output.put("id", record.getId());
-        output.put("timestamp", record.getTimestamp().toString());
-        output.put("source", record.getSource());
-        output.put("data", record.getData());
-        
-        return objectMapper.writeValueAsBytes(output);
+    protected JsonGenerator createGenerator(ScratchOutputStream output) throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(output);
+        // Records are written back to back into a reset buffer, so no separator between them
+        generator.setRootValueSeparator(null);
+        return generator;
     }
 
     @Override
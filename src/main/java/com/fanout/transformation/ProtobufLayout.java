@@ -0,0 +1,160 @@
+package com.fanout.transformation;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.TimestampProto;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Protobuf message descriptor inferred for one record schema, with the field numbers and
+ * types used to write values straight to a CodedOutputStream:
+ * <pre>
+ * message DataRecord {
+ *   optional string id = 1;
+ *   optional google.protobuf.Timestamp timestamp = 2;
+ *   optional string source = 3;
+ *   optional Data data = 4;
+ *   message Data { ...one optional field per column, absent when null... }
+ * }
+ * </pre>
+ */
+final class ProtobufLayout {
+    static final int ID_FIELD = 1;
+    static final int TIMESTAMP_FIELD = 2;
+    static final int SOURCE_FIELD = 3;
+    static final int DATA_FIELD = 4;
+
+    private final RecordSchema recordSchema;
+    private final ValueType[] types;
+    private final int[] numbers;
+    private final int[] reserved;
+    private final Descriptors.Descriptor descriptor;
+
+    private ProtobufLayout(RecordSchema recordSchema, ValueType[] types, int[] numbers, int[] reserved) {
+        this.recordSchema = recordSchema;
+        this.types = types;
+        this.numbers = numbers;
+        this.reserved = reserved;
+        this.descriptor = buildDescriptor();
+    }
+
+    /**
+     * Infer field types from the first record seen for a schema; columns are numbered in order
+     */
+    static ProtobufLayout infer(Record record) {
+        ValueType[] types = new ValueType[record.size()];
+        int[] numbers = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = ValueType.of(record.get(i));
+            numbers[i] = i + 1;
+        }
+        return new ProtobufLayout(record.getSchema(), types, numbers, new int[0]);
+    }
+
+    /**
+     * Copy of this layout with one field relaxed to fit a value that did not. The field moves
+     * to a fresh number and its old number is reserved, so existing readers never see a
+     * number change type.
+     */
+    ProtobufLayout widen(int field, Object value) {
+        ValueType[] widenedTypes = types.clone();
+        widenedTypes[field] = types[field].widenFor(value);
+
+        int[] widenedNumbers = numbers.clone();
+        widenedNumbers[field] = Math.max(Arrays.stream(numbers).max().orElse(0),
+                Arrays.stream(reserved).max().orElse(0)) + 1;
+
+        int[] widenedReserved = Arrays.copyOf(reserved, reserved.length + 1);
+        widenedReserved[reserved.length] = numbers[field];
+        return new ProtobufLayout(recordSchema, widenedTypes, widenedNumbers, widenedReserved);
+    }
+
+    /**
+     * Write the record's values as the body of a Data message
+     * @return -1 once written, or the index of the first field whose value does not fit its type
+     */
+    int writeData(Record record, CodedOutputStream output) throws IOException {
+        for (int i = 0; i < types.length; i++) {
+            Object value = record.get(i);
+            if (value == null) {
+                continue;
+            }
+            if (!types[i].accepts(value)) {
+                return i;
+            }
+            switch (types[i]) {
+                case BOOLEAN -> output.writeBool(numbers[i], (Boolean) value);
+                case LONG -> output.writeInt64(numbers[i], ((Number) value).longValue());
+                case DOUBLE -> output.writeDouble(numbers[i], ((Number) value).doubleValue());
+                case STRING -> output.writeString(numbers[i], ValueType.asString(value));
+            }
+        }
+        return -1;
+    }
+
+    private Descriptors.Descriptor buildDescriptor() {
+        String[] names = SchemaNames.identifiers(recordSchema);
+        DescriptorProto.Builder data = DescriptorProto.newBuilder().setName("Data");
+        for (int i = 0; i < types.length; i++) {
+            data.addField(field(names[i], numbers[i], protoType(types[i])));
+        }
+        for (int number : reserved) {
+            data.addReservedRange(DescriptorProto.ReservedRange.newBuilder().setStart(number).setEnd(number + 1));
+        }
+
+        DescriptorProto message = DescriptorProto.newBuilder()
+                .setName("DataRecord")
+                .addField(field("id", ID_FIELD, FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(field("timestamp", TIMESTAMP_FIELD, FieldDescriptorProto.Type.TYPE_MESSAGE)
+                        .setTypeName(".google.protobuf.Timestamp"))
+                .addField(field("source", SOURCE_FIELD, FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(field("data", DATA_FIELD, FieldDescriptorProto.Type.TYPE_MESSAGE)
+                        .setTypeName(".com.fanout.DataRecord.Data"))
+                .addNestedType(data)
+                .build();
+
+        FileDescriptorProto file = FileDescriptorProto.newBuilder()
+                .setName("com/fanout/data_record_" + Integer.toHexString(recordSchema.hashCode()) + ".proto")
+                .setPackage("com.fanout")
+                .setSyntax("proto2")
+                .addDependency(TimestampProto.getDescriptor().getName())
+                .addMessageType(message)
+                .build();
+
+        try {
+            return Descriptors.FileDescriptor
+                    .buildFrom(file, new Descriptors.FileDescriptor[]{TimestampProto.getDescriptor()})
+                    .findMessageTypeByName("DataRecord");
+        } catch (Descriptors.DescriptorValidationException e) {
+            throw new IllegalStateException("Invalid descriptor for " + recordSchema, e);
+        }
+    }
+
+    private static FieldDescriptorProto.Builder field(String name, int number, FieldDescriptorProto.Type type) {
+        return FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL)
+                .setType(type);
+    }
+
+    private static FieldDescriptorProto.Type protoType(ValueType type) {
+        return switch (type) {
+            case BOOLEAN -> FieldDescriptorProto.Type.TYPE_BOOL;
+            case LONG -> FieldDescriptorProto.Type.TYPE_INT64;
+            case DOUBLE -> FieldDescriptorProto.Type.TYPE_DOUBLE;
+            case STRING -> FieldDescriptorProto.Type.TYPE_STRING;
+        };
+    }
+
+    Descriptors.Descriptor getDescriptor() {
+        return descriptor;
+    }
+}
@@ -1,33 +1,173 @@
 package com.fanout.transformation;
 
+import com.fanout.buffer.BufferPool;
+import com.fanout.buffer.PooledBuffer;
 import com.fanout.model.Record;
-import com.google.protobuf.ByteString;
-import com.google.protobuf.Timestamp;
+import com.fanout.model.RecordSchema;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.TextFormat;
+import com.google.protobuf.WireFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
-import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Transforms records to Protocol Buffer format for gRPC
- * Note: This is a simplified implementation. In production, you would use generated protobuf classes
+ * Transforms records to Protocol Buffer wire format for gRPC. The message descriptor is
+ * inferred per source from its first record, and fields are written with CodedOutputStream
+ * into pooled buffers. Peers can decode with the descriptor from {@link #getDescriptor}.
  */
 public class ProtobufTransformer implements DataTransformer {
+    private static final Logger logger = LoggerFactory.getLogger(ProtobufTransformer.class);
+    private static final int POOL_SIZE = 256;
+    private static final int MAX_LAYOUTS = 1024;
+    // Oversized buffers are dropped rather than pooled
+    private static final int MAX_POOLED_BUFFER = 1024 * 1024;
+
+    private final int maxLayouts;
+    private final Map<RecordSchema, ProtobufLayout> layouts = new ConcurrentHashMap<>();
+    // A pool rather than thread-locals: on virtual threads every task would get its own
+    private final BlockingQueue<Buffers> buffers = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public ProtobufTransformer() {
+        this(MAX_LAYOUTS);
+    }
+
+    ProtobufTransformer(int maxLayouts) {
+        this.maxLayouts = maxLayouts;
+    }
 
     @Override
     public byte[] transform(Record record) throws Exception {
-        // Simplified protobuf encoding
-        // In production, use actual .proto definitions and generated classes
-        StringBuilder sb = new StringBuilder();
-        sb.append("id:").append(record.getId()).append(";");
-        sb.append("timestamp:").append(record.getTimestamp()).append(";");
-        sb.append("source:").append(record.getSource()).append(";");
-        sb.append("data:").append(record.getData().toString());
-        
-        return sb.toString().getBytes(StandardCharsets.UTF_8);
+        return encode(record, Arrays::copyOf);
+    }
+
+    @Override
+    public PooledBuffer transform(Record record, BufferPool pool) throws Exception {
+        return encode(record, (scratch, length) -> pool.copyOf(scratch, 0, length));
+    }
+
+    private <T> T encode(Record record, EncodedOutput<T> result) throws Exception {
+        ProtobufLayout layout = layoutFor(record);
+        Buffers pooled = acquire();
+        try {
+            while (true) {
+                try {
+                    // The nested Data message goes first so its length is known for the envelope
+                    CodedOutputStream data = CodedOutputStream.newInstance(pooled.data);
+                    int mismatch = layout.writeData(record, data);
+                    if (mismatch >= 0) {
+                        layout = widen(record, layout, mismatch);
+                        continue;
+                    }
+
+                    CodedOutputStream output = CodedOutputStream.newInstance(pooled.output);
+                    writeEnvelope(record, pooled.data, data.getTotalBytesWritten(), output);
+                    return result.from(pooled.output, output.getTotalBytesWritten());
+                } catch (CodedOutputStream.OutOfSpaceException e) {
+                    pooled.grow();
+                }
+            }
+        } finally {
+            release(pooled);
+        }
+    }
+
+    private static void writeEnvelope(Record record, byte[] data, int dataLength, CodedOutputStream output)
+            throws Exception {
+        output.writeString(ProtobufLayout.ID_FIELD, record.getId());
+
+        // google.protobuf.Timestamp { int64 seconds = 1; int32 nanos = 2; }, defaults omitted
+        long millis = record.getTimestampMillis();
+        long seconds = Math.floorDiv(millis, 1000);
+        int nanos = Math.floorMod(millis, 1000) * 1_000_000;
+        int timestampSize = (seconds != 0 ? CodedOutputStream.computeInt64Size(1, seconds) : 0)
+                + (nanos != 0 ? CodedOutputStream.computeInt32Size(2, nanos) : 0);
+        output.writeTag(ProtobufLayout.TIMESTAMP_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(timestampSize);
+        if (seconds != 0) {
+            output.writeInt64(1, seconds);
+        }
+        if (nanos != 0) {
+            output.writeInt32(2, nanos);
+        }
+
+        output.writeString(ProtobufLayout.SOURCE_FIELD, record.getSource());
+
+        output.writeTag(ProtobufLayout.DATA_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(dataLength);
+        output.writeRawBytes(data, 0, dataLength);
+    }
+
+    private ProtobufLayout layoutFor(Record record) {
+        ProtobufLayout layout = layouts.get(record.getSchema());
+        if (layout != null) {
+            return layout;
+        }
+        if (layouts.size() >= maxLayouts) {
+            // Sources with unbounded key sets get a one-off descriptor per record
+            return ProtobufLayout.infer(record);
+        }
+        return layouts.computeIfAbsent(record.getSchema(), schema -> register(ProtobufLayout.infer(record)));
+    }
+
+    /**
+     * A value didn't fit the inferred type, so move the source to a relaxed descriptor.
+     * Another thread may have widened it first, in which case its layout is retried.
+     * A one-off layout stays one-off rather than taking a registered slot past the cap.
+     */
+    private ProtobufLayout widen(Record record, ProtobufLayout layout, int field) {
+        ProtobufLayout widened = layouts.computeIfPresent(record.getSchema(), (schema, current) -> current != layout
+                ? current
+                : register(layout.widen(field, record.get(field))));
+        return widened != null ? widened : layout.widen(field, record.get(field));
+    }
+
+    private ProtobufLayout register(ProtobufLayout layout) {
+        logger.info("Registered protobuf descriptor {}",
+                TextFormat.printer().shortDebugString(layout.getDescriptor().toProto()));
+        return layout;
+    }
+
+    private Buffers acquire() {
+        Buffers pooled = buffers.poll();
+        return pooled != null ? pooled : new Buffers();
+    }
+
+    private void release(Buffers pooled) {
+        if (pooled.output.length <= MAX_POOLED_BUFFER) {
+            buffers.offer(pooled);
+        }
+    }
+
+    /**
+     * Current message descriptor for records with this record schema, or null if none has been seen
+     */
+    public Descriptors.Descriptor getDescriptor(RecordSchema recordSchema) {
+        ProtobufLayout layout = layouts.get(recordSchema);
+        return layout != null ? layout.getDescriptor() : null;
     }
 
     @Override
     public String getType() {
         return "PROTOBUF";
     }
+
+    /**
+     * Scratch arrays for the nested data message and the whole message, doubled when too small
+     */
+    private static final class Buffers {
+        private byte[] data = new byte[512];
+        private byte[] output = new byte[1024];
+
+        void grow() {
+            data = new byte[data.length * 2];
+            output = new byte[output.length * 2];
+        }
+    }
 }
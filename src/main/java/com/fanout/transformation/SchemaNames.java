@@ -0,0 +1,45 @@
+package com.fanout.transformation;
+
+import com.fanout.model.RecordSchema;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Field names for schema languages that only allow identifiers, which CSV headers often aren't
+ */
+final class SchemaNames {
+
+    private SchemaNames() {
+    }
+
+    /**
+     * Map every field to a unique name matching [A-Za-z_][A-Za-z0-9_]*
+     */
+    static String[] identifiers(RecordSchema schema) {
+        String[] names = new String[schema.size()];
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < names.length; i++) {
+            String name = sanitize(schema.getField(i));
+            String candidate = name;
+            for (int suffix = 2; !used.add(candidate); suffix++) {
+                candidate = name + "_" + suffix;
+            }
+            names[i] = candidate;
+        }
+        return names;
+    }
+
+    private static String sanitize(String field) {
+        StringBuilder name = new StringBuilder(field.length() + 1);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || (c >= '0' && c <= '9');
+            name.append(valid ? c : '_');
+        }
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            name.insert(0, '_');
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.fanout.transformation;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * ByteArrayOutputStream whose backing array can be read without copying it
+ */
+final class ScratchOutputStream extends ByteArrayOutputStream {
+
+    ScratchOutputStream(int size) {
+        super(size);
+    }
+
+    byte[] array() {
+        return buf;
+    }
+}
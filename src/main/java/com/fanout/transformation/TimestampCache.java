@@ -0,0 +1,23 @@
+package com.fanout.transformation;
+
+import java.time.Instant;
+
+/**
+ * ISO-8601 text of the most recently formatted millisecond. Records arriving within the
+ * same millisecond reuse one string instead of formatting an Instant each.
+ */
+final class TimestampCache {
+    private volatile Entry last = new Entry(Long.MIN_VALUE, null);
+
+    String format(long epochMillis) {
+        Entry entry = last;
+        if (entry.millis != epochMillis) {
+            entry = new Entry(epochMillis, Instant.ofEpochMilli(epochMillis).toString());
+            last = entry;
+        }
+        return entry.text;
+    }
+
+    private record Entry(long millis, String text) {
+    }
+}
@@ -8,16 +8,19 @@ import java.util.Map;
  */
 public class TransformerFactory {
     private static final Map<String, DataTransformer> transformers = new HashMap<>();
+    private static final Map<String, Integer> encodingSlots = new HashMap<>();
 
     static {
         registerTransformer(new JsonTransformer());
         registerTransformer(new XmlTransformer());
         registerTransformer(new ProtobufTransformer());
         registerTransformer(new AvroTransformer());
+        registerTransformer(new AvroTransformer(true));
     }
 
     private static void registerTransformer(DataTransformer transformer) {
         transformers.put(transformer.getType(), transformer);
+        encodingSlots.putIfAbsent(transformer.getType(), encodingSlots.size());
     }
 
     public static DataTransformer getTransformer(String type) {
@@ -28,6 +31,13 @@ public class TransformerFactory {
         return transformer;
     }
 
+    /**
+     * Slot in {@link com.fanout.model.RecordEncodings} holding a record's output for this format
+     */
+    public static int getEncodingSlot(DataTransformer transformer) {
+        return encodingSlots.getOrDefault(transformer.getType(), -1);
+    }
+
     public static void registerCustomTransformer(DataTransformer transformer) {
         registerTransformer(transformer);
     }
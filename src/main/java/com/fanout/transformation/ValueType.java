@@ -0,0 +1,68 @@
+package com.fanout.transformation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Field type inferred from record values for schema-driven binary formats
+ */
+enum ValueType {
+    BOOLEAN,
+    LONG,
+    DOUBLE,
+    STRING;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Type for a value seen in the first record; nulls default to strings
+     */
+    static ValueType of(Object value) {
+        if (value instanceof Boolean) {
+            return BOOLEAN;
+        }
+        if (isIntegral(value)) {
+            return LONG;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return DOUBLE;
+        }
+        // Strings, decimals (kept exact) and nested values
+        return STRING;
+    }
+
+    boolean accepts(Object value) {
+        return switch (this) {
+            case BOOLEAN -> value instanceof Boolean;
+            case LONG -> isIntegral(value);
+            case DOUBLE -> value instanceof Number && !(value instanceof BigDecimal);
+            case STRING -> true;
+        };
+    }
+
+    /**
+     * Type to relax to for a value this type does not accept: integers widen to doubles,
+     * anything else to strings
+     */
+    ValueType widenFor(Object value) {
+        return this == LONG && (value instanceof Double || value instanceof Float) ? DOUBLE : STRING;
+    }
+
+    static String asString(Object value) throws JsonProcessingException {
+        if (value instanceof String string) {
+            return string;
+        }
+        if (value instanceof Map<?, ?> || value instanceof List<?>) {
+            return objectMapper.writeValueAsString(value);
+        }
+        return value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+}
@@ -1,30 +1,46 @@
 package com.fanout.transformation;
 
-import com.fanout.model.Record;
+import com.ctc.wstx.api.WstxOutputProperties;
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.ctc.wstx.stax.WstxOutputFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.xml.namespace.QName;
+import java.io.IOException;
 
 /**
  * Transforms records to XML format for message queues
  */
-public class XmlTransformer implements DataTransformer {
-    private final XmlMapper xmlMapper;
+public class XmlTransformer extends GeneratorTransformer {
+    // Root element name the envelope had when it was serialized from a HashMap
+    private static final QName ROOT = new QName("HashMap");
 
     public XmlTransformer() {
-        this.xmlMapper = new XmlMapper();
+        super(new XmlMapper(createFactory()));
+    }
+
+    /**
+     * Pooled generators write one root element after another, which the StAX writer
+     * only allows with structure validation off. Woodstox is named explicitly because
+     * that property is its own, and the StAX lookup could pick another implementation.
+     */
+    private static XmlFactory createFactory() {
+        WstxOutputFactory outputFactory = new WstxOutputFactory();
+        outputFactory.setProperty(WstxOutputProperties.P_OUTPUT_VALIDATE_STRUCTURE, false);
+        return new XmlFactory(new WstxInputFactory(), outputFactory);
+    }
+
+    @Override
+    protected JsonGenerator createGenerator(ScratchOutputStream output) throws IOException {
+        return mapper.getFactory().createGenerator(output);
     }
 
     @Override
-    public byte[] transform(Record record) throws Exception {
-        Map<String, Object> output = new HashMap<>();
-        output.put("id", record.getId());
-        output.put("timestamp", record.getTimestamp().toString());
-        output.put("source", record.getSource());
-        output.put("data", record.getData());
-        
-        return xmlMapper.writeValueAsBytes(output);
+    protected void beforeEnvelope(JsonGenerator generator) {
+        ((ToXmlGenerator) generator).setNextName(ROOT);
     }
 
     @Override
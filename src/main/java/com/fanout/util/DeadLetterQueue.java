@@ -2,36 +2,83 @@ package com.fanout.util;
 
 import com.fanout.model.ProcessingResult;
 import com.fanout.model.Record;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Dead Letter Queue for failed records
+ * Dead Letter Queue for failed records. Callers only enqueue; a single writer thread drains
+ * the queue in group commits, serializing each batch into one buffer, writing it with one
+ * call to a segment file it keeps open and syncing it as the fsync policy says. Segments are
+ * JSON lines, optionally gzipped, named failed-records-&lt;epoch millis&gt;.jsonl[.gz]; they
+ * roll by size or age, and the oldest are deleted to keep the total within its cap.
  */
-public class DeadLetterQueue {
+public class DeadLetterQueue implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(DeadLetterQueue.class);
+    private static final String SEGMENT_PREFIX = "failed-records-";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("failed-records-\\d+\\.jsonl(\\.gz)?");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     private final Path dlqPath;
+    private final DeadLetterQueueConfig config;
     private final ObjectMapper objectMapper;
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
     private boolean enabled;
+    private volatile Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+
+    // Owned by the writer thread
+    private final BatchBuffer batch = new BatchBuffer();
+    private final Deque<Segment> closedSegments = new ArrayDeque<>();
+    private long closedBytes;
+    private Segment segment;
+    private long lastSegmentMillis;
+    private long lastSyncNanos = System.nanoTime();
+    private boolean unsynced;
 
     public DeadLetterQueue(String dlqPath, boolean enabled) {
+        this(dlqPath, enabled, new DeadLetterQueueConfig());
+    }
+
+    public DeadLetterQueue(String dlqPath, boolean enabled, DeadLetterQueueConfig config) {
         this.dlqPath = Path.of(dlqPath);
+        this.config = config;
         this.objectMapper = new ObjectMapper();
         this.enabled = enabled;
-        
+
         if (enabled) {
             try {
                 Files.createDirectories(this.dlqPath);
-                logger.info("Dead Letter Queue initialized at: {}", this.dlqPath);
+                findSegments();
+                logger.info("Dead Letter Queue initialized at: {} (fsync {}, compression {})",
+                        this.dlqPath, config.getFsync(), config.getCompression());
             } catch (IOException e) {
                 logger.error("Failed to create DLQ directory", e);
                 this.enabled = false;
@@ -39,31 +86,379 @@ public class DeadLetterQueue {
         }
     }
 
+    /**
+     * Start the writer thread; records queued before this wait for it
+     */
+    public void start() {
+        if (enabled && writer == null && !closed) {
+            writer = Thread.ofPlatform()
+                    .name("dlq-writer")
+                    .daemon(true)
+                    .start(this::writeLoop);
+        }
+    }
+
+    /**
+     * Queue the failure for the writer; never blocks. Records arriving once the queue holds
+     * maxQueued, or after close, are dropped and counted.
+     */
     public void writeFailedRecord(ProcessingResult result) {
         if (!enabled) {
             return;
         }
+        if (closed || queued.incrementAndGet() > config.getMaxQueued()) {
+            if (!closed) {
+                queued.decrementAndGet();
+            }
+            dropped.increment();
+            logger.error("DLQ {}, dropping failed record {}", closed ? "closed" : "full", result.getRecord().getId());
+            return;
+        }
+
+        Entry entry = new Entry(result, System.currentTimeMillis());
+        queue.offer(entry);
+        // Close may have drained the queue before the entry landed; if it is still there
+        // nothing will write it, so it counts as dropped
+        if (closed && queue.remove(entry)) {
+            queued.decrementAndGet();
+            dropped.increment();
+            logger.error("DLQ closed, dropping failed record {}", result.getRecord().getId());
+            return;
+        }
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void writeLoop() {
+        while (!closed) {
+            if (!writeBatch()) {
+                syncIfDue();
+                writerParked = true;
+                // Re-check after announcing the park, so an entry offered meanwhile isn't missed
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+            }
+        }
+    }
+
+    /**
+     * Write up to batchSize queued records as one group commit
+     * @return false if the queue was empty
+     */
+    private boolean writeBatch() {
+        Entry entry = queue.poll();
+        if (entry == null) {
+            return false;
+        }
+
+        batch.reset();
+        int count = 0;
+        int failed = 0;
+        JsonGenerator json = null;
+        do {
+            int mark = batch.size();
+            try {
+                if (json == null) {
+                    json = objectMapper.getFactory().createGenerator(batch);
+                    json.setRootValueSeparator(null);
+                }
+                writeEntry(json, entry);
+                json.flush();
+                count++;
+            } catch (IOException | RuntimeException e) {
+                // Serializing to memory only fails on values Jackson can't write; drop just this
+                // record, and its half-written generator with it
+                logger.error("Failed to serialize failed record {} for DLQ", entry.result.getRecord().getId(), e);
+                batch.truncate(mark);
+                json = null;
+                failed++;
+            }
+        } while (count + failed < config.getBatchSize() && (entry = queue.poll()) != null);
+        closeQuietly(json);
+        queued.addAndGet(-(count + failed));
+        dropped.add(failed);
+        if (count == 0) {
+            return true;
+        }
+
+        try {
+            Segment current = segmentFor(System.currentTimeMillis());
+            current.write(batch);
+            unsynced = true;
+            if (config.getFsync() == DeadLetterQueueConfig.FsyncPolicy.BATCH) {
+                sync();
+            } else {
+                syncIfDue();
+            }
+            written.add(count);
+            logger.debug("Wrote {} failed records to DLQ segment {}", count, current.path.getFileName());
+        } catch (IOException e) {
+            logger.error("Failed to write {} records to DLQ", count, e);
+            dropped.add(count);
+            // Start over in a fresh segment rather than appending after a partial write
+            closeSegment();
+        }
+        return true;
+    }
+
+    /**
+     * Close a generator whose output is already flushed, handing its buffers back to Jackson
+     */
+    private static void closeQuietly(JsonGenerator json) {
+        if (json == null) {
+            return;
+        }
+        try {
+            json.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close DLQ generator", e);
+        }
+    }
+
+    private void writeEntry(JsonGenerator json, Entry entry) throws IOException {
+        ProcessingResult result = entry.result;
+        Record record = result.getRecord();
+        json.writeStartObject();
+        json.writeStringField("recordId", record.getId());
+        json.writeStringField("sinkName", result.getSinkName());
+        json.writeStringField("errorMessage", result.getErrorMessage());
+        json.writeNumberField("retryCount", record.getRetryCount());
+        json.writeStringField("failedAt", Instant.ofEpochMilli(entry.failedAtMillis).toString());
+        json.writeFieldName("originalData");
+        json.writeObject(record.getData());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    /**
+     * Segment to append to, rolling the current one if it is full or too old
+     */
+    private Segment segmentFor(long nowMillis) throws IOException {
+        if (segment != null && (segment.size() >= config.getMaxSegmentBytes()
+                || nowMillis - segment.createdMillis >= config.getRollIntervalMs())) {
+            closeSegment();
+        }
+        if (segment == null) {
+            // Names must be unique and sort by age, even for segments rolled within a millisecond
+            long millis = Math.max(nowMillis, lastSegmentMillis + 1);
+            lastSegmentMillis = millis;
+            segment = Segment.create(dlqPath.resolve(SEGMENT_PREFIX + millis + ".jsonl"
+                    + (config.getCompression() == DeadLetterQueueConfig.Compression.GZIP ? ".gz" : "")),
+                    millis, config.getCompression());
+            enforceDiskCap();
+        }
+        return segment;
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close(unsynced && config.getFsync() != DeadLetterQueueConfig.FsyncPolicy.NEVER);
+            unsynced = false;
+        } catch (IOException e) {
+            logger.error("Failed to close DLQ segment {}", segment.path, e);
+        }
+        segment.closedSize = sizeOf(segment.path);
+        closedSegments.addLast(segment);
+        closedBytes += segment.closedSize;
+        segment = null;
+        enforceDiskCap();
+    }
+
+    /**
+     * Delete the oldest closed segments until they and a full current segment fit the cap
+     */
+    private void enforceDiskCap() {
+        long limit = config.getMaxTotalBytes() - (segment != null ? config.getMaxSegmentBytes() : 0);
+        while (closedBytes > limit && !closedSegments.isEmpty()) {
+            Segment oldest = closedSegments.removeFirst();
+            closedBytes -= oldest.closedSize;
+            try {
+                Files.deleteIfExists(oldest.path);
+                logger.warn("Deleted DLQ segment {} to stay within {} bytes", oldest.path, config.getMaxTotalBytes());
+            } catch (IOException e) {
+                logger.error("Failed to delete DLQ segment {}", oldest.path, e);
+            }
+        }
+    }
+
+    /**
+     * Pick up segments left by earlier runs, oldest first, so they count towards the cap
+     */
+    private void findSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dlqPath)) {
+            files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .forEach(path -> {
+                        Segment previous = new Segment(path, 0, null, null);
+                        previous.closedSize = sizeOf(path);
+                        closedSegments.addLast(previous);
+                        closedBytes += previous.closedSize;
+                    });
+        }
+    }
+
+    private void syncIfDue() {
+        if (config.getFsync() == DeadLetterQueueConfig.FsyncPolicy.INTERVAL
+                && System.nanoTime() - lastSyncNanos >= TimeUnit.MILLISECONDS.toNanos(config.getFsyncIntervalMs())) {
+            try {
+                sync();
+            } catch (IOException e) {
+                logger.error("Failed to sync DLQ segment", e);
+            }
+        }
+    }
+
+    private void sync() throws IOException {
+        if (unsynced && segment != null && config.getFsync() != DeadLetterQueueConfig.FsyncPolicy.NEVER) {
+            segment.channel.force(false);
+        }
+        unsynced = false;
+        lastSyncNanos = System.nanoTime();
+    }
 
+    private static long sizeOf(Path path) {
         try {
-            Map<String, Object> dlqEntry = new HashMap<>();
-            dlqEntry.put("recordId", result.getRecord().getId());
-            dlqEntry.put("sinkName", result.getSinkName());
-            dlqEntry.put("errorMessage", result.getErrorMessage());
-            dlqEntry.put("retryCount", result.getRecord().getRetryCount());
-            dlqEntry.put("failedAt", Instant.now().toString());
-            dlqEntry.put("originalData", result.getRecord().getData());
-
-            String json = objectMapper.writeValueAsString(dlqEntry) + "\n";
-            Path dlqFile = dlqPath.resolve("failed-records.jsonl");
-            
-            Files.writeString(dlqFile, json, 
-                    StandardOpenOption.CREATE, 
-                    StandardOpenOption.APPEND);
-            
-            logger.debug("Wrote failed record to DLQ: {}", result.getRecord().getId());
-            
+            return Files.size(path);
         } catch (IOException e) {
-            logger.error("Failed to write to DLQ", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Write out everything queued, sync it and close the current segment
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (!enabled || closed) {
+            return;
+        }
+        closed = true;
+        Thread current = writer;
+        if (current != null) {
+            LockSupport.unpark(current);
+            current.join();
+        }
+
+        // The writer is done, so this thread takes over its state
+        while (writeBatch()) {
+            // Drain whatever was queued before close
+        }
+        closeSegment();
+        logger.info("Dead Letter Queue closed after writing {} records ({} dropped)", getWritten(), getDropped());
+    }
+
+    /**
+     * Records written to the queue so far
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * Records lost because the queue was full or closed, or their write failed
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Records waiting for the writer
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    private static final class Entry {
+        final ProcessingResult result;
+        final long failedAtMillis;
+
+        Entry(ProcessingResult result, long failedAtMillis) {
+            this.result = result;
+            this.failedAtMillis = failedAtMillis;
+        }
+    }
+
+    /**
+     * One segment file, held open while it is being appended to
+     */
+    private static final class Segment {
+        final Path path;
+        final long createdMillis;
+        final FileChannel channel;
+        // Gzip stream over the channel, or null for plain segments
+        final GZIPOutputStream gzip;
+        long closedSize;
+
+        Segment(Path path, long createdMillis, FileChannel channel, GZIPOutputStream gzip) {
+            this.path = path;
+            this.createdMillis = createdMillis;
+            this.channel = channel;
+            this.gzip = gzip;
+        }
+
+        static Segment create(Path path, long createdMillis, DeadLetterQueueConfig.Compression compression)
+                throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            GZIPOutputStream gzip = null;
+            if (compression == DeadLetterQueueConfig.Compression.GZIP) {
+                OutputStream out = Channels.newOutputStream(channel);
+                gzip = new GZIPOutputStream(out, 64 * 1024, true);
+            }
+            return new Segment(path, createdMillis, channel, gzip);
+        }
+
+        void write(BatchBuffer batch) throws IOException {
+            if (gzip != null) {
+                batch.writeTo(gzip);
+                // Sync flush: every commit ends on a boundary a reader can decompress up to
+                gzip.flush();
+                return;
+            }
+            ByteBuffer buffer = batch.view();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        long size() throws IOException {
+            return channel.position();
+        }
+
+        void close(boolean force) throws IOException {
+            try (channel) {
+                if (gzip != null) {
+                    gzip.finish();
+                }
+                if (force) {
+                    channel.force(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reusable batch buffer whose contents can be written without copying them out
+     */
+    private static final class BatchBuffer extends ByteArrayOutputStream {
+        BatchBuffer() {
+            super(64 * 1024);
+        }
+
+        ByteBuffer view() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        /**
+         * Discard everything written after the first length bytes
+         */
+        void truncate(int length) {
+            count = length;
         }
     }
 }
@@ -0,0 +1,110 @@
+package com.fanout.util;
+
+/**
+ * How the dead letter queue batches, syncs, rolls and bounds its segment files
+ */
+public class DeadLetterQueueConfig {
+
+    public enum FsyncPolicy {
+        /** Sync after every group commit; nothing acknowledged as written is lost on a crash */
+        BATCH,
+        /** Sync at most once per fsyncIntervalMs, losing at most that much on a crash */
+        INTERVAL,
+        /** Leave syncing to the operating system */
+        NEVER
+    }
+
+    public enum Compression {
+        NONE,
+        /** Gzip segments, flushed at every group commit so a crash leaves them readable */
+        GZIP
+    }
+
+    private int batchSize = 1024;
+    private int maxQueued = 100_000;
+    private FsyncPolicy fsync = FsyncPolicy.BATCH;
+    private long fsyncIntervalMs = 1000;
+    private long maxSegmentBytes = 64L * 1024 * 1024;
+    private long rollIntervalMs = 60L * 60 * 1000;
+    private long maxTotalBytes = 1024L * 1024 * 1024;
+    private Compression compression = Compression.NONE;
+
+    /**
+     * Most records written and synced as one group commit
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Records waiting for the writer beyond which new ones are dropped and counted
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public FsyncPolicy getFsync() {
+        return fsync;
+    }
+
+    public void setFsync(FsyncPolicy fsync) {
+        this.fsync = fsync;
+    }
+
+    public long getFsyncIntervalMs() {
+        return fsyncIntervalMs;
+    }
+
+    public void setFsyncIntervalMs(long fsyncIntervalMs) {
+        this.fsyncIntervalMs = fsyncIntervalMs;
+    }
+
+    /**
+     * Size on disk at which the current segment is closed and a new one started
+     */
+    public long getMaxSegmentBytes() {
+        return maxSegmentBytes;
+    }
+
+    public void setMaxSegmentBytes(long maxSegmentBytes) {
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    /**
+     * Age at which the current segment is closed and a new one started
+     */
+    public long getRollIntervalMs() {
+        return rollIntervalMs;
+    }
+
+    public void setRollIntervalMs(long rollIntervalMs) {
+        this.rollIntervalMs = rollIntervalMs;
+    }
+
+    /**
+     * Disk space all segments may take; the oldest are deleted to stay within it
+     */
+    public long getMaxTotalBytes() {
+        return maxTotalBytes;
+    }
+
+    public void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+}
@@ -0,0 +1,171 @@
+package com.fanout.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in nanoseconds with HdrHistogram-style log-linear buckets: exact
+ * below 128ns, then 64 buckets per power of two, so any value is reported within 1.6%.
+ * Recording is a few atomic updates and allocates nothing. Readers take interval snapshots,
+ * each covering what was recorded since the one before, or cumulative ones for exporters;
+ * neither blocks recording.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    // Values beyond about 18 minutes land in the last bucket
+    private static final long HIGHEST_TRACKABLE = (1L << 40) - 1;
+    private static final int BUCKETS = indexOf(HIGHEST_TRACKABLE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong intervalMax = new AtomicLong();
+    private final long[] reported = new long[BUCKETS];
+    private long reportedSum;
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE));
+        counts.incrementAndGet(indexOf(value));
+        sum.add(value);
+        long max;
+        while (value > (max = intervalMax.get()) && !intervalMax.compareAndSet(max, value)) {
+            // Lost to another recorder, compare against its value
+        }
+    }
+
+    /**
+     * Counts recorded since the previous snapshot. Concurrent recordings land in exactly one
+     * interval, either this one or the next.
+     */
+    public synchronized Snapshot intervalSnapshot() {
+        long[] interval = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long current = counts.get(i);
+            interval[i] = current - reported[i];
+            reported[i] = current;
+            total += interval[i];
+        }
+        long currentSum = sum.sum();
+        long intervalSum = currentSum - reportedSum;
+        reportedSum = currentSum;
+        return new Snapshot(interval, total, intervalSum, intervalMax.getAndSet(0));
+    }
+
+    /**
+     * Everything recorded so far, leaving the intervals alone. The max isn't kept beyond an
+     * interval, so it reads 0.
+     */
+    public Snapshot cumulativeSnapshot() {
+        long[] all = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            all[i] = counts.get(i);
+            total += all[i];
+        }
+        return new Snapshot(all, total, sum.sum(), 0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Scale the value down so it falls in [64, 128) and index by magnitude and those bits
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Largest value that falls in the bucket, the one reported for it
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long subBucket = index - (long) shift * HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Latencies recorded over one interval
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long totalCount, long sum, long max) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Recordings whose bucket lies entirely at or below the value
+         */
+        public long getCountAtOrBelow(long nanos) {
+            long count = 0;
+            for (int i = 0; i < counts.length && highestEquivalentValue(i) <= nanos; i++) {
+                count += counts[i];
+            }
+            return count;
+        }
+
+        /**
+         * Value at or below which the given percentage of recordings fall, 0 if there were none
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    // The bucket's top can lie above anything recorded
+                    return max > 0 ? Math.min(highestEquivalentValue(i), max) : highestEquivalentValue(i);
+                }
+            }
+            return max;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Sum of the recorded values in nanoseconds
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * One-line summary such as "p50 1.20ms | p90 ... | max 9.81ms (n=120)"
+         */
+        public String format() {
+            return String.format("p50 %s | p90 %s | p99 %s | p99.9 %s | max %s (n=%,d)",
+                    millis(getValueAtPercentile(50)),
+                    millis(getValueAtPercentile(90)),
+                    millis(getValueAtPercentile(99)),
+                    millis(getValueAtPercentile(99.9)),
+                    millis(max),
+                    totalCount);
+        }
+
+        static String millis(long nanos) {
+            return String.format("%.3fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+}
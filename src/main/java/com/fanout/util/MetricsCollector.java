@@ -1,11 +1,20 @@
 package com.fanout.util;
 
+import com.fanout.buffer.BufferPool;
 import com.fanout.model.ProcessingResult;
+import com.fanout.resilience.CircuitBreaker;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
 
 /**
  * Collects and tracks processing metrics
@@ -15,11 +24,25 @@ public class MetricsCollector {
     private final LongAdder totalSuccess = new LongAdder();
     private final LongAdder totalFailure = new LongAdder();
     private final LongAdder totalRetry = new LongAdder();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder admissionWaitNanos = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
     
     private final Map<String, SinkMetrics> sinkMetrics = new ConcurrentHashMap<>();
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
     private final AtomicLong startTime = new AtomicLong(System.currentTimeMillis());
     private final AtomicLong lastUpdateTime = new AtomicLong(System.currentTimeMillis());
     private final AtomicLong lastProcessedCount = new AtomicLong(0);
+    private final AtomicLong lastAllocatedBytes = new AtomicLong(allocatedBytes());
+
+    private volatile BufferPool bufferPool;
+
+    public void setBufferPool(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
 
     public void recordResult(ProcessingResult result) {
         totalProcessed.increment();
@@ -34,6 +57,121 @@ public class MetricsCollector {
                 .record(result);
     }
 
+    public void recordAdmitted(long waitNanos) {
+        admitted.increment();
+        admissionWaitNanos.add(waitNanos);
+    }
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public void recordSpilled() {
+        spilled.increment();
+    }
+
+    public void recordReplayed() {
+        replayed.increment();
+    }
+
+    public void recordCircuitTransition(String sinkName, CircuitBreaker.State from, CircuitBreaker.State to) {
+        SinkMetrics metrics = sinkMetrics.computeIfAbsent(sinkName, k -> new SinkMetrics());
+        metrics.circuitState = to;
+        if (to == CircuitBreaker.State.OPEN) {
+            metrics.circuitOpenCount.increment();
+        }
+    }
+
+    /**
+     * Stage histograms for a sink to record into
+     */
+    public StageLatencies stageLatencies(String sinkName) {
+        return sinkMetrics.computeIfAbsent(sinkName, k -> new SinkMetrics()).stages;
+    }
+
+    /**
+     * Gauge of the calls a sink is currently allowed in flight
+     */
+    public void recordConcurrencyLimit(String sinkName, int limit) {
+        sinkMetrics.computeIfAbsent(sinkName, k -> new SinkMetrics()).concurrencyLimit = limit;
+    }
+
+    /**
+     * Export a value the collector doesn't own, read on every scrape
+     *
+     * @param type "gauge", or "counter" for a value that only grows
+     */
+    public void register(String name, String type, String help, DoubleSupplier value) {
+        gauges.add(new Gauge(name, type, help, value));
+    }
+
+    /**
+     * Append every metric in the Prometheus text format. Reads only counters and cumulative
+     * histogram snapshots, so a scrape never holds up the threads recording into them, and
+     * leaves the intervals printStatus reports untouched.
+     */
+    public void writePrometheus(StringBuilder out) {
+        PrometheusWriter writer = new PrometheusWriter(out);
+        writer.family("fanout_records_total", "counter", "Records processed, by outcome")
+                .sample("fanout_records_total", totalSuccess.sum(), "status", "success")
+                .sample("fanout_records_total", totalFailure.sum(), "status", "failure")
+                .sample("fanout_records_total", totalRetry.sum(), "status", "retry");
+        writer.family("fanout_uptime_seconds", "gauge", "Seconds since the collector started")
+                .sample("fanout_uptime_seconds", (System.currentTimeMillis() - startTime.get()) / 1000.0);
+
+        writer.family("fanout_admitted_total", "counter", "Records admitted into the pipeline")
+                .sample("fanout_admitted_total", admitted.sum());
+        writer.family("fanout_admission_wait_seconds_total", "counter", "Time spent waiting for admission")
+                .sample("fanout_admission_wait_seconds_total", admissionWaitNanos.sum() / 1e9);
+        writer.family("fanout_dropped_total", "counter", "Records dropped at admission")
+                .sample("fanout_dropped_total", dropped.sum());
+        writer.family("fanout_spilled_total", "counter", "Records spilled to disk at admission")
+                .sample("fanout_spilled_total", spilled.sum());
+        writer.family("fanout_replayed_total", "counter", "Spilled records replayed into the pipeline")
+                .sample("fanout_replayed_total", replayed.sum());
+
+        for (Gauge gauge : gauges) {
+            writer.family(gauge.name, gauge.type, gauge.help).sample(gauge.name, gauge.value.getAsDouble());
+        }
+
+        BufferPool pool = bufferPool;
+        if (pool != null) {
+            writer.family("fanout_buffers_acquired_total", "counter", "Buffers handed out by the pool")
+                    .sample("fanout_buffers_acquired_total", pool.getAcquired());
+            writer.family("fanout_buffers_allocated_bytes_total", "counter", "Bytes the pool allocated for new buffers")
+                    .sample("fanout_buffers_allocated_bytes_total", pool.getAllocatedBytes());
+            writer.family("fanout_buffers_outstanding", "gauge", "Buffers acquired and not yet released")
+                    .sample("fanout_buffers_outstanding", pool.getOutstanding());
+        }
+
+        writer.family("fanout_sink_records_total", "counter", "Records processed per sink, by outcome");
+        sinkMetrics.forEach((sinkName, metrics) -> writer
+                .sample("fanout_sink_records_total", metrics.successCount.sum(), "sink", sinkName, "status", "success")
+                .sample("fanout_sink_records_total", metrics.failureCount.sum(), "sink", sinkName, "status", "failure")
+                .sample("fanout_sink_records_total", metrics.retryCount.sum(), "sink", sinkName, "status", "retry"));
+        writer.family("fanout_sink_circuit_open", "gauge", "1 while the sink's circuit breaker is open");
+        sinkMetrics.forEach((sinkName, metrics) -> writer.sample("fanout_sink_circuit_open",
+                metrics.circuitState == CircuitBreaker.State.OPEN ? 1 : 0, "sink", sinkName));
+        writer.family("fanout_sink_circuit_opened_total", "counter", "Times the sink's circuit breaker opened");
+        sinkMetrics.forEach((sinkName, metrics) -> writer.sample("fanout_sink_circuit_opened_total",
+                metrics.circuitOpenCount.sum(), "sink", sinkName));
+        writer.family("fanout_sink_concurrency_limit", "gauge", "Calls the sink is allowed in flight, 0 when unlimited");
+        sinkMetrics.forEach((sinkName, metrics) -> writer.sample("fanout_sink_concurrency_limit",
+                metrics.concurrencyLimit, "sink", sinkName));
+
+        writer.family("fanout_sink_processing_seconds", "histogram", "Time from picking a record up to its outcome");
+        sinkMetrics.forEach((sinkName, metrics) -> writer.histogram("fanout_sink_processing_seconds",
+                metrics.processingTime.cumulativeSnapshot(), "sink", sinkName));
+        writer.family("fanout_sink_stage_seconds", "histogram",
+                "Time per pipeline stage; rate_limit is the wait for a rate limiter permit");
+        sinkMetrics.forEach((sinkName, metrics) -> {
+            for (StageLatencies.Stage stage : StageLatencies.Stage.values()) {
+                writer.histogram("fanout_sink_stage_seconds", metrics.stages.get(stage).cumulativeSnapshot(),
+                        "sink", sinkName, "stage", stage.getLabel());
+            }
+        });
+    }
+
     public void printStatus() {
         long now = System.currentTimeMillis();
         long currentProcessed = totalProcessed.sum();
@@ -62,15 +200,27 @@ public class MetricsCollector {
         System.out.printf("Retries:            %,d%n", totalRetry.sum());
         System.out.printf("Current Throughput: %.2f records/sec%n", currentThroughput);
         System.out.printf("Overall Throughput: %.2f records/sec%n", overallThroughput);
+        System.out.printf("Admission:          %,d admitted (avg wait %.3fms) | %,d dropped | %,d spilled | %,d replayed%n",
+                admitted.sum(),
+                getAverageAdmissionWaitMs(),
+                dropped.sum(),
+                spilled.sum(),
+                replayed.sum());
+        printMemory(timeSinceLastUpdate);
         System.out.println("-".repeat(80));
         
         System.out.println("Per-Sink Metrics:");
         sinkMetrics.forEach((sinkName, metrics) -> {
             System.out.printf("  %s:%n", sinkName);
-            System.out.printf("    Success: %,d | Failures: %,d | Avg Time: %.2fms%n",
+            System.out.printf("    Success: %,d | Failures: %,d | Avg Time: %.2fms | Circuit: %s (opened %,d) | Limit: %s%n",
                     metrics.successCount.sum(),
                     metrics.failureCount.sum(),
-                    metrics.getAverageProcessingTime());
+                    metrics.getAverageProcessingTime(),
+                    metrics.circuitState,
+                    metrics.circuitOpenCount.sum(),
+                    metrics.concurrencyLimit > 0 ? String.valueOf(metrics.concurrencyLimit) : "none");
+            System.out.printf("    Latency: %s%n", metrics.processingTime.intervalSnapshot().format());
+            System.out.printf("    Stages p50/p99: %s%n", metrics.formatStages());
         });
         System.out.println("=".repeat(80) + "\n");
         
@@ -78,10 +228,58 @@ public class MetricsCollector {
         lastProcessedCount.set(currentProcessed);
     }
 
+    private void printMemory(long intervalMs) {
+        long allocatedNow = allocatedBytes();
+        long allocatedSinceLastUpdate = allocatedNow - lastAllocatedBytes.getAndSet(allocatedNow);
+        long gcCount = 0;
+        long gcTimeMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(gc.getCollectionCount(), 0);
+            gcTimeMs += Math.max(gc.getCollectionTime(), 0);
+        }
+        System.out.printf("Memory:             %.1f MB/sec allocated | %,d GCs (%,dms total)%n",
+                intervalMs > 0 && allocatedNow >= 0 ? allocatedSinceLastUpdate * 1000.0 / intervalMs / (1024 * 1024) : 0,
+                gcCount,
+                gcTimeMs);
+
+        BufferPool pool = bufferPool;
+        if (pool != null) {
+            System.out.printf("Buffers:            %,d acquired (%.1f%% reused) | %.1f MB allocated | %,d outstanding%n",
+                    pool.getAcquired(),
+                    pool.getReuseRate() * 100,
+                    pool.getAllocatedBytes() / (1024.0 * 1024),
+                    pool.getOutstanding());
+        }
+    }
+
+    /**
+     * Bytes allocated on the heap by all live threads so far, or -1 where the JVM can't tell
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemorySupported()) {
+            return hotspot.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private double getAverageAdmissionWaitMs() {
+        long count = admitted.sum();
+        return count > 0 ? admissionWaitNanos.sum() / (count * 1_000_000.0) : 0;
+    }
+
     private double getPercentage(long part, long total) {
         return total > 0 ? (part * 100.0) / total : 0;
     }
 
+    /**
+     * Processing time histogram of a sink, or null if it has recorded nothing yet
+     */
+    public LatencyHistogram getProcessingTimeHistogram(String sinkName) {
+        SinkMetrics metrics = sinkMetrics.get(sinkName);
+        return metrics != null ? metrics.processingTime : null;
+    }
+
     public long getTotalProcessed() {
         return totalProcessed.sum();
     }
@@ -94,25 +292,95 @@ public class MetricsCollector {
         return totalFailure.sum();
     }
 
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getSpilled() {
+        return spilled.sum();
+    }
+
+    public long getReplayed() {
+        return replayed.sum();
+    }
+
+    public CircuitBreaker.State getCircuitState(String sinkName) {
+        SinkMetrics metrics = sinkMetrics.get(sinkName);
+        return metrics != null ? metrics.circuitState : CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * Current adaptive concurrency limit of a sink, or 0 when it has none
+     */
+    public int getConcurrencyLimit(String sinkName) {
+        SinkMetrics metrics = sinkMetrics.get(sinkName);
+        return metrics != null ? metrics.concurrencyLimit : 0;
+    }
+
     private static class SinkMetrics {
         private final LongAdder successCount = new LongAdder();
         private final LongAdder failureCount = new LongAdder();
-        private final LongAdder totalProcessingTime = new LongAdder();
+        private final LongAdder retryCount = new LongAdder();
+        private final LongAdder totalProcessingNanos = new LongAdder();
         private final LongAdder recordCount = new LongAdder();
+        private final LongAdder circuitOpenCount = new LongAdder();
+        private volatile CircuitBreaker.State circuitState = CircuitBreaker.State.CLOSED;
+        private volatile int concurrencyLimit;
+        private final LatencyHistogram processingTime = new LatencyHistogram();
+        private final StageLatencies stages = new StageLatencies();
 
         void record(ProcessingResult result) {
             if (result.isSuccess()) {
                 successCount.increment();
             } else if (result.isFailure()) {
                 failureCount.increment();
+            } else {
+                retryCount.increment();
             }
-            totalProcessingTime.add(result.getProcessingTimeMs());
+            totalProcessingNanos.add(result.getProcessingTimeNanos());
+            processingTime.record(result.getProcessingTimeNanos());
             recordCount.increment();
         }
 
         double getAverageProcessingTime() {
             long count = recordCount.sum();
-            return count > 0 ? (double) totalProcessingTime.sum() / count : 0;
+            return count > 0 ? (double) totalProcessingNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+        }
+
+        /**
+         * Interval p50 and p99 of every stage, e.g. "queue 0.012/0.250ms | rate limit ..."
+         */
+        String formatStages() {
+            StringBuilder line = new StringBuilder();
+            for (StageLatencies.Stage stage : StageLatencies.Stage.values()) {
+                LatencyHistogram.Snapshot snapshot = stages.get(stage).intervalSnapshot();
+                if (!line.isEmpty()) {
+                    line.append(" | ");
+                }
+                line.append(stage.getLabel().replace('_', ' '))
+                        .append(String.format(" %.3f/%.3fms",
+                                snapshot.getValueAtPercentile(50) / 1e6,
+                                snapshot.getValueAtPercentile(99) / 1e6));
+            }
+            return line.toString();
+        }
+    }
+
+    private static final class Gauge {
+        final String name;
+        final String type;
+        final String help;
+        final DoubleSupplier value;
+
+        Gauge(String name, String type, String help, DoubleSupplier value) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+            this.value = value;
         }
     }
 }
@@ -0,0 +1,92 @@
+package com.fanout.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes metric families in the Prometheus text exposition format
+ */
+class PrometheusWriter {
+    // Bucket bounds in seconds, from 100µs to 10s
+    private static final String[] BUCKETS = {
+            "0.0001", "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05",
+            "0.1", "0.25", "0.5", "1", "2.5", "5", "10"};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final StringBuilder out;
+
+    PrometheusWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    PrometheusWriter family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * @param labels alternating label names and values
+     */
+    PrometheusWriter sample(String name, double value, String... labels) {
+        out.append(name);
+        appendLabels(labels, null);
+        out.append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * Cumulative buckets, sum and count of a nanosecond histogram, exported in seconds
+     */
+    PrometheusWriter histogram(String name, LatencyHistogram.Snapshot snapshot, String... labels) {
+        for (String bound : BUCKETS) {
+            out.append(name).append("_bucket");
+            appendLabels(labels, bound);
+            long boundNanos = Math.round(Double.parseDouble(bound) * NANOS_PER_SECOND);
+            out.append(' ').append(snapshot.getCountAtOrBelow(boundNanos)).append('\n');
+        }
+        out.append(name).append("_bucket");
+        appendLabels(labels, "+Inf");
+        out.append(' ').append(snapshot.getTotalCount()).append('\n');
+        sample(name + "_sum", snapshot.getSum() / NANOS_PER_SECOND, labels);
+        sample(name + "_count", snapshot.getTotalCount(), labels);
+        return this;
+    }
+
+    private void appendLabels(String[] labels, String le) {
+        if (labels.length == 0 && le == null) {
+            return;
+        }
+        out.append('{');
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"");
+            escape(labels[i + 1]);
+            out.append('"');
+        }
+        if (le != null) {
+            out.append(labels.length > 0 ? "," : "").append("le=\"").append(le).append('"');
+        }
+        out.append('}');
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
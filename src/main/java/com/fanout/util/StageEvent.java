@@ -0,0 +1,33 @@
+package com.fanout.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one traced span, committed when the span ends. The span's own duration is
+ * a field, since JFR times an event from its creation and reserves the duration name for that.
+ */
+@Name("com.fanout.Stage")
+@Label("Pipeline Stage")
+@Category("Fan-Out Engine")
+@Description("Time a sampled record spent in one pipeline stage")
+@StackTrace(false)
+class StageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Sink")
+    String sink;
+
+    @Label("Record Sequence")
+    long record;
+
+    @Label("Stage Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long spanDuration;
+}
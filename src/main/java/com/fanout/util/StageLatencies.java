@@ -0,0 +1,43 @@
+package com.fanout.util;
+
+/**
+ * Latency histograms for the stages a record goes through inside one sink
+ */
+public class StageLatencies {
+
+    public enum Stage {
+        /** Waiting for an executor thread once any rate limit permit was due */
+        QUEUE,
+        /** Waiting for the rate limit permit */
+        RATE_LIMIT,
+        /** Encoding into the sink's format, near zero when another sink already did */
+        TRANSFORM,
+        /** From handing the record or its batch to the sink until the downstream answered */
+        SEND;
+
+        private final String label = name().toLowerCase();
+
+        /**
+         * Lower-case name, as used in metric labels and trace spans
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+    public StageLatencies() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram get(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+}
@@ -0,0 +1,246 @@
+package com.fanout.util;
+
+import com.fanout.model.Record;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records spans of sampled records through the pipeline into a fixed-size ring, overwriting
+ * the oldest once it is full. Every sampleEvery-th record is traced, chosen by its sequence
+ * so that all stages and retries of a record agree without carrying any state. Writing a span
+ * takes one atomic increment and allocates nothing; callers check {@link #isSampled} first,
+ * so unsampled records cost a field read. Spans can be dumped as a Chrome trace and, when
+ * asked for, are also emitted as {@link StageEvent}s to a running flight recording.
+ */
+public class Tracer {
+    private static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+    // Trace row of spans not taken inside a sink
+    private static final String PIPELINE = "pipeline";
+
+    private final int sampleEvery;
+    private final boolean jfr;
+    private final int mask;
+    private final long epochNanos = System.nanoTime();
+    private final AtomicLong cursor = new AtomicLong();
+    // Per slot, 1 + the position of the span written there, or 0 while it is being written
+    private final AtomicLongArray published;
+    private final String[] names;
+    private final String[] sinks;
+    private final long[] recordSequences;
+    private final long[] threadIds;
+    private final long[] starts;
+    private final long[] durations;
+
+    /**
+     * @param sampleEvery trace one record in this many
+     * @param capacity spans kept, rounded up to a power of two
+     * @param jfr also emit each span as a JFR event
+     */
+    public Tracer(int sampleEvery, int capacity, boolean jfr) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("sampleEvery must be at least 1");
+        }
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.sampleEvery = sampleEvery;
+        this.jfr = jfr;
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        this.names = new String[size];
+        this.sinks = new String[size];
+        this.recordSequences = new long[size];
+        this.threadIds = new long[size];
+        this.starts = new long[size];
+        this.durations = new long[size];
+    }
+
+    public boolean isSampled(Record record) {
+        long sequence = record.getSequence();
+        return sequence > 0 && sequence % sampleEvery == 0;
+    }
+
+    /**
+     * Record a span of a sampled record
+     *
+     * @param sink the sink it was taken in, or null for the shared pipeline stages
+     */
+    public void span(Record record, String name, String sink, long startNanos, long endNanos) {
+        long position = cursor.getAndIncrement();
+        int slot = (int) (position & mask);
+        published.set(slot, 0);
+        VarHandle.storeStoreFence();
+        names[slot] = name;
+        sinks[slot] = sink;
+        recordSequences[slot] = record.getSequence();
+        threadIds[slot] = Thread.currentThread().threadId();
+        starts[slot] = startNanos;
+        durations[slot] = Math.max(0, endNanos - startNanos);
+        published.set(slot, position + 1);
+
+        if (jfr) {
+            StageEvent event = new StageEvent();
+            if (event.isEnabled()) {
+                event.stage = name;
+                event.sink = sink;
+                event.record = record.getSequence();
+                event.spanDuration = durations[slot];
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Spans currently in the ring, oldest first. Spans being overwritten while this runs are
+     * left out rather than reported torn.
+     */
+    public List<Span> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - mask - 1);
+        List<Span> spans = new ArrayList<>((int) (end - start));
+        for (long position = start; position < end; position++) {
+            int slot = (int) (position & mask);
+            if (published.get(slot) != position + 1) {
+                continue;
+            }
+            Span span = new Span(names[slot], sinks[slot], recordSequences[slot], threadIds[slot],
+                    starts[slot] - epochNanos, durations[slot]);
+            // Re-check after reading, as a seqlock does, in case a writer got in meanwhile
+            VarHandle.loadLoadFence();
+            if (published.get(slot) == position + 1) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * Write the spans in the Chrome trace event format, loadable in chrome://tracing or
+     * Perfetto. Each sink is shown as a process and each sampled record as a thread in it.
+     */
+    public void writeChromeTrace(OutputStream out) throws IOException {
+        List<Span> spans = snapshot();
+        Map<String, Integer> processes = new LinkedHashMap<>();
+        processes.put(PIPELINE, 0);
+        for (Span span : spans) {
+            processes.putIfAbsent(span.getRow(), processes.size());
+        }
+
+        try (JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("displayTimeUnit", "ms");
+            json.writeArrayFieldStart("traceEvents");
+            for (Map.Entry<String, Integer> process : processes.entrySet()) {
+                json.writeStartObject();
+                json.writeStringField("name", "process_name");
+                json.writeStringField("ph", "M");
+                json.writeNumberField("pid", process.getValue());
+                json.writeObjectFieldStart("args");
+                json.writeStringField("name", process.getKey());
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            for (Span span : spans) {
+                json.writeStartObject();
+                json.writeStringField("name", span.getName());
+                json.writeStringField("ph", "X");
+                json.writeNumberField("ts", span.getStartNanos() / 1000.0);
+                json.writeNumberField("dur", span.getDurationNanos() / 1000.0);
+                json.writeNumberField("pid", processes.get(span.getRow()));
+                json.writeNumberField("tid", span.getRecordSequence());
+                json.writeObjectFieldStart("args");
+                json.writeNumberField("thread", span.getThreadId());
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    public void writeChromeTrace(Path path) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (OutputStream out = Files.newOutputStream(path)) {
+                writeChromeTrace(out);
+            }
+            logger.info("Wrote {} trace spans to {}", Math.min(cursor.get(), mask + 1), path);
+        } catch (IOException e) {
+            logger.error("Failed to write trace to {}", path, e);
+        }
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    /**
+     * One stage of one record, with times relative to the tracer's creation
+     */
+    public static final class Span {
+        private final String name;
+        private final String sink;
+        private final long recordSequence;
+        private final long threadId;
+        private final long startNanos;
+        private final long durationNanos;
+
+        private Span(String name, String sink, long recordSequence, long threadId, long startNanos, long durationNanos) {
+            this.name = name;
+            this.sink = sink;
+            this.recordSequence = recordSequence;
+            this.threadId = threadId;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Sink the span was taken in, or null for the shared pipeline stages
+         */
+        public String getSink() {
+            return sink;
+        }
+
+        public long getRecordSequence() {
+            return recordSequence;
+        }
+
+        public long getThreadId() {
+            return threadId;
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        private String getRow() {
+            return sink != null ? sink : PIPELINE;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.fanout.backpressure;
+
+import com.fanout.model.Record;
+import com.fanout.orchestrator.InFlightTracker;
+import com.fanout.util.MetricsCollector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDropStrategyCountsEveryShedRecord() throws Exception {
+        InFlightTracker tracker = new InFlightTracker(2);
+        MetricsCollector metrics = new MetricsCollector();
+        List<Record> dispatched = new CopyOnWriteArrayList<>();
+        AdmissionController controller = new DroppingAdmissionController(tracker, dispatched::add, metrics);
+
+        for (int i = 0; i < 5; i++) {
+            controller.submit(new Record(Map.of("n", i), "TEST"));
+        }
+
+        assertEquals(2, dispatched.size());
+        assertEquals(2, metrics.getAdmitted());
+        assertEquals(3, metrics.getDropped());
+    }
+
+    @Test
+    void testBufferStrategySpillsAndReplaysInOrder() throws Exception {
+        InFlightTracker tracker = new InFlightTracker(1);
+        MetricsCollector metrics = new MetricsCollector();
+        List<Record> dispatched = new CopyOnWriteArrayList<>();
+        List<Record> submitted = new ArrayList<>();
+
+        try (SpillingAdmissionController controller = new SpillingAdmissionController(
+                tracker, dispatched::add, metrics, tempDir, 1024 * 1024)) {
+
+            for (int i = 0; i < 4; i++) {
+                submitted.add(new Record(Map.of("n", i), "TEST"));
+                controller.submit(submitted.get(i));
+            }
+            assertEquals(1, dispatched.size());
+            assertEquals(3, metrics.getSpilled());
+
+            // Acknowledge records as they arrive until everything has been replayed
+            for (int acked = 0; acked < 4; acked++) {
+                while (dispatched.size() <= acked) {
+                    Thread.sleep(5);
+                }
+                tracker.complete();
+            }
+            controller.awaitReplayed();
+
+            assertEquals(4, dispatched.size());
+            assertEquals(3, metrics.getReplayed());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(i, dispatched.get(i).getData().get("n"));
+                assertEquals(submitted.get(i).getSequence(), dispatched.get(i).getSequence());
+                assertEquals(submitted.get(i).getId(), dispatched.get(i).getId());
+            }
+            // Replayed records share one interned schema
+            assertSame(dispatched.get(1).getSchema(), dispatched.get(3).getSchema());
+        }
+    }
+}
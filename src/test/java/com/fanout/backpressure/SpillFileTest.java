@@ -0,0 +1,83 @@
+package com.fanout.backpressure;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReplayKeepsValueTypes() throws Exception {
+        // Arrange
+        RecordSchema schema = RecordSchema.of("amount", "count", "small", "ratio", "big", "at",
+                "payload", "flag", "nested", "missing");
+        Object[] values = {
+                new BigDecimal("12345.6700"),
+                42L,
+                (short) 7,
+                1.5f,
+                new BigInteger("123456789012345678901234567890"),
+                Instant.parse("2026-10-17T12:34:56.123456789Z"),
+                new byte[]{0, 1, -1, 127},
+                true,
+                Map.of("items", List.of(1L, new BigDecimal("0.10"), "x")),
+                null
+        };
+        Record record = new Record(99, "id-1", schema, values, 1_000L, "TEST", 2);
+
+        // Act
+        Record replayed;
+        try (SpillFile spill = new SpillFile(tempDir, 1024 * 1024)) {
+            assertTrue(spill.append(record));
+            replayed = spill.poll();
+            assertTrue(spill.isEmpty());
+        }
+
+        // Assert
+        assertEquals(99, replayed.getSequence());
+        assertEquals("id-1", replayed.getId());
+        assertEquals(1_000L, replayed.getTimestampMillis());
+        assertEquals("TEST", replayed.getSource());
+        assertEquals(2, replayed.getRetryCount());
+        assertEquals(schema.getFields(), replayed.getSchema().getFields());
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof byte[] bytes) {
+                assertArrayEquals(bytes, (byte[]) replayed.get(i));
+            } else if (values[i] == null || values[i] instanceof Map) {
+                assertEquals(values[i], replayed.get(i), schema.getField(i));
+            } else {
+                assertEquals(values[i], replayed.get(i), schema.getField(i));
+                assertSame(values[i].getClass(), replayed.get(i).getClass(), schema.getField(i));
+            }
+        }
+        List<?> items = (List<?>) ((Map<?, ?>) replayed.get(8)).get("items");
+        assertEquals(Arrays.asList(1L, new BigDecimal("0.10"), "x"), items);
+    }
+
+    @Test
+    void testRefusesRecordsBeyondTheSizeBound() throws Exception {
+        // Arrange
+        Record record = new Record(Map.of("text", "x".repeat(200)), "TEST");
+
+        try (SpillFile spill = new SpillFile(tempDir, 128)) {
+            // Act / Assert
+            assertFalse(spill.append(record));
+            assertTrue(spill.isEmpty());
+            assertNull(spill.poll());
+        }
+    }
+}
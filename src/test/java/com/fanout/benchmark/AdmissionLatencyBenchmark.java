@@ -0,0 +1,92 @@
+package com.fanout.benchmark;
+
+import com.fanout.backpressure.AdmissionController;
+import com.fanout.backpressure.BlockingAdmissionController;
+import com.fanout.backpressure.DroppingAdmissionController;
+import com.fanout.backpressure.SpillingAdmissionController;
+import com.fanout.model.Record;
+import com.fanout.orchestrator.InFlightTracker;
+import com.fanout.util.MetricsCollector;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Load test reporting admission latency percentiles for each backpressure strategy
+ * while producers outpace a slow downstream.
+ * Not part of the unit test run; launch main() from the test classpath.
+ */
+public class AdmissionLatencyBenchmark {
+    private static final int PRODUCERS = 8;
+    private static final int RECORDS_PER_PRODUCER = 25_000;
+    private static final int CAPACITY = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        Path spillDir = Files.createTempDirectory("admission-bench");
+        for (String strategy : List.of("BLOCK", "DROP", "BUFFER")) {
+            run(strategy, spillDir);
+        }
+    }
+
+    private static void run(String strategy, Path spillDir) throws Exception {
+        InFlightTracker tracker = new InFlightTracker(CAPACITY);
+        MetricsCollector metrics = new MetricsCollector();
+        ScheduledExecutorService downstream = Executors.newScheduledThreadPool(4);
+
+        // Downstream acks each record after 0-2ms
+        Consumer<Record> dispatcher = record -> downstream.schedule(
+                tracker::complete, ThreadLocalRandom.current().nextLong(2_000), TimeUnit.MICROSECONDS);
+
+        AdmissionController controller = switch (strategy) {
+            case "BLOCK" -> new BlockingAdmissionController(tracker, dispatcher, metrics);
+            case "DROP" -> new DroppingAdmissionController(tracker, dispatcher, metrics);
+            default -> new SpillingAdmissionController(tracker, dispatcher, metrics, spillDir, 512L * 1024 * 1024);
+        };
+
+        long[][] latencies = new long[PRODUCERS][RECORDS_PER_PRODUCER];
+        Thread[] producers = new Thread[PRODUCERS];
+        long start = System.nanoTime();
+        for (int p = 0; p < PRODUCERS; p++) {
+            long[] samples = latencies[p];
+            producers[p] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < RECORDS_PER_PRODUCER; i++) {
+                    Record record = new Record(Map.of("n", i), "BENCH");
+                    long t0 = System.nanoTime();
+                    try {
+                        controller.submit(record);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    samples[i] = System.nanoTime() - t0;
+                }
+            });
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        long ingestNanos = System.nanoTime() - start;
+        controller.awaitReplayed();
+        tracker.awaitDrained();
+        controller.close();
+        downstream.shutdown();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-6s p50=%8.1fus p99=%10.1fus max=%10.1fus ingest=%6.2fs admitted=%,d dropped=%,d spilled=%,d%n",
+                strategy,
+                all[(int) (all.length * 0.50)] / 1e3,
+                all[(int) (all.length * 0.99)] / 1e3,
+                all[all.length - 1] / 1e3,
+                ingestNanos / 1e9,
+                metrics.getAdmitted(),
+                metrics.getDropped(),
+                metrics.getSpilled());
+    }
+}
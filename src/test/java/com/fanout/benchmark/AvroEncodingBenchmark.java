@@ -0,0 +1,94 @@
+package com.fanout.benchmark;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import com.fanout.transformation.AvroTransformer;
+import com.fanout.transformation.DataTransformer;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Compares the old payload-as-toString Avro encoding against the schema-driven transformer,
+ * reporting bytes and nanoseconds per record.
+ * Not part of the unit test run; launch main() from the test classpath.
+ */
+public class AvroEncodingBenchmark {
+    private static final int RECORDS = 200_000;
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Record[] records = generate();
+        DataTransformer legacy = new LegacyAvroTransformer();
+        DataTransformer avro = new AvroTransformer();
+        DataTransformer singleObject = new AvroTransformer(true);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            run("toString payload", legacy, records);
+            run("schema-driven", avro, records);
+            run("single-object", singleObject, records);
+        }
+    }
+
+    private static void run(String label, DataTransformer transformer, Record[] records) throws Exception {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (Record record : records) {
+            bytes += transformer.transform(record).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-18s %,8.1f bytes/record %,8.0f ns/record%n",
+                label, (double) bytes / records.length, (double) elapsed / records.length);
+    }
+
+    private static Record[] generate() {
+        RecordSchema schema = RecordSchema.of("id", "name", "email", "age", "score", "active");
+        Record[] records = new Record[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = new Record(schema, new Object[]{
+                    (long) i, "User " + i, "user" + i + "@example.com", 20 + i % 50, (i % 1000) / 10.0, i % 2 == 0
+            }, "BENCH");
+        }
+        return records;
+    }
+
+    /**
+     * The transformer as it was before schema-driven encoding
+     */
+    private static class LegacyAvroTransformer implements DataTransformer {
+        private final Schema schema = new Schema.Parser().parse("""
+                {"type": "record", "name": "DataRecord", "fields": [
+                    {"name": "id", "type": "string"},
+                    {"name": "timestamp", "type": "string"},
+                    {"name": "source", "type": "string"},
+                    {"name": "payload", "type": "string"}
+                ]}
+                """);
+        private final GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(schema);
+
+        @Override
+        public byte[] transform(Record record) throws Exception {
+            GenericRecord avroRecord = new GenericData.Record(schema);
+            avroRecord.put("id", record.getId());
+            avroRecord.put("timestamp", record.getTimestamp().toString());
+            avroRecord.put("source", record.getSource());
+            avroRecord.put("payload", record.getData().toString());
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+            writer.write(avroRecord, encoder);
+            encoder.flush();
+            return outputStream.toByteArray();
+        }
+
+        @Override
+        public String getType() {
+            return "AVRO_LEGACY";
+        }
+    }
+}
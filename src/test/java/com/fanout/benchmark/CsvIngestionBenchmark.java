@@ -0,0 +1,54 @@
+package com.fanout.benchmark;
+
+import com.fanout.ingestion.CsvDataSource;
+import com.fanout.ingestion.DataSource;
+import com.fanout.ingestion.MappedCsvDataSource;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Compares the commons-csv reader against the memory-mapped parallel reader.
+ * Pass a CSV path to use your own file, otherwise a synthetic one is generated.
+ * Not part of the unit test run; launch main() from the test classpath.
+ */
+public class CsvIngestionBenchmark {
+    private static final int GENERATED_ROWS = 2_000_000;
+    private static final int ITERATIONS = 3;
+
+    public static void main(String[] args) throws Exception {
+        Path file = args.length > 0 ? Path.of(args[0]) : generate();
+        System.out.printf("File: %s (%,d bytes)%n", file, Files.size(file));
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            run("commons-csv sequential", new CsvDataSource(file.toString()), false);
+            run("commons-csv .parallel()", new CsvDataSource(file.toString()), true);
+            run("mapped parallel", new MappedCsvDataSource(file.toString()), true);
+        }
+    }
+
+    private static void run(String label, DataSource source, boolean parallel) throws Exception {
+        long start = System.nanoTime();
+        long count;
+        try (Stream<?> stream = source.stream()) {
+            count = (parallel ? stream.parallel() : stream).count();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-24s %,10d records %,12.0f records/sec%n", label, count, count / seconds);
+    }
+
+    private static Path generate() throws Exception {
+        Path file = Files.createTempFile("csv-bench", ".csv");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("id,name,email,age,city,comment\n");
+            for (int i = 0; i < GENERATED_ROWS; i++) {
+                writer.write(i + ",User " + i + ",user" + i + "@example.com," + (20 + i % 50)
+                        + ",City" + (i % 100) + ",\"note, with comma " + i + "\"\n");
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,92 @@
+package com.fanout.benchmark;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import com.fanout.util.DeadLetterQueue;
+import com.fanout.util.DeadLetterQueueConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Dead letter writes from 8 sink threads during a simulated outage: the former per-record
+ * Files.writeString append against the group-committed queue under each fsync policy. Times
+ * cover handing every failure over and, for the queue, close() writing out the backlog.
+ * Not part of the unit test run; launch main() from the test classpath.
+ */
+public class DeadLetterQueueBenchmark {
+    private static final int THREADS = 8;
+    private static final int FAILURES_PER_THREAD = 25_000;
+
+    public static void main(String[] args) throws Exception {
+        Path root = Files.createTempDirectory("dlq-benchmark");
+        ProcessingResult failure = ProcessingResult.failure(
+                new Record(Map.of("id", "42", "name", "Alice", "email", "alice@test.com"), "BENCH"),
+                "REST_API", "HTTP error: 503", 0);
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "Warm-up" : "Measured");
+            Path legacy = Files.createDirectories(root.resolve("legacy-" + round));
+            ObjectMapper objectMapper = new ObjectMapper();
+            run("open/append per record", result -> appendPerRecord(objectMapper, legacy, result), failure, null);
+
+            for (DeadLetterQueueConfig.FsyncPolicy fsync : DeadLetterQueueConfig.FsyncPolicy.values()) {
+                DeadLetterQueueConfig config = new DeadLetterQueueConfig();
+                config.setFsync(fsync);
+                config.setMaxQueued(THREADS * FAILURES_PER_THREAD);
+                DeadLetterQueue dlq = new DeadLetterQueue(root.resolve(fsync + "-" + round).toString(), true, config);
+                dlq.start();
+                run("group commit, fsync " + fsync, dlq::writeFailedRecord, failure, dlq);
+            }
+        }
+    }
+
+    private static void run(String name, Consumer<ProcessingResult> write, ProcessingResult failure,
+                            DeadLetterQueue dlq) throws Exception {
+        Thread[] threads = new Thread[THREADS];
+        long begin = System.nanoTime();
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = Thread.ofPlatform().start(() -> {
+                for (int n = 0; n < FAILURES_PER_THREAD; n++) {
+                    write.accept(failure);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long handedOver = System.nanoTime() - begin;
+        if (dlq != null) {
+            dlq.close();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        int total = THREADS * FAILURES_PER_THREAD;
+        System.out.printf("  %-30s %,12.0f records/sec  %,8.2f us per caller write%n",
+                name, total / seconds, handedOver / 1e3 * THREADS / total);
+    }
+
+    private static void appendPerRecord(ObjectMapper objectMapper, Path directory, ProcessingResult result) {
+        try {
+            Map<String, Object> dlqEntry = new HashMap<>();
+            dlqEntry.put("recordId", result.getRecord().getId());
+            dlqEntry.put("sinkName", result.getSinkName());
+            dlqEntry.put("errorMessage", result.getErrorMessage());
+            dlqEntry.put("retryCount", result.getRecord().getRetryCount());
+            dlqEntry.put("failedAt", Instant.now().toString());
+            dlqEntry.put("originalData", result.getRecord().getData());
+            Files.writeString(directory.resolve("failed-records.jsonl"),
+                    objectMapper.writeValueAsString(dlqEntry) + "\n",
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
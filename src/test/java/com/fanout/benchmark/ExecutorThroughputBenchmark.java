@@ -0,0 +1,78 @@
+package com.fanout.benchmark;
+
+import com.fanout.model.Record;
+import com.fanout.model.SinkConfig;
+import com.fanout.orchestrator.ExecutorFactory;
+import com.fanout.sink.AbstractSink;
+import com.fanout.sink.SinkContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares sink throughput across executor types for blocking, latency-bound sends.
+ * Not part of the unit test run; launch main() from the test classpath.
+ */
+public class ExecutorThroughputBenchmark {
+    private static final int RECORDS = 20_000;
+    private static final int POOL_SIZE = 100;
+    private static final long SEND_LATENCY_MS = 2;
+
+    public static void main(String[] args) throws Exception {
+        List<Record> records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            records.add(new Record(Map.of("n", i), "BENCH"));
+        }
+
+        // Baseline: the common pool every sink used before it got its own executor
+        run("COMMON_POOL", ForkJoinPool.commonPool(), records);
+
+        for (String type : List.of("FIXED", "FORK_JOIN", "VIRTUAL")) {
+            ExecutorService executor = ExecutorFactory.create(type, POOL_SIZE, "bench-" + type);
+            try {
+                run(type, executor, records);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static void run(String label, Executor executor, List<Record> records) {
+        SleepingSink sink = new SleepingSink(executor);
+        long start = System.nanoTime();
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            futures[i] = sink.process(records.get(i));
+        }
+        CompletableFuture.allOf(futures).join();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-12s %,10.0f records/sec (%.2fs)%n", label, records.size() / seconds, seconds);
+    }
+
+    private static class SleepingSink extends AbstractSink {
+        SleepingSink(Executor executor) {
+            super(benchConfig(), new SinkContext(executor));
+        }
+
+        @Override
+        protected void sendToSink(byte[] data, int offset, int length, Record record) throws Exception {
+            Thread.sleep(SEND_LATENCY_MS);
+        }
+
+        private static SinkConfig benchConfig() {
+            SinkConfig config = new SinkConfig();
+            config.setName("BENCH");
+            config.setType("BENCH");
+            config.setRateLimit(10_000_000);
+            config.setTransformation("JSON");
+            return config;
+        }
+    }
+}
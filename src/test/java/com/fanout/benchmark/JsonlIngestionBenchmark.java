@@ -0,0 +1,56 @@
+package com.fanout.benchmark;
+
+import com.fanout.ingestion.DataSource;
+import com.fanout.ingestion.JsonlDataSource;
+import com.fanout.ingestion.MappedJsonlDataSource;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Compares the BufferedReader.lines() JSONL reader against the memory-mapped byte-level reader.
+ * Pass a JSONL path to use your own file, otherwise a synthetic one is generated.
+ * Not part of the unit test run; launch main() from the test classpath.
+ */
+public class JsonlIngestionBenchmark {
+    private static final int GENERATED_ROWS = 1_000_000;
+    private static final int ITERATIONS = 3;
+
+    public static void main(String[] args) throws Exception {
+        Path file = args.length > 0 ? Path.of(args[0]) : generate();
+        System.out.printf("File: %s (%,d bytes), %d cores%n",
+                file, Files.size(file), Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            run("lines() sequential", new JsonlDataSource(file.toString()), false);
+            run("lines() .parallel()", new JsonlDataSource(file.toString()), true);
+            run("mapped sequential", new MappedJsonlDataSource(file.toString()), false);
+            run("mapped parallel", new MappedJsonlDataSource(file.toString()), true);
+        }
+    }
+
+    private static void run(String label, DataSource source, boolean parallel) throws Exception {
+        long start = System.nanoTime();
+        long count;
+        try (Stream<?> stream = source.stream()) {
+            count = (parallel ? stream.parallel() : stream).count();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-20s %,10d records %,12.0f records/sec%n", label, count, count / seconds);
+    }
+
+    private static Path generate() throws Exception {
+        Path file = Files.createTempFile("jsonl-bench", ".jsonl");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < GENERATED_ROWS; i++) {
+                writer.write("{\"id\":" + i + ",\"name\":\"User " + i + "\",\"email\":\"user" + i
+                        + "@example.com\",\"age\":" + (20 + i % 50) + ",\"score\":" + (i % 1000) / 10.0
+                        + ",\"active\":" + (i % 2 == 0) + "}\n");
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,69 @@
+package com.fanout.benchmark;
+
+import com.fanout.resilience.RateLimiter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cost of taking a permit with 64 threads contending for one limiter: Guava's synchronized
+ * RateLimiter against the CAS-based one in resilience, blocking and non-blocking. The rate is
+ * set far above what the threads can take, so only the bookkeeping is measured.
+ * Not part of the unit test run; launch main() from the test classpath.
+ */
+public class RateLimiterBenchmark {
+    private static final int THREADS = 64;
+    private static final long DURATION_MS = 2_000;
+    private static final double RATE = 1e9;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "Warm-up" : "Measured");
+            com.google.common.util.concurrent.RateLimiter guava =
+                    com.google.common.util.concurrent.RateLimiter.create(RATE);
+            run("guava acquire()", () -> guava.acquire() >= 0);
+            RateLimiter blocking = RateLimiter.create(RATE);
+            run("cas acquire()", () -> blocking.acquire() >= 0);
+            RateLimiter reserving = RateLimiter.create(RATE);
+            run("cas reserve()", () -> reserving.reserve() >= 0);
+            RateLimiter trying = RateLimiter.create(RATE);
+            run("cas tryAcquire()", trying::tryAcquire);
+        }
+    }
+
+    private static void run(String name, BooleanSupplier acquire) throws Exception {
+        LongAdder permits = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        long[] deadline = new long[1];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long taken = 0;
+                while (System.nanoTime() < deadline[0]) {
+                    if (acquire.getAsBoolean()) {
+                        taken++;
+                    }
+                }
+                permits.add(taken);
+            });
+            threads[i].start();
+        }
+
+        long begin = System.nanoTime();
+        deadline[0] = begin + DURATION_MS * 1_000_000;
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long total = permits.sum();
+        System.out.printf("  %-18s %,14.0f permits/sec  %,8.1f ns/permit per thread%n",
+                name, total / seconds, seconds * 1e9 * THREADS / total);
+    }
+}
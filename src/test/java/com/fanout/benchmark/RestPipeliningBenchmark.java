@@ -0,0 +1,84 @@
+package com.fanout.benchmark;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import com.fanout.model.SinkConfig;
+import com.fanout.sink.RestApiSink;
+import com.fanout.sink.SinkContext;
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Throughput of the REST sink against a local endpoint with fixed latency, for growing in-flight
+ * windows on the same two sink threads. Throughput should track window / latency.
+ * Not part of the unit test run; launch main() from the test classpath.
+ */
+public class RestPipeliningBenchmark {
+    private static final long LATENCY_MS = 20;
+    private static final int RECORDS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ingest", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+
+        try {
+            for (int window : new int[]{1, 4, 16, 64}) {
+                run(server.getAddress().getPort(), window);
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void run(int port, int window) throws Exception {
+        SinkConfig config = new SinkConfig();
+        config.setName("REST_BENCH");
+        config.setType("REST");
+        config.setEndpoint("http://localhost:" + port + "/ingest");
+        config.setRateLimit(1_000_000);
+        config.setTimeoutMs(10_000);
+        config.setTransformation("JSON");
+        config.setMaxInFlight(window);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        RestApiSink sink = new RestApiSink(config, new SinkContext(executor));
+        sink.initialize();
+
+        int records = Math.min(RECORDS, window * 100);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[records];
+        long start = System.nanoTime();
+        for (int i = 0; i < records; i++) {
+            futures[i] = sink.process(new Record(Map.of("n", i, "payload", "x".repeat(64)), "BENCH"));
+        }
+        CompletableFuture.allOf(futures).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long failures = 0;
+        for (CompletableFuture<?> future : futures) {
+            if (!((ProcessingResult) future.join()).isSuccess()) {
+                failures++;
+            }
+        }
+        System.out.printf("window %3d: %,8.0f requests/sec (ideal %,6.0f), %d failed%n",
+                window, records / seconds, window * 1000.0 / LATENCY_MS, failures);
+
+        sink.shutdown();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,96 @@
+package com.fanout.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferPoolTest {
+
+    @Test
+    void testReleasedBufferIsReusedForTheSameSizeClass() {
+        // Arrange
+        BufferPool pool = new BufferPool(false, 4);
+        PooledBuffer first = pool.acquire(300);
+        ByteBuffer storage = first.storage();
+
+        // Act
+        first.release();
+        PooledBuffer second = pool.acquire(500);
+
+        // Assert
+        assertSame(storage, second.storage());
+        assertEquals(512, storage.capacity());
+        assertEquals(2, pool.getAcquired());
+        assertEquals(1, pool.getAllocated());
+        assertEquals(0.5, pool.getReuseRate(), 1e-9);
+    }
+
+    @Test
+    void testCopyOfExposesOnlyTheContent() {
+        // Arrange
+        BufferPool pool = new BufferPool(true, 4);
+        byte[] bytes = "xxhelloxx".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        PooledBuffer buffer = pool.copyOf(bytes, 2, 5);
+
+        // Assert
+        assertTrue(buffer.nioBuffer().isDirect());
+        assertEquals(5, buffer.nioBuffer().remaining());
+        assertEquals("hello", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testStorageReturnsOnlyAfterTheLastRelease() {
+        // Arrange
+        BufferPool pool = new BufferPool(false, 4);
+        PooledBuffer buffer = pool.acquire(10).retain();
+
+        // Act
+        boolean firstReturned = buffer.release();
+        long outstandingAfterFirst = pool.getOutstanding();
+        boolean secondReturned = buffer.release();
+
+        // Assert
+        assertFalse(firstReturned);
+        assertEquals(1, outstandingAfterFirst);
+        assertTrue(secondReturned);
+        assertEquals(0, pool.getOutstanding());
+        assertThrows(IllegalStateException.class, buffer::release);
+        assertThrows(IllegalStateException.class, buffer::nioBuffer);
+    }
+
+    @Test
+    void testLeakDetectionReportsUnreleasedBuffers() {
+        // Arrange
+        BufferPool pool = new BufferPool(false, 4, true);
+        PooledBuffer released = pool.acquire(10);
+        pool.acquire(20);
+
+        // Act
+        released.release();
+
+        // Assert
+        assertEquals(1, pool.getLeaks().size());
+        IllegalStateException e = assertThrows(IllegalStateException.class, pool::assertNoLeaks);
+        assertTrue(e.getCause().getMessage().contains("20 bytes"));
+    }
+
+    @Test
+    void testOversizedBuffersAreNotPooled() {
+        // Arrange
+        BufferPool pool = new BufferPool(false, 4);
+        int size = (1 << BufferPool.MAX_CLASS_SHIFT) + 1;
+
+        // Act
+        pool.acquire(size).release();
+        pool.acquire(size).release();
+
+        // Assert
+        assertEquals(2, pool.getAllocated());
+        assertEquals(0, pool.getOutstanding());
+    }
+}
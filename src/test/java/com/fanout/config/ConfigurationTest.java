@@ -0,0 +1,31 @@
+package com.fanout.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurationTest {
+
+    @Test
+    void testFixedWidthSourceWithoutLayoutIsRejected() {
+        // Arrange
+        Configuration config = new Configuration();
+        Map<String, Object> source = new HashMap<>();
+        source.put("type", "FIXED_WIDTH");
+        source.put("filePath", "data/extract.dat");
+        config.setSource(source);
+
+        // Act
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class, config::getFixedWidthLayout);
+        source.put("layout", List.of());
+        IllegalArgumentException empty = assertThrows(IllegalArgumentException.class, config::getFixedWidthLayout);
+
+        // Assert
+        assertEquals("fixed-width source requires a layout", missing.getMessage());
+        assertEquals("fixed-width source requires a layout", empty.getMessage());
+    }
+}
@@ -1,6 +1,7 @@
 package com.fanout.ingestion;
 
 import com.fanout.model.Record;
+import com.fanout.util.Tracer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -43,6 +44,28 @@ class CsvDataSourceTest {
         dataSource.close();
     }
 
+    @Test
+    void testTracedStreamRecordsParseSpans() throws Exception {
+        // Arrange
+        Path csvFile = tempDir.resolve("traced.csv");
+        Files.writeString(csvFile, "name\nAlice\nBob\nCarol\n");
+        CsvDataSource dataSource = new CsvDataSource(csvFile.toString());
+        Tracer tracer = new Tracer(1, 16, false);
+
+        // Act
+        List<Record> records;
+        try (var stream = dataSource.stream(tracer)) {
+            records = stream.collect(Collectors.toList());
+        }
+
+        // Assert
+        assertEquals(3, records.size());
+        List<Tracer.Span> spans = tracer.snapshot();
+        assertEquals(3, spans.size());
+        assertTrue(spans.stream().allMatch(span -> span.getName().equals("parse") && span.getSink() == null));
+        assertEquals(records.get(2).getSequence(), spans.get(2).getRecordSequence());
+    }
+
     @Test
     void testGetType() {
         CsvDataSource dataSource = new CsvDataSource("dummy.csv");
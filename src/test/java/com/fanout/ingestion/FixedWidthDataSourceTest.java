@@ -0,0 +1,118 @@
+package com.fanout.ingestion;
+
+import com.fanout.model.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedWidthDataSourceTest {
+
+    private static final List<FixedWidthColumn> LAYOUT = List.of(
+            new FixedWidthColumn("id", 0, 6, FixedWidthColumn.Type.LONG, true),
+            new FixedWidthColumn("name", 6, 10, FixedWidthColumn.Type.STRING, true),
+            new FixedWidthColumn("amount", 16, 8, FixedWidthColumn.Type.DECIMAL, true));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReadsTypedColumns() throws Exception {
+        Path file = tempDir.resolve("extract.dat");
+        // Last record has no trailing newline
+        Files.writeString(file, String.format("%06d%-10s%8s\n", 42, "Alice", "12.50")
+                + String.format("%6d%-10s%8s", -7, "Bob", "3.00"));
+
+        FixedWidthDataSource dataSource = new FixedWidthDataSource(
+                file.toString(), LAYOUT, null, 0, StandardCharsets.ISO_8859_1);
+        List<Record> records = dataSource.stream().collect(Collectors.toList());
+        dataSource.close();
+
+        assertEquals(2, records.size());
+        assertEquals(Map.of("id", 42L, "name", "Alice", "amount", new BigDecimal("12.50")), records.get(0).getData());
+        assertEquals(-7L, records.get(1).getData().get("id"));
+        assertEquals("Bob", records.get(1).getData().get("name"));
+    }
+
+    @Test
+    void testMaterializesOnlySelectedColumns() throws Exception {
+        Path file = tempDir.resolve("projected.dat");
+        Files.writeString(file, String.format("%06d%-10s%8s\n", 1, "Alice", "12.50"));
+
+        FixedWidthDataSource dataSource = new FixedWidthDataSource(
+                file.toString(), LAYOUT, List.of("id"), 0, StandardCharsets.ISO_8859_1);
+        List<Record> records = dataSource.stream().collect(Collectors.toList());
+        dataSource.close();
+
+        assertEquals(Map.of("id", 1L), records.get(0).getData());
+    }
+
+    @Test
+    void testRejectsSelectedColumnsMissingFromTheLayout() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> new FixedWidthDataSource(
+                tempDir.resolve("any.dat").toString(), LAYOUT, List.of("id", "nmae"), 0, StandardCharsets.ISO_8859_1));
+
+        assertTrue(error.getMessage().contains("nmae"));
+    }
+
+    @Test
+    void testRejectsSignsWithoutDigitsAndOverflow() throws Exception {
+        List<FixedWidthColumn> layout = List.of(
+                new FixedWidthColumn("value", 0, 20, FixedWidthColumn.Type.LONG, true));
+
+        assertEquals(Long.MIN_VALUE, readOne(layout, String.valueOf(Long.MIN_VALUE)).get("value"));
+        assertEquals(Long.MAX_VALUE, readOne(layout, "+" + Long.MAX_VALUE).get("value"));
+        assertThrows(NumberFormatException.class, () -> readOne(layout, "-"));
+        assertThrows(NumberFormatException.class, () -> readOne(layout, "+"));
+        assertThrows(NumberFormatException.class, () -> readOne(layout, "99999999999999999999"));
+        assertThrows(NumberFormatException.class, () -> readOne(List.of(
+                new FixedWidthColumn("value", 0, 20, FixedWidthColumn.Type.INT, true)), "2147483648"));
+    }
+
+    @Test
+    void testParallelSplitsCoverEveryRecord() throws Exception {
+        Path file = tempDir.resolve("large.dat");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            content.append(String.format("%6d%-10s%8s\r\n", i, "n" + i, i + ".25"));
+        }
+        Files.writeString(file, content);
+
+        // CRLF records are 26 bytes; 100-record windows and small splits exercise remapping
+        FixedWidthDataSource dataSource = new FixedWidthDataSource(
+                file.toString(), LAYOUT, null, 26, StandardCharsets.ISO_8859_1, 2_600, 50);
+        List<Record> records;
+        try (Stream<Record> stream = dataSource.stream()) {
+            records = stream.parallel()
+                    .sorted(Comparator.comparing(record -> (Long) record.getData().get("id")))
+                    .collect(Collectors.toList());
+        }
+
+        assertEquals(5_000, records.size());
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals((long) i, records.get(i).getData().get("id"));
+            assertEquals("n" + i, records.get(i).getData().get("name"));
+        }
+    }
+
+    private Map<String, Object> readOne(List<FixedWidthColumn> layout, String field) throws Exception {
+        Path file = tempDir.resolve("one.dat");
+        Files.writeString(file, String.format("%-20s\n", field));
+
+        FixedWidthDataSource dataSource = new FixedWidthDataSource(
+                file.toString(), layout, null, 0, StandardCharsets.ISO_8859_1);
+        try (Stream<Record> stream = dataSource.stream()) {
+            return stream.findFirst().orElseThrow().getData();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.fanout.ingestion;
+
+import com.fanout.model.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCsvDataSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testParsesQuotedFields() throws Exception {
+        Path csvFile = tempDir.resolve("quoted.csv");
+        Files.writeString(csvFile, "name,comment\r\n"
+                + "Alice,\"likes, commas\"\r\n"
+                + "Bob,\"said \"\"hi\"\"\nover two lines\"\r\n"
+                + "Carol,plain");
+
+        MappedCsvDataSource dataSource = new MappedCsvDataSource(csvFile.toString());
+        List<Record> records = dataSource.stream().collect(Collectors.toList());
+        dataSource.close();
+
+        assertEquals(3, records.size());
+        assertEquals("likes, commas", records.get(0).getData().get("comment"));
+        assertEquals("said \"hi\"\nover two lines", records.get(1).getData().get("comment"));
+        assertEquals("Carol", records.get(2).getData().get("name"));
+        assertEquals("plain", records.get(2).getData().get("comment"));
+    }
+
+    @Test
+    void testParallelSplitsMatchCommonsParser() throws Exception {
+        Path csvFile = tempDir.resolve("large.csv");
+        StringBuilder csv = new StringBuilder("id,name,note\n");
+        for (int i = 0; i < 2_000; i++) {
+            csv.append(i).append(",user").append(i).append(',');
+            csv.append(i % 3 == 0 ? "\"multi\nline, \"\"quoted\"\"\"" : "note" + i).append('\n');
+        }
+        Files.writeString(csvFile, csv);
+
+        Set<Map<String, Object>> expected;
+        CsvDataSource reference = new CsvDataSource(csvFile.toString());
+        try (Stream<Record> stream = reference.stream()) {
+            expected = stream.map(Record::getData).collect(Collectors.toSet());
+        }
+
+        // Tiny windows and splits force remapping and many quote-aware split points
+        MappedCsvDataSource mapped = new MappedCsvDataSource(csvFile.toString(), 4096, 256);
+        List<Record> records;
+        try (Stream<Record> stream = mapped.stream()) {
+            records = stream.parallel().collect(Collectors.toList());
+        }
+
+        assertEquals(2_000, records.size());
+        assertEquals(expected, records.stream().map(Record::getData).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void testSplittingDownToTheMinimumKeepsRecordsWholeAndInOrder() throws Exception {
+        Path csvFile = tempDir.resolve("split.csv");
+        StringBuilder csv = new StringBuilder("id,note\n");
+        for (int i = 0; i < 1_000; i++) {
+            csv.append(i).append(',').append(i % 2 == 0 ? "\"a\nb\"" : "c").append('\n');
+        }
+        Files.writeString(csvFile, csv);
+
+        // Split every part as far as it goes, so the inner splits use record starts found earlier
+        List<Record> records = new ArrayList<>();
+        try (Stream<Record> stream = new MappedCsvDataSource(csvFile.toString(), 4096, 64).stream()) {
+            collectSplits(stream.spliterator(), records);
+        }
+
+        assertEquals(1_000, records.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(String.valueOf(i), records.get(i).get("id"));
+            assertEquals(i % 2 == 0 ? "a\nb" : "c", records.get(i).get("note"));
+        }
+    }
+
+    private static void collectSplits(Spliterator<Record> spliterator, List<Record> records) {
+        Spliterator<Record> prefix = spliterator.trySplit();
+        if (prefix != null) {
+            collectSplits(prefix, records);
+            collectSplits(spliterator, records);
+        } else {
+            spliterator.forEachRemaining(records::add);
+        }
+    }
+}
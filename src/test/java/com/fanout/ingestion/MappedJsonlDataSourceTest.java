@@ -0,0 +1,71 @@
+package com.fanout.ingestion;
+
+import com.fanout.model.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedJsonlDataSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testParsesTypedValuesAndSkipsBlankLines() throws Exception {
+        Path jsonlFile = tempDir.resolve("typed.jsonl");
+        Files.writeString(jsonlFile, "{\"name\":\"Alice\",\"age\":25,\"score\":1.5,\"active\":true}\r\n"
+                + "\n"
+                + "   \n"
+                + "{\"name\":\"Bob\",\"age\":null,\"tags\":[\"a\",\"b\"],\"address\":{\"city\":\"Oslo\"}}");
+
+        MappedJsonlDataSource dataSource = new MappedJsonlDataSource(jsonlFile.toString());
+        List<Record> records = dataSource.stream().collect(Collectors.toList());
+        dataSource.close();
+
+        assertEquals(2, records.size());
+        Map<String, Object> alice = records.get(0).getData();
+        assertEquals(25, alice.get("age"));
+        assertEquals(1.5, alice.get("score"));
+        assertEquals(true, alice.get("active"));
+
+        Map<String, Object> bob = records.get(1).getData();
+        assertTrue(bob.containsKey("age"));
+        assertNull(bob.get("age"));
+        assertEquals(List.of("a", "b"), bob.get("tags"));
+        assertEquals(Map.of("city", "Oslo"), bob.get("address"));
+    }
+
+    @Test
+    void testParallelSplitsMatchLineReader() throws Exception {
+        Path jsonlFile = tempDir.resolve("large.jsonl");
+        StringBuilder jsonl = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            jsonl.append("{\"id\":").append(i).append(",\"name\":\"user").append(i).append("\"}\n");
+        }
+        Files.writeString(jsonlFile, jsonl);
+
+        Set<Map<String, Object>> expected;
+        JsonlDataSource reference = new JsonlDataSource(jsonlFile.toString());
+        try (Stream<Record> stream = reference.stream()) {
+            expected = stream.map(Record::getData).collect(Collectors.toSet());
+        }
+
+        MappedJsonlDataSource mapped = new MappedJsonlDataSource(jsonlFile.toString(), 4096, 256);
+        List<Record> records;
+        try (Stream<Record> stream = mapped.stream()) {
+            records = stream.parallel().collect(Collectors.toList());
+        }
+
+        assertEquals(2_000, records.size());
+        assertEquals(expected, records.stream().map(Record::getData).collect(Collectors.toSet()));
+    }
+}
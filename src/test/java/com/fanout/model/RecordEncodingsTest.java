@@ -0,0 +1,66 @@
+package com.fanout.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordEncodingsTest {
+
+    @Test
+    void testConcurrentCallersEncodeOnce() throws Exception {
+        // Arrange
+        Record record = new Record(Map.of("n", 1), "TEST");
+        AtomicInteger encodings = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return record.getEncodings().computeIfAbsent(0, () -> {
+                    encodings.incrementAndGet();
+                    Thread.sleep(20);
+                    return new byte[]{42};
+                });
+            }));
+        }
+        start.countDown();
+
+        // Assert
+        byte[] first = results.get(0).get();
+        for (Future<byte[]> result : results) {
+            assertSame(first, result.get());
+        }
+        assertEquals(1, encodings.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void testRetryCopySharesEncodingsAndFailuresAreNotCached() throws Exception {
+        // Arrange
+        Record record = new Record(Map.of("n", 1), "TEST");
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> record.getEncodings().computeIfAbsent(1, () -> {
+            throw new IllegalStateException("encoder failed");
+        }));
+        byte[] encoded = record.getEncodings().computeIfAbsent(1, () -> new byte[]{1});
+        Record retried = record.withIncrementedRetry();
+
+        // Assert
+        assertSame(encoded, retried.getEncodings().getIfPresent(1));
+        assertSame(encoded, retried.getEncodings().computeIfAbsent(1, () -> new byte[]{2}));
+        assertNull(retried.getEncodings().getIfPresent(2));
+    }
+}
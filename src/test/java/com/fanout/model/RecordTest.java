@@ -0,0 +1,73 @@
+package com.fanout.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordTest {
+
+    @Test
+    void testDataViewFollowsSchemaAndAllowsNulls() {
+        // Arrange
+        RecordSchema schema = RecordSchema.of("name", "email", "age");
+
+        // Act
+        Record record = new Record(schema, new Object[]{"Alice", null, 30}, "TEST");
+        Map<String, Object> data = record.getData();
+
+        // Assert
+        assertEquals(List.of("name", "email", "age"), List.copyOf(data.keySet()));
+        assertEquals("Alice", data.get("name"));
+        assertTrue(data.containsKey("email"));
+        assertNull(data.get("email"));
+        assertFalse(data.containsKey("phone"));
+        assertEquals(30, record.get(2));
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("name", "Alice");
+        expected.put("email", null);
+        expected.put("age", 30);
+        assertEquals(expected, data);
+        assertThrows(UnsupportedOperationException.class, () -> data.put("age", 31));
+    }
+
+    @Test
+    void testIdsAreUniqueAndSurviveRetries() {
+        // Arrange
+        RecordSchema schema = RecordSchema.of("value");
+        Record first = new Record(schema, new Object[]{1}, "TEST");
+        Record second = new Record(schema, new Object[]{2}, "TEST");
+
+        // Act
+        Record retried = first.withIncrementedRetry();
+
+        // Assert
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(first.getId(), retried.getId());
+        assertEquals(first, retried);
+        assertEquals(1, retried.getRetryCount());
+        assertSame(first.getSchema(), retried.getSchema());
+        assertEquals(first.getTimestampMillis(), retried.getTimestampMillis());
+    }
+
+    @Test
+    void testSchemaCacheSharesSchemasBetweenRecords() {
+        // Arrange
+        RecordSchema.Cache cache = new RecordSchema.Cache();
+
+        // Act
+        RecordSchema first = cache.get(List.of("id", "name"));
+        RecordSchema second = cache.get(new ArrayList<>(List.of("id", "name")));
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, first.indexOf("name"));
+        assertEquals(-1, first.indexOf("missing"));
+        assertThrows(IllegalArgumentException.class, () -> RecordSchema.of("id", "id"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.fanout.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightTrackerTest {
+
+    @Test
+    void testAdmissionIsBoundedByCapacity() throws Exception {
+        InFlightTracker tracker = new InFlightTracker(2);
+
+        assertTrue(tracker.tryAdmit(0, TimeUnit.MILLISECONDS));
+        assertTrue(tracker.tryAdmit(0, TimeUnit.MILLISECONDS));
+        assertFalse(tracker.tryAdmit(10, TimeUnit.MILLISECONDS));
+        assertEquals(2, tracker.getInFlight());
+
+        tracker.complete();
+        assertTrue(tracker.tryAdmit(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testDrainReturnsWhenLastRecordCompletes() throws Exception {
+        InFlightTracker tracker = new InFlightTracker(10);
+        tracker.admit();
+        tracker.admit();
+
+        CompletableFuture<Void> drain = CompletableFuture.runAsync(() -> {
+            try {
+                tracker.awaitDrained();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        tracker.complete();
+        Thread.sleep(50);
+        assertFalse(drain.isDone());
+
+        tracker.complete();
+        drain.get(1, TimeUnit.SECONDS);
+        assertEquals(0, tracker.getInFlight());
+    }
+}
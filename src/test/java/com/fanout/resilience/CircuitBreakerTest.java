@@ -0,0 +1,104 @@
+package com.fanout.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final List<String> transitions = new CopyOnWriteArrayList<>();
+
+    @Test
+    void testOpensOnFailureRateAndRecoversThroughHalfOpen() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("TEST", config(), this::onTransition);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onResult(1_000, i % 2 == 0);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+
+        Thread.sleep(60);
+
+        // Only the configured number of trial calls are let through
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onResult(1_000, true);
+        breaker.onResult(1_000, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    void testOpensOnSlowCallRate() {
+        CircuitBreaker breaker = new CircuitBreaker("TEST", config(), this::onTransition);
+
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onResult(20_000_000, true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testFailedTrialReopens() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("TEST", config(), this::onTransition);
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onResult(1_000, false);
+        }
+        Thread.sleep(60);
+
+        breaker.tryAcquirePermission();
+        breaker.tryAcquirePermission();
+        breaker.onResult(1_000, false);
+        breaker.onResult(1_000, true);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testReleasedTrialPermissionIsHandedOutAgain() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("TEST", config(), this::onTransition);
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onResult(1_000, false);
+        }
+        Thread.sleep(60);
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        // One trial call never reached the downstream, so another takes its place
+        breaker.releasePermission();
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onResult(1_000, true);
+        breaker.onResult(1_000, true);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private CircuitBreakerConfig config() {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setFailureRateThreshold(50);
+        config.setSlowCallRateThreshold(50);
+        config.setSlowCallDurationMs(10);
+        config.setWindowSize(20);
+        config.setMinimumCalls(10);
+        config.setOpenDurationMs(50);
+        config.setHalfOpenCalls(2);
+        return config;
+    }
+
+    private void onTransition(String name, CircuitBreaker.State from, CircuitBreaker.State to) {
+        transitions.add(from + "->" + to);
+    }
+}
@@ -0,0 +1,103 @@
+package com.fanout.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    private static final long BASE_RTT = 10_000_000;
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Integer> changes = new ArrayList<>();
+
+    @Test
+    void testTracksDownstreamCapacityAsItChanges() {
+        ConcurrencyLimiter limiter = limiter((name, from, to) -> changes.add(to));
+
+        // A downstream serving `capacity` calls at once, queueing the rest
+        run(limiter, 40, 1, 100);
+        int fast = limiter.getLimit();
+        assertTrue(fast >= 40 && fast <= 50, "limit " + fast);
+
+        run(limiter, 10, 1, 100);
+        int slow = limiter.getLimit();
+        assertTrue(slow >= 10 && slow <= 20, "limit " + slow);
+
+        run(limiter, 40, 1, 100);
+        assertTrue(limiter.getLimit() >= 40, "limit " + limiter.getLimit());
+        assertEquals(limiter.getLimit(), changes.get(changes.size() - 1));
+    }
+
+    @Test
+    void testRecoversWhenBaseLatencyMovesUp() {
+        ConcurrencyLimiter limiter = limiter(null);
+        run(limiter, 40, 1, 100);
+
+        // Same capacity at twice the latency reads as a queue until a probe re-measures it
+        run(limiter, 40, 2, 2_000);
+
+        assertTrue(limiter.getLimit() >= 40, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void testBacksOffMultiplicativelyOncePerRoundTrip() {
+        ConcurrencyLimiter limiter = limiter(null);
+        sample(limiter, BASE_RTT, 20, false);
+
+        for (int i = 0; i < 3; i++) {
+            sample(limiter, BASE_RTT, 20, true);
+        }
+        // Failures of calls started before the last cut don't cut again
+        now.addAndGet(1);
+        limiter.onSample(BASE_RTT, 20, true);
+
+        // 20 * 0.9^3
+        assertEquals(14, limiter.getLimit());
+    }
+
+    @Test
+    void testDoesNotGrowWhileTrafficIsLight() {
+        ConcurrencyLimiter limiter = limiter(null);
+
+        for (int i = 0; i < 100; i++) {
+            sample(limiter, BASE_RTT, 2, false);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void testRejectsInvalidBounds() {
+        ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+        config.setMinLimit(0);
+
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter("TEST", config, null));
+    }
+
+    /**
+     * Keep the limiter saturated against the downstream, one sample per round trip
+     */
+    private void run(ConcurrencyLimiter limiter, int capacity, int latencyFactor, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int inFlight = limiter.getLimit();
+            sample(limiter, latencyFactor * BASE_RTT * Math.max(inFlight, capacity) / capacity, inFlight, false);
+        }
+    }
+
+    private void sample(ConcurrencyLimiter limiter, long rtt, int inFlight, boolean dropped) {
+        now.addAndGet(rtt);
+        limiter.onSample(rtt, inFlight, dropped);
+    }
+
+    private ConcurrencyLimiter limiter(ConcurrencyLimiter.LimitListener listener) {
+        ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+        config.setInitialLimit(20);
+        config.setMaxLimit(200);
+        return new ConcurrencyLimiter("TEST", config, listener, now::get);
+    }
+}
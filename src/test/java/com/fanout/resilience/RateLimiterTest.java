@@ -0,0 +1,75 @@
+package com.fanout.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void testBurstThenRefillsAtRate() {
+        RateLimiter limiter = new RateLimiter(10, 3, now::get);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        // Idle time only banks up to the burst
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void testReserveReturnsGrowingDelays() {
+        RateLimiter limiter = new RateLimiter(10, 1, now::get);
+        long interval = TimeUnit.MILLISECONDS.toNanos(100);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(interval, limiter.reserve());
+        assertEquals(2 * interval, limiter.reserve());
+
+        // Reserved permits are spoken for, so nothing is free until they have passed
+        now.addAndGet(2 * interval);
+        assertFalse(limiter.tryAcquire());
+        now.addAndGet(interval);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testAcquireAsyncCompletesAfterDelay() {
+        RateLimiter limiter = new RateLimiter(20, 1);
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(limiter.acquireAsync(executor).isDone());
+
+            long start = System.nanoTime();
+            CompletableFuture<Void> delayed = limiter.acquireAsync(executor);
+            assertFalse(delayed.isDone());
+            delayed.join();
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(10, 0));
+    }
+}
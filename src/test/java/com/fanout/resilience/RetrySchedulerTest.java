@@ -0,0 +1,59 @@
+package com.fanout.resilience;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetrySchedulerTest {
+
+    private final Record record = new Record(Map.of("n", 1), "TEST");
+    private final ProcessingResult failed = ProcessingResult.retry(record, "SINK", "boom", 1);
+
+    @Test
+    void testRetryRunsAfterDelay() throws Exception {
+        try (RetryScheduler scheduler = new RetryScheduler(r -> fail("nothing should be abandoned"))) {
+            long start = System.nanoTime();
+            CompletableFuture<ProcessingResult> result = scheduler.schedule(failed, 50,
+                    () -> CompletableFuture.completedFuture(ProcessingResult.success(record, "SINK", 1)));
+
+            assertTrue(result.get(1, TimeUnit.SECONDS).isSuccess());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    @Test
+    void testCloseAbandonsPendingRetries() throws Exception {
+        List<ProcessingResult> abandoned = new CopyOnWriteArrayList<>();
+        RetryScheduler scheduler = new RetryScheduler(abandoned::add);
+        CompletableFuture<ProcessingResult> result = scheduler.schedule(failed, 60_000,
+                () -> CompletableFuture.failedFuture(new AssertionError("should not run")));
+
+        scheduler.close();
+
+        assertEquals(1, abandoned.size());
+        assertTrue(result.get(1, TimeUnit.SECONDS).isFailure());
+        assertSame(record, abandoned.get(0).getRecord());
+    }
+
+    @Test
+    void testBackoffGrowsAndIsCapped() {
+        BackoffPolicy policy = new BackoffPolicy(100, 1_000, 2.0, 0);
+
+        assertEquals(100, policy.delayMillis(1));
+        assertEquals(200, policy.delayMillis(2));
+        assertEquals(400, policy.delayMillis(3));
+        assertEquals(1_000, policy.delayMillis(10));
+
+        BackoffPolicy jittered = new BackoffPolicy(100, 1_000, 2.0, 0.5);
+        long delay = jittered.delayMillis(2);
+        assertTrue(delay >= 100 && delay <= 200);
+    }
+}
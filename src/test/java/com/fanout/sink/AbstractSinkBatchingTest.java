@@ -0,0 +1,102 @@
+package com.fanout.sink;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import com.fanout.model.SinkConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbstractSinkBatchingTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testFlushesOnBatchSizeAndLinger() throws Exception {
+        RecordingSink sink = new RecordingSink(batchConfig(3, 50), false);
+
+        List<CompletableFuture<ProcessingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            futures.add(sink.process(new Record(Map.of("n", i), "TEST")));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // Two full batches by size, the remainder flushed by linger
+        assertEquals(List.of(3, 3, 1), sink.batchSizes.stream().sorted(Comparator.reverseOrder()).toList());
+        for (CompletableFuture<ProcessingResult> future : futures) {
+            assertTrue(future.get().isSuccess());
+        }
+    }
+
+    @Test
+    void testFailedBatchYieldsPerRecordRetries() throws Exception {
+        RecordingSink sink = new RecordingSink(batchConfig(2, 1_000), true);
+
+        Record first = new Record(Map.of("n", 1), "TEST");
+        Record second = new Record(Map.of("n", 2), "TEST");
+        CompletableFuture<ProcessingResult> firstFuture = sink.process(first);
+        CompletableFuture<ProcessingResult> secondFuture = sink.process(second);
+        ProcessingResult firstResult = firstFuture.get(5, TimeUnit.SECONDS);
+        ProcessingResult secondResult = secondFuture.get(5, TimeUnit.SECONDS);
+
+        assertTrue(firstResult.shouldRetry());
+        assertTrue(secondResult.shouldRetry());
+        assertSame(first, firstResult.getRecord());
+        assertSame(second, secondResult.getRecord());
+    }
+
+    private SinkConfig batchConfig(int batchSize, long lingerMs) {
+        SinkConfig config = new SinkConfig();
+        config.setName("BATCH_TEST");
+        config.setType("TEST");
+        config.setRateLimit(100_000);
+        config.setRetryAttempts(3);
+        config.setTransformation("JSON");
+        config.setBatchSize(batchSize);
+        config.setLingerMs(lingerMs);
+        return config;
+    }
+
+    private class RecordingSink extends AbstractSink {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final boolean fail;
+
+        RecordingSink(SinkConfig config, boolean fail) {
+            super(config, new SinkContext(executor, scheduler));
+            this.fail = fail;
+        }
+
+        @Override
+        protected void sendToSink(byte[] data, int offset, int length, Record record) {
+            throw new AssertionError("batching sink should not send record by record");
+        }
+
+        @Override
+        protected void sendBatch(List<ByteBuffer> data, List<Record> records) {
+            batchSizes.add(records.size());
+            if (fail) {
+                throw new RuntimeException("batch rejected");
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.fanout.sink;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import com.fanout.model.SinkConfig;
+import com.fanout.resilience.ConcurrencyLimitConfig;
+import com.fanout.resilience.ConcurrencyLimiter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbstractSinkConcurrencyLimitTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testLimitFollowsDownstreamCapacity() throws Exception {
+        List<Integer> published = new ArrayList<>();
+        ConcurrencyLimitConfig limitConfig = new ConcurrencyLimitConfig();
+        limitConfig.setInitialLimit(10);
+        limitConfig.setMaxLimit(100);
+        // The base latency never moves, so no probes that would halve the limit mid-phase
+        limitConfig.setProbeMultiplier(1000);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("LIMIT_TEST", limitConfig,
+                (name, from, to) -> {
+                    synchronized (published) {
+                        published.add(to);
+                    }
+                });
+        SinkContext context = new SinkContext(executor, scheduler);
+        context.setConcurrencyLimiter(limiter);
+        QueueingSink sink = new QueueingSink(context);
+
+        // Healthy downstream serving 20 calls at once
+        sink.capacity = 20;
+        runPhase(sink, 400);
+        int healthy = limiter.getLimit();
+        assertTrue(healthy >= 15, "limit " + healthy);
+
+        // It degrades to 4; queueing there would only add latency
+        sink.capacity = 4;
+        sink.peakInFlight.set(0);
+        runPhase(sink, 300);
+        // At most a handful of calls beyond what it can serve are left queued there
+        int degraded = limiter.getLimit();
+        assertTrue(degraded <= 10 && degraded < healthy, "limit " + degraded + " after " + healthy);
+
+        // Headroom comes back and the limit grows into it
+        sink.capacity = 20;
+        runPhase(sink, 400);
+        assertTrue(limiter.getLimit() >= 15, "limit " + limiter.getLimit());
+        assertTrue(sink.peakInFlight.get() <= 100);
+        synchronized (published) {
+            assertEquals(limiter.getLimit(), published.get(published.size() - 1));
+        }
+    }
+
+    private static void runPhase(QueueingSink sink, int records) throws Exception {
+        List<CompletableFuture<ProcessingResult>> futures = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            futures.add(sink.process(new Record(Map.of("n", i), "TEST")));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+        for (CompletableFuture<ProcessingResult> future : futures) {
+            assertTrue(future.get().isSuccess());
+        }
+    }
+
+    /**
+     * Fake downstream that serves `capacity` calls in parallel at a fixed latency, so each call
+     * beyond that stretches the latency of all of them
+     */
+    private class QueueingSink extends AbstractSink {
+        private static final long LATENCY_MS = 20;
+
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger peakInFlight = new AtomicInteger();
+        volatile int capacity;
+
+        QueueingSink(SinkContext context) {
+            super(config(), context);
+        }
+
+        @Override
+        protected void sendToSink(byte[] data, int offset, int length, Record record) {
+            throw new AssertionError("sends go through sendAsync");
+        }
+
+        @Override
+        protected CompletableFuture<Void> sendAsync(ByteBuffer data, Record record) {
+            int current = inFlight.incrementAndGet();
+            peakInFlight.accumulateAndGet(current, Math::max);
+            long latencyMs = LATENCY_MS * Math.max(current, capacity) / capacity;
+            return CompletableFuture.runAsync(inFlight::decrementAndGet,
+                    CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS, executor));
+        }
+    }
+
+    private static SinkConfig config() {
+        SinkConfig config = new SinkConfig();
+        config.setName("LIMIT_TEST");
+        config.setType("TEST");
+        config.setRateLimit(1_000_000);
+        config.setRetryAttempts(3);
+        config.setTransformation("JSON");
+        return config;
+    }
+}
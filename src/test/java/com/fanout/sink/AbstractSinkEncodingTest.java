@@ -0,0 +1,155 @@
+package com.fanout.sink;
+
+import com.fanout.buffer.BufferPool;
+import com.fanout.model.Record;
+import com.fanout.model.SinkConfig;
+import com.fanout.transformation.DataTransformer;
+import com.fanout.transformation.TransformerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbstractSinkEncodingTest {
+
+    private static final AtomicInteger transforms = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSinksSharingAFormatTransformOncePerRecord() throws Exception {
+        // Arrange
+        TransformerFactory.registerCustomTransformer(new CountingTransformer());
+        CapturingSink first = new CapturingSink("FIRST");
+        CapturingSink second = new CapturingSink("SECOND");
+        Record record = new Record(Map.of("n", 1), "TEST");
+        transforms.set(0);
+
+        // Act
+        first.process(record).get(5, TimeUnit.SECONDS);
+        second.process(record).get(5, TimeUnit.SECONDS);
+        first.process(record.withIncrementedRetry()).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(1, transforms.get());
+        assertSame(first.sent.get(0), second.sent.get(0));
+        assertSame(first.sent.get(0), first.sent.get(1));
+    }
+
+    @Test
+    void testSinksShareOnePooledBufferReleasedWithTheRecord() throws Exception {
+        // Arrange
+        TransformerFactory.registerCustomTransformer(new CountingTransformer());
+        BufferPool pool = new BufferPool(false, 16, true);
+        CapturingSink first = new CapturingSink("FIRST", pool);
+        CapturingSink second = new CapturingSink("SECOND", pool);
+        Record record = new Record(Map.of("n", 1), "TEST");
+
+        // Act
+        first.process(record).get(5, TimeUnit.SECONDS);
+        second.process(record).get(5, TimeUnit.SECONDS);
+        long outstandingBeforeRelease = pool.getOutstanding();
+        record.releaseEncodings();
+
+        // Assert
+        assertEquals(1, pool.getAcquired());
+        assertEquals(1, outstandingBeforeRelease);
+        assertEquals(record.getId(), StandardCharsets.UTF_8.decode(first.buffers.get(0)).toString());
+        assertEquals(record.getId(), StandardCharsets.UTF_8.decode(second.buffers.get(0)).toString());
+        pool.assertNoLeaks();
+    }
+
+    @Test
+    void testPooledBufferReachesSendToSinkWithoutACopy() throws Exception {
+        // Arrange
+        TransformerFactory.registerCustomTransformer(new CountingTransformer());
+        BufferPool pool = new BufferPool(false, 16, true);
+        CapturingSink sink = new CapturingSink("FIRST", pool);
+        Record record = new Record(Map.of("n", 1), "TEST");
+
+        // Act
+        sink.process(record).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        ByteBuffer buffer = sink.buffers.get(0);
+        byte[] id = record.getId().getBytes(StandardCharsets.UTF_8);
+        assertTrue(buffer.array().length > id.length, "pooled buffers are rounded up to a size class");
+        assertSame(buffer.array(), sink.sent.get(0));
+        assertEquals(id.length, sink.lengths.get(0));
+        assertEquals(record.getId(), new String(sink.sent.get(0), sink.offsets.get(0), sink.lengths.get(0),
+                StandardCharsets.UTF_8));
+        record.releaseEncodings();
+        pool.assertNoLeaks();
+    }
+
+    private static class CountingTransformer implements DataTransformer {
+        @Override
+        public byte[] transform(Record record) {
+            transforms.incrementAndGet();
+            return record.getId().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String getType() {
+            return "COUNTING";
+        }
+    }
+
+    private class CapturingSink extends AbstractSink {
+        final List<byte[]> sent = new CopyOnWriteArrayList<>();
+        final List<ByteBuffer> buffers = new CopyOnWriteArrayList<>();
+        final List<Integer> offsets = new CopyOnWriteArrayList<>();
+        final List<Integer> lengths = new CopyOnWriteArrayList<>();
+
+        CapturingSink(String name) {
+            this(name, null);
+        }
+
+        CapturingSink(String name, BufferPool pool) {
+            super(sinkConfig(name), context(pool));
+        }
+
+        @Override
+        protected void sendBuffer(ByteBuffer data, Record record) throws Exception {
+            buffers.add(data);
+            super.sendBuffer(data, record);
+        }
+
+        @Override
+        protected void sendToSink(byte[] data, int offset, int length, Record record) {
+            sent.add(data);
+            offsets.add(offset);
+            lengths.add(length);
+        }
+    }
+
+    private SinkContext context(BufferPool pool) {
+        SinkContext context = new SinkContext(executor);
+        context.setBufferPool(pool);
+        return context;
+    }
+
+    private static SinkConfig sinkConfig(String name) {
+        SinkConfig config = new SinkConfig();
+        config.setName(name);
+        config.setType("TEST");
+        config.setRateLimit(100_000);
+        config.setTransformation("COUNTING");
+        return config;
+    }
+}
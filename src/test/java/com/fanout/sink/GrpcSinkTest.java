@@ -0,0 +1,330 @@
+package com.fanout.sink;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import com.fanout.model.SinkConfig;
+import com.fanout.sink.RecordStreamProtocol.Ack;
+import com.fanout.sink.RecordStreamProtocol.Frame;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcSinkTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger streams = new AtomicInteger();
+    private final List<ServerCallStreamObserver<Ack>> calls = new CopyOnWriteArrayList<>();
+    private volatile int initialRequest = Integer.MAX_VALUE;
+    private volatile boolean failFirstStream;
+    private volatile boolean neverAck;
+    private volatile boolean refuseStreams;
+    private int timeoutMs = 5_000;
+    private CountDownLatch writing;
+    private CountDownLatch finishWrite;
+    private Server server;
+    private GrpcSink sink;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (sink != null) {
+            sink.shutdown();
+        }
+        server.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testAcksMapToResults() throws Exception {
+        // Arrange
+        sink = startSink();
+
+        // Act
+        ProcessingResult ok = process("alice");
+        ProcessingResult rejected = process("invalid");
+        ProcessingResult unavailable = process("unavailable");
+
+        // Assert
+        assertTrue(ok.isSuccess());
+        assertTrue(rejected.isFailure());
+        assertTrue(rejected.getErrorMessage().contains("INVALID_ARGUMENT"));
+        assertTrue(unavailable.shouldRetry());
+        // One stream carried every record
+        assertEquals(1, streams.get());
+        assertEquals(3, received.size());
+    }
+
+    @Test
+    void testFramesWaitWhileTheStreamIsNotReady() throws Exception {
+        // Arrange
+        initialRequest = 2;
+        sink = startSink();
+
+        // Act
+        List<CompletableFuture<ProcessingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(sink.process(new Record(Map.of("name", "r" + i), "TEST")));
+        }
+        awaitTrue(() -> received.size() == 2 && sink.getQueued() == 8);
+        int receivedBeforeRequest = received.size();
+        calls.get(0).request(8);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(2, receivedBeforeRequest);
+        assertEquals(10, received.size());
+        assertEquals(0, sink.getQueued());
+        for (CompletableFuture<ProcessingResult> future : futures) {
+            assertTrue(future.get().isSuccess());
+        }
+    }
+
+    @Test
+    void testBrokenStreamFailsPendingRecordsAndReconnects() throws Exception {
+        // Arrange
+        failFirstStream = true;
+        sink = startSink();
+
+        // Act
+        ProcessingResult lost = process("first");
+        ProcessingResult delivered = process("second");
+
+        // Assert
+        assertTrue(lost.shouldRetry());
+        assertTrue(delivered.isSuccess());
+        assertEquals(2, streams.get());
+    }
+
+    @Test
+    void testTimedOutFramesAreNotWrittenLater() throws Exception {
+        // Arrange
+        initialRequest = 1;
+        neverAck = true;
+        timeoutMs = 200;
+        sink = startSink();
+
+        // Act
+        List<CompletableFuture<ProcessingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(sink.process(new Record(Map.of("name", "r" + i), "TEST")));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        calls.get(0).request(10);
+        Thread.sleep(100);
+
+        // Assert
+        for (CompletableFuture<ProcessingResult> future : futures) {
+            assertFalse(future.get().isSuccess());
+        }
+        // Only the frame written before the timeout reached the server, and nothing is left waiting
+        assertEquals(1, received.size());
+        assertEquals(0, sink.getQueued());
+        assertEquals(0, sink.getUnacked());
+    }
+
+    @Test
+    void testTimedOutRecordWaitsForItsFrameToBeWritten() throws Exception {
+        // Arrange
+        neverAck = true;
+        timeoutMs = 100;
+        writing = new CountDownLatch(1);
+        finishWrite = new CountDownLatch(1);
+        sink = startSink();
+
+        // Act
+        CompletableFuture<ProcessingResult> future = sink.process(new Record(Map.of("name", "slow"), "TEST"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        Thread.sleep(timeoutMs * 3L);
+        boolean doneWhileWriting = future.isDone();
+        finishWrite.countDown();
+        ProcessingResult result = future.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        // The timeout fired mid-write, but the buffer stays with the sink until onNext returns
+        assertFalse(doneWhileWriting);
+        assertTrue(result.shouldRetry());
+    }
+
+    @Test
+    void testRefusedStreamsAreReopenedWithBackoff() throws Exception {
+        // Arrange
+        refuseStreams = true;
+        timeoutMs = 500;
+        sink = startSink();
+
+        // Act
+        ProcessingResult result = process("first");
+
+        // Assert
+        assertFalse(result.isSuccess());
+        // Backoff of 50ms doubling per attempt allows a handful of streams, not a tight loop
+        assertTrue(streams.get() <= 6, "opened " + streams.get() + " streams");
+    }
+
+    private ProcessingResult process(String name) throws Exception {
+        return sink.process(new Record(Map.of("name", name), "TEST")).get(5, TimeUnit.SECONDS);
+    }
+
+    private StreamObserver<Frame> handle(StreamObserver<Ack> responses) {
+        ServerCallStreamObserver<Ack> call = (ServerCallStreamObserver<Ack>) responses;
+        int stream = streams.incrementAndGet();
+        if (initialRequest != Integer.MAX_VALUE) {
+            call.disableAutoRequest();
+            call.request(initialRequest);
+        }
+        calls.add(call);
+        if (refuseStreams) {
+            responses.onError(Status.UNAVAILABLE.withDescription("refused").asRuntimeException());
+        }
+
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(Frame frame) {
+                String payload = StandardCharsets.UTF_8.decode(frame.payload).toString();
+                received.add(payload);
+                if (neverAck) {
+                    return;
+                }
+                if (failFirstStream && stream == 1) {
+                    responses.onError(Status.UNAVAILABLE.withDescription("going away").asRuntimeException());
+                } else if (payload.contains("invalid")) {
+                    responses.onNext(new Ack(frame.sequence, Status.Code.INVALID_ARGUMENT.value(), "bad record"));
+                } else if (payload.contains("unavailable")) {
+                    responses.onNext(new Ack(frame.sequence, Status.Code.UNAVAILABLE.value(), "busy"));
+                } else {
+                    responses.onNext(new Ack(frame.sequence, 0, null));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+                responses.onCompleted();
+            }
+        };
+    }
+
+    private GrpcSink startSink() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(ServerServiceDefinition.builder("fanout.RecordSink")
+                        .addMethod(RecordStreamProtocol.STREAM_METHOD, ServerCalls.asyncBidiStreamingCall(this::handle))
+                        .build())
+                .build()
+                .start();
+
+        SinkConfig config = new SinkConfig();
+        config.setName("GRPC_TEST");
+        config.setType("GRPC");
+        config.setEndpoint(name);
+        config.setRateLimit(100_000);
+        config.setRetryAttempts(3);
+        config.setTimeoutMs(timeoutMs);
+        config.setRetryBackoffMs(50);
+        config.setRetryJitter(0);
+        config.setTransformation("JSON");
+
+        ManagedChannel channel = InProcessChannelBuilder.forName(name).build();
+        GrpcSink grpcSink = new GrpcSink(config, new SinkContext(executor),
+                writing != null ? new StallingChannel(channel) : channel);
+        grpcSink.initialize();
+        return grpcSink;
+    }
+
+    /**
+     * Holds each frame inside sendMessage until the test lets it go
+     */
+    private class StallingChannel extends ManagedChannel {
+        private final ManagedChannel delegate;
+
+        StallingChannel(ManagedChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <Q, R> ClientCall<Q, R> newCall(MethodDescriptor<Q, R> method, CallOptions options) {
+            return new SimpleForwardingClientCall<>(delegate.newCall(method, options)) {
+                @Override
+                public void sendMessage(Q message) {
+                    writing.countDown();
+                    try {
+                        finishWrite.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    super.sendMessage(message);
+                }
+            };
+        }
+
+        @Override
+        public String authority() {
+            return delegate.authority();
+        }
+
+        @Override
+        public ManagedChannel shutdown() {
+            delegate.shutdown();
+            return this;
+        }
+
+        @Override
+        public ManagedChannel shutdownNow() {
+            delegate.shutdownNow();
+            return this;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,171 @@
+package com.fanout.sink;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import com.fanout.model.SinkConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageQueueSinkTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private MessageQueueSink sink;
+
+    @TempDir
+    Path brokerDir;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (sink != null) {
+            sink.shutdown();
+        }
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testRecordsSharingAKeyArePublishedInOrder() throws Exception {
+        // Arrange
+        InMemoryBroker broker = new InMemoryBroker(4, 1_000, brokerDir);
+        sink = startSink(broker);
+
+        // Act
+        List<CompletableFuture<ProcessingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(sink.process(new Record(Map.of("account", "acct-" + i % 7, "n", i), "TEST")));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        for (CompletableFuture<ProcessingResult> future : futures) {
+            assertTrue(future.get().isSuccess());
+        }
+        long total = 0;
+        Map<String, Integer> partitionOfKey = new HashMap<>();
+        for (int partition = 0; partition < 4; partition++) {
+            Map<String, Integer> lastByKey = new HashMap<>();
+            for (MessageProducer.Message message : broker.read("events", partition)) {
+                int n = sequenceOf(message);
+                Integer previous = lastByKey.put(message.getKey(), n);
+                assertTrue(previous == null || previous < n, message.getKey() + " out of order");
+                Integer owner = partitionOfKey.putIfAbsent(message.getKey(), partition);
+                assertTrue(owner == null || owner == partition, message.getKey() + " split across partitions");
+                total++;
+            }
+            if (broker.endOffset("events", partition) > 0) {
+                assertTrue(Files.size(brokerDir.resolve("events-" + partition + ".log")) > 0);
+            }
+        }
+        assertEquals(200, total);
+    }
+
+    @Test
+    void testBatchesCompleteOnAckAndOneAtATimePerPartition() throws Exception {
+        // Arrange
+        ManualAckProducer producer = new ManualAckProducer();
+        sink = startSink(producer);
+
+        // Act
+        List<CompletableFuture<ProcessingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(sink.process(new Record(Map.of("account", "same", "n", i), "TEST")));
+        }
+        awaitSends(producer, 1);
+        Thread.sleep(100);
+        int sendsBeforeAck = producer.sends.size();
+        boolean doneBeforeAck = futures.stream().anyMatch(CompletableFuture::isDone);
+        producer.sends.get(0).ack.complete(null);
+        awaitSends(producer, 2);
+        producer.sends.get(1).ack.completeExceptionally(new RuntimeException("broker unavailable"));
+
+        // Assert
+        assertEquals(1, sendsBeforeAck);
+        assertFalse(doneBeforeAck);
+        for (int i = 0; i < 8; i++) {
+            ProcessingResult result = futures.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals(i < 4, result.isSuccess(), "record " + i);
+            assertEquals(i >= 4, result.shouldRetry(), "record " + i);
+        }
+    }
+
+    private static int sequenceOf(MessageProducer.Message message) throws Exception {
+        String json = StandardCharsets.UTF_8.decode(message.getValue().duplicate()).toString();
+        return new ObjectMapper().readTree(json).get("data").get("n").asInt();
+    }
+
+    private static void awaitSends(ManualAckProducer producer, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (producer.sends.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(producer.sends.size() >= count);
+    }
+
+    private MessageQueueSink startSink(MessageProducer producer) throws Exception {
+        SinkConfig config = new SinkConfig();
+        config.setName("MQ_TEST");
+        config.setType("MQ");
+        config.setTopic("events");
+        config.setRateLimit(100_000);
+        config.setRetryAttempts(3);
+        config.setTransformation("JSON");
+        config.setPartitionKey("account");
+        config.setBatchSize(4);
+        config.setLingerMs(20);
+
+        MessageQueueSink mqSink = new MessageQueueSink(config, new SinkContext(executor, scheduler), producer);
+        mqSink.initialize();
+        return mqSink;
+    }
+
+    /**
+     * Producer whose batches stay unacknowledged until the test completes them
+     */
+    private static class ManualAckProducer implements MessageProducer {
+        final List<Send> sends = new CopyOnWriteArrayList<>();
+
+        @Override
+        public int partitionCount(String topic) {
+            return 2;
+        }
+
+        @Override
+        public CompletableFuture<Void> send(String topic, int partition, List<Message> messages) {
+            Send send = new Send(messages.size());
+            sends.add(send);
+            return send.ack;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class Send {
+        final int size;
+        final CompletableFuture<Void> ack = new CompletableFuture<>();
+
+        Send(int size) {
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.fanout.sink;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import com.fanout.model.SinkConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestApiSinkTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final List<String> contentTypes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile long latencyMs;
+    private HttpServer server;
+    private RestApiSink sink;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ingest", this::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (sink != null) {
+            sink.shutdown();
+        }
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testPostsEncodedRecord() throws Exception {
+        // Arrange
+        sink = startSink(4);
+        Record record = new Record(Map.of("name", "alice"), "TEST");
+
+        // Act
+        ProcessingResult result = sink.process(record).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertEquals(List.of("application/json"), contentTypes);
+        assertTrue(bodies.get(0).contains("\"name\":\"alice\""));
+        assertTrue(bodies.get(0).contains(record.getId()));
+    }
+
+    @Test
+    void testThrottlingIsRetriedButClientErrorsAreNot() throws Exception {
+        // Arrange
+        sink = startSink(4);
+
+        // Act
+        status = 429;
+        ProcessingResult throttled = sink.process(new Record(Map.of("n", 1), "TEST")).get(5, TimeUnit.SECONDS);
+        status = 503;
+        ProcessingResult unavailable = sink.process(new Record(Map.of("n", 2), "TEST")).get(5, TimeUnit.SECONDS);
+        status = 400;
+        ProcessingResult rejected = sink.process(new Record(Map.of("n", 3), "TEST")).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(throttled.shouldRetry());
+        assertTrue(unavailable.shouldRetry());
+        assertTrue(rejected.isFailure());
+        assertEquals("HTTP error: 400", rejected.getErrorMessage());
+    }
+
+    @Test
+    void testInFlightRequestsAreCappedByTheWindowNotThreads() throws Exception {
+        // Arrange
+        sink = startSink(4);
+        latencyMs = 100;
+
+        // Act
+        List<CompletableFuture<ProcessingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(sink.process(new Record(Map.of("n", i), "TEST")));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        for (CompletableFuture<ProcessingResult> future : futures) {
+            assertTrue(future.get().isSuccess());
+        }
+        assertEquals(16, bodies.size());
+        // Two sink threads, yet up to the full window of four requests overlapped
+        assertTrue(maxConcurrent.get() > 2, "max concurrent " + maxConcurrent.get());
+        assertTrue(maxConcurrent.get() <= 4, "max concurrent " + maxConcurrent.get());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int now = concurrent.incrementAndGet();
+        maxConcurrent.accumulateAndGet(now, Math::max);
+        try {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            contentTypes.add(exchange.getRequestHeaders().getFirst("Content-Type"));
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            exchange.sendResponseHeaders(status, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrent.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private RestApiSink startSink(int maxInFlight) throws Exception {
+        SinkConfig config = new SinkConfig();
+        config.setName("REST_TEST");
+        config.setType("REST");
+        config.setEndpoint("http://localhost:" + server.getAddress().getPort() + "/ingest");
+        config.setRateLimit(100_000);
+        config.setRetryAttempts(3);
+        config.setTimeoutMs(5_000);
+        config.setTransformation("JSON");
+        config.setMaxInFlight(maxInFlight);
+
+        RestApiSink restSink = new RestApiSink(config, new SinkContext(executor));
+        restSink.initialize();
+        return restSink;
+    }
+}
@@ -0,0 +1,218 @@
+package com.fanout.sink;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import com.fanout.model.SinkConfig;
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WideColumnDbSinkTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final FakeSession session = new FakeSession();
+    private WideColumnDbSink sink;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (sink != null) {
+            sink.shutdown();
+        }
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testPreparesOnceAndRoutesEachRowToItsReplica() throws Exception {
+        // Arrange
+        sink = startSink(config(0, 0, 8));
+
+        // Act
+        List<ProcessingResult> results = processAll(30, i -> "acct-" + i);
+
+        // Assert
+        assertTrue(results.stream().allMatch(ProcessingResult::isSuccess));
+        assertEquals(1, session.prepared.size());
+        assertEquals("INSERT INTO fanout.records (\"account\", \"id\", \"timestamp\", \"source\", \"data\") VALUES (?, ?, ?, ?, ?)",
+                session.prepared.get(0));
+        assertEquals(30, session.rows.get());
+        assertEquals(0, session.misrouted.get());
+        assertTrue(session.maxInFlight.keySet().size() > 1);
+    }
+
+    @Test
+    void testConcurrentWritesPerReplicaAreCapped() throws Exception {
+        // Arrange
+        session.latencyMs = 30;
+        sink = startSink(config(0, 0, 2));
+
+        // Act
+        List<ProcessingResult> results = processAll(40, i -> "acct-" + i);
+
+        // Assert
+        assertTrue(results.stream().allMatch(ProcessingResult::isSuccess));
+        for (Map.Entry<String, AtomicInteger> replica : session.maxInFlight.entrySet()) {
+            assertTrue(replica.getValue().get() <= 2, replica.getKey() + " had " + replica.getValue().get());
+        }
+        assertTrue(session.maxInFlight.values().stream().anyMatch(max -> max.get() == 2));
+    }
+
+    @Test
+    void testBatchesAreUnloggedAndSinglePartition() throws Exception {
+        // Arrange
+        sink = startSink(config(20, 20, 8));
+
+        // Act
+        List<ProcessingResult> results = processAll(60, i -> "acct-" + i % 3);
+
+        // Assert
+        assertTrue(results.stream().allMatch(ProcessingResult::isSuccess));
+        assertEquals(60, session.rows.get());
+        assertFalse(session.batches.isEmpty());
+        for (List<Object> partitionKeys : session.batches) {
+            assertEquals(1, new HashSet<>(partitionKeys).size(), "batch spans partitions " + partitionKeys);
+        }
+    }
+
+    @Test
+    void testRecordWithoutPartitionKeyIsNotRetried() throws Exception {
+        // Arrange
+        sink = startSink(config(0, 0, 8));
+
+        // Act
+        ProcessingResult result = sink.process(new Record(Map.of("other", 1), "TEST")).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(result.isFailure());
+        assertEquals(0, session.rows.get());
+    }
+
+    private List<ProcessingResult> processAll(int count, IntFunction<String> account) throws Exception {
+        List<CompletableFuture<ProcessingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(sink.process(new Record(Map.of("account", account.apply(i), "n", i), "TEST")));
+        }
+        List<ProcessingResult> results = new ArrayList<>();
+        for (CompletableFuture<ProcessingResult> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @Test
+    void testRefusesToStartWithoutADriverUnlessSimulated() {
+        // Arrange
+        WideColumnDbSink unconfigured = new WideColumnDbSink(config(0, 0, 8), new SinkContext(executor, scheduler));
+
+        // Act
+        IllegalStateException error = assertThrows(IllegalStateException.class, unconfigured::initialize);
+
+        // Assert
+        assertTrue(error.getMessage().contains("No DB driver configured"));
+    }
+
+    private SinkConfig config(int batchSize, long lingerMs, int maxInFlight) {
+        SinkConfig config = new SinkConfig();
+        config.setName("DB_TEST");
+        config.setType("DB");
+        config.setKeyspace("fanout");
+        config.setTable("records");
+        config.setRateLimit(100_000);
+        config.setRetryAttempts(3);
+        config.setTransformation("AVRO");
+        config.setPartitionKey("account");
+        config.setBatchSize(batchSize);
+        config.setLingerMs(lingerMs);
+        config.setMaxInFlight(maxInFlight);
+        return config;
+    }
+
+    private WideColumnDbSink startSink(SinkConfig config) throws Exception {
+        WideColumnDbSink dbSink = new WideColumnDbSink(config, new SinkContext(executor, scheduler), session);
+        dbSink.initialize();
+        return dbSink;
+    }
+
+    /**
+     * Three-replica cluster that checks each write reached the replica owning its partition
+     */
+    private class FakeSession implements DbSession {
+        private static final List<String> REPLICAS = List.of("10.0.0.1", "10.0.0.2", "10.0.0.3");
+
+        final List<String> prepared = new CopyOnWriteArrayList<>();
+        final List<List<Object>> batches = new CopyOnWriteArrayList<>();
+        final AtomicInteger rows = new AtomicInteger();
+        final AtomicInteger misrouted = new AtomicInteger();
+        final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+        volatile long latencyMs;
+
+        @Override
+        public Prepared prepare(String query) {
+            prepared.add(query);
+            return new Prepared(query);
+        }
+
+        @Override
+        public String replicaFor(String keyspace, long token) {
+            return REPLICAS.get(Math.floorMod(token, REPLICAS.size()));
+        }
+
+        @Override
+        public CompletableFuture<Void> executeAsync(String replica, Bound statement) {
+            return write(replica, List.of(statement));
+        }
+
+        @Override
+        public CompletableFuture<Void> executeBatchAsync(String replica, List<Bound> statements) {
+            List<Object> partitionKeys = new ArrayList<>();
+            for (Bound statement : statements) {
+                partitionKeys.add(statement.getValue(0));
+            }
+            batches.add(partitionKeys);
+            return write(replica, statements);
+        }
+
+        private CompletableFuture<Void> write(String replica, List<Bound> statements) {
+            int now = inFlight.computeIfAbsent(replica, r -> new AtomicInteger()).incrementAndGet();
+            maxInFlight.computeIfAbsent(replica, r -> new AtomicInteger()).accumulateAndGet(now, Math::max);
+            for (Bound statement : statements) {
+                String partitionKey = (String) statement.getValue(0);
+                long token = Hashing.murmur3_128().hashString(partitionKey, StandardCharsets.UTF_8).asLong();
+                if (!replicaFor("fanout", token).equals(replica)) {
+                    misrouted.incrementAndGet();
+                }
+            }
+            rows.addAndGet(statements.size());
+
+            CompletableFuture<Void> ack = new CompletableFuture<>();
+            scheduler.schedule(() -> {
+                inFlight.get(replica).decrementAndGet();
+                ack.complete(null);
+            }, latencyMs, TimeUnit.MILLISECONDS);
+            return ack;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
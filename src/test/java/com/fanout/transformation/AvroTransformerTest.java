@@ -0,0 +1,118 @@
+package com.fanout.transformation;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvroTransformerTest {
+
+    private static final RecordSchema SCHEMA = RecordSchema.of("name", "age", "score", "active", "zip code");
+
+    @Test
+    void testWritesTypedFieldsFromInferredSchema() throws Exception {
+        // Arrange
+        AvroTransformer transformer = new AvroTransformer();
+        Record record = new Record(SCHEMA, new Object[]{"Alice", 30, 1.5, true, null}, "TEST");
+
+        // Act
+        byte[] result = transformer.transform(record);
+
+        // Assert
+        Schema schema = transformer.getSchema(SCHEMA);
+        GenericRecord decoded = decode(schema, result);
+        assertEquals(record.getId(), decoded.get("id").toString());
+        assertEquals(record.getTimestampMillis(), decoded.get("timestamp"));
+        assertEquals("TEST", decoded.get("source").toString());
+
+        GenericRecord data = (GenericRecord) decoded.get("data");
+        assertEquals("Alice", data.get("name").toString());
+        assertEquals(30L, data.get("age"));
+        assertEquals(1.5, data.get("score"));
+        assertEquals(true, data.get("active"));
+        assertNull(data.get("zip_code"));
+        assertEquals("zip code", schema.getField("data").schema().getField("zip_code").getProp("sourceField"));
+    }
+
+    @Test
+    void testWidensFieldWhenValueDoesNotFit() throws Exception {
+        // Arrange
+        AvroTransformer transformer = new AvroTransformer();
+        transformer.transform(new Record(SCHEMA, new Object[]{"Alice", 30, 1.5, true, "0150"}, "TEST"));
+        Schema inferred = transformer.getSchema(SCHEMA);
+
+        // Act
+        byte[] result = transformer.transform(new Record(SCHEMA, new Object[]{"Bob", 30.5, 2.0, false, "0151"}, "TEST"));
+
+        // Assert
+        Schema widened = transformer.getSchema(SCHEMA);
+        assertNotEquals(inferred, widened);
+        GenericRecord data = (GenericRecord) decode(widened, result).get("data");
+        assertEquals(30.5, data.get("age"));
+    }
+
+    @Test
+    void testSingleObjectEncodingCarriesFingerprint() throws Exception {
+        // Arrange
+        AvroTransformer transformer = new AvroTransformer(true);
+        Record record = new Record(SCHEMA, new Object[]{"Alice", 30, 1.5, true, "0150"}, "TEST");
+
+        // Act
+        byte[] result = transformer.transform(record);
+
+        // Assert
+        Schema schema = transformer.getSchema(SCHEMA);
+        long fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+        assertEquals((byte) 0xC3, result[0]);
+        assertEquals((byte) 0x01, result[1]);
+        assertSame(schema, transformer.findSchema(fingerprint));
+
+        BinaryMessageDecoder<GenericRecord> decoder =
+                new BinaryMessageDecoder<>(GenericData.get(), schema, transformer::findSchema);
+        GenericRecord decoded = decoder.decode(result);
+        assertEquals(record.getId(), decoded.get("id").toString());
+        assertEquals("0150", ((GenericRecord) decoded.get("data")).get("zip_code").toString());
+    }
+
+    @Test
+    void testSchemasPastTheLayoutCapStayBounded() throws Exception {
+        // Arrange
+        AvroTransformer transformer = new AvroTransformer(true, 2);
+        long[] fingerprints = new long[10];
+
+        // Act
+        for (int i = 0; i < fingerprints.length; i++) {
+            RecordSchema schema = RecordSchema.of("field" + i);
+            byte[] result = transformer.transform(new Record(schema, new Object[]{i}, "TEST"));
+            fingerprints[i] = ByteBuffer.wrap(result, 2, 8).order(ByteOrder.LITTLE_ENDIAN).getLong();
+        }
+
+        // Assert
+        // The first two are registered, of the one-offs after them only the latest two resolve
+        assertNotNull(transformer.getSchema(RecordSchema.of("field1")));
+        assertNull(transformer.getSchema(RecordSchema.of("field2")));
+        assertNotNull(transformer.findSchema(fingerprints[0]));
+        assertNotNull(transformer.findSchema(fingerprints[1]));
+        for (int i = 2; i < 8; i++) {
+            assertNull(transformer.findSchema(fingerprints[i]));
+        }
+        assertNotNull(transformer.findSchema(fingerprints[8]));
+        assertNotNull(transformer.findSchema(fingerprints[9]));
+    }
+
+    private static GenericRecord decode(Schema schema, byte[] bytes) throws Exception {
+        return new GenericDatumReader<GenericRecord>(schema)
+                .read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+    }
+}
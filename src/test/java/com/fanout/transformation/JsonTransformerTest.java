@@ -4,7 +4,12 @@ import com.fanout.model.Record;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,6 +47,33 @@ class JsonTransformerTest {
         assertEquals("test@example.com", parsedData.get("email"));
     }
 
+    @Test
+    void testPooledGeneratorsKeepConcurrentRecordsApart() throws Exception {
+        // Arrange
+        JsonTransformer transformer = new JsonTransformer();
+        ObjectMapper mapper = new ObjectMapper();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            records.add(new Record(Map.of("n", i, "tags", List.of("a", "b")), "TEST"));
+        }
+
+        // Act
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (Record record : records) {
+            results.add(executor.submit(() -> transformer.transform(record)));
+        }
+
+        // Assert
+        for (int i = 0; i < records.size(); i++) {
+            Map<?, ?> parsed = mapper.readValue(results.get(i).get(), Map.class);
+            assertEquals(records.get(i).getId(), parsed.get("id"));
+            assertEquals(records.get(i).getTimestamp().toString(), parsed.get("timestamp"));
+            assertEquals(i, ((Map<?, ?>) parsed.get("data")).get("n"));
+        }
+        executor.shutdown();
+    }
+
     @Test
     void testGetType() {
         JsonTransformer transformer = new JsonTransformer();
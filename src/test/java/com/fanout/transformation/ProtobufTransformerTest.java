@@ -0,0 +1,106 @@
+package com.fanout.transformation;
+
+import com.fanout.model.Record;
+import com.fanout.model.RecordSchema;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+import com.google.protobuf.Timestamp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtobufTransformerTest {
+
+    private static final RecordSchema SCHEMA = RecordSchema.of("name", "age", "score", "active", "zip code");
+
+    @Test
+    void testWritesWireFormatReadableWithDescriptor() throws Exception {
+        // Arrange
+        ProtobufTransformer transformer = new ProtobufTransformer();
+        Record record = new Record(SCHEMA, new Object[]{"Alice", 30, 1.5, true, null}, "TEST");
+
+        // Act
+        byte[] result = transformer.transform(record);
+
+        // Assert
+        Descriptors.Descriptor descriptor = transformer.getDescriptor(SCHEMA);
+        DynamicMessage message = DynamicMessage.parseFrom(descriptor, result);
+        assertEquals(record.getId(), message.getField(descriptor.findFieldByName("id")));
+        assertEquals("TEST", message.getField(descriptor.findFieldByName("source")));
+
+        Message timestampField = (Message) message.getField(descriptor.findFieldByName("timestamp"));
+        Timestamp timestamp = Timestamp.parseFrom(timestampField.toByteString());
+        assertEquals(record.getTimestampMillis(), timestamp.getSeconds() * 1000 + timestamp.getNanos() / 1_000_000);
+
+        DynamicMessage data = (DynamicMessage) message.getField(descriptor.findFieldByName("data"));
+        Descriptors.Descriptor dataType = data.getDescriptorForType();
+        assertEquals("Alice", data.getField(dataType.findFieldByName("name")));
+        assertEquals(30L, data.getField(dataType.findFieldByName("age")));
+        assertEquals(1.5, data.getField(dataType.findFieldByName("score")));
+        assertEquals(true, data.getField(dataType.findFieldByName("active")));
+        assertFalse(data.hasField(dataType.findFieldByName("zip_code")));
+    }
+
+    @Test
+    void testWideningMovesFieldToNewNumber() throws Exception {
+        // Arrange
+        ProtobufTransformer transformer = new ProtobufTransformer();
+        transformer.transform(new Record(SCHEMA, new Object[]{"Alice", 30, 1.5, true, "0150"}, "TEST"));
+
+        // Act
+        byte[] result = transformer.transform(new Record(SCHEMA, new Object[]{"Bob", "unknown", 2.0, false, "0151"}, "TEST"));
+
+        // Assert
+        Descriptors.Descriptor descriptor = transformer.getDescriptor(SCHEMA);
+        Descriptors.Descriptor dataType = descriptor.findNestedTypeByName("Data");
+        Descriptors.FieldDescriptor age = dataType.findFieldByName("age");
+        assertEquals(Descriptors.FieldDescriptor.Type.STRING, age.getType());
+        assertEquals(6, age.getNumber());
+        assertTrue(dataType.isReservedNumber(2));
+
+        DynamicMessage message = DynamicMessage.parseFrom(descriptor, result);
+        DynamicMessage data = (DynamicMessage) message.getField(descriptor.findFieldByName("data"));
+        assertEquals("unknown", data.getField(age));
+    }
+
+    @Test
+    void testWideningAtTheLayoutCapRegistersNothingNew() throws Exception {
+        // Arrange
+        ProtobufTransformer transformer = new ProtobufTransformer(1);
+        RecordSchema registered = RecordSchema.of("value");
+        RecordSchema oneOff = RecordSchema.of("other");
+        transformer.transform(new Record(registered, new Object[]{1}, "TEST"));
+
+        // Act
+        byte[] oneOffResult = transformer.transform(new Record(oneOff, new Object[]{1}, "TEST"));
+        transformer.transform(new Record(registered, new Object[]{1.5}, "TEST"));
+        transformer.transform(new Record(registered, new Object[]{"text"}, "TEST"));
+        transformer.transform(new Record(oneOff, new Object[]{"text"}, "TEST"));
+
+        // Assert
+        // The registered layout widens in place; the one past the cap never takes a slot
+        Descriptors.FieldDescriptor value = transformer.getDescriptor(registered)
+                .findNestedTypeByName("Data").findFieldByName("value");
+        assertEquals(Descriptors.FieldDescriptor.Type.STRING, value.getType());
+        assertNull(transformer.getDescriptor(oneOff));
+        assertTrue(oneOffResult.length > 0);
+    }
+
+    @Test
+    void testGrowsBuffersForLargeRecords() throws Exception {
+        // Arrange
+        ProtobufTransformer transformer = new ProtobufTransformer();
+        String large = "x".repeat(10_000);
+        Record record = new Record(RecordSchema.of("blob"), new Object[]{large}, "TEST");
+
+        // Act
+        byte[] result = transformer.transform(record);
+
+        // Assert
+        Descriptors.Descriptor descriptor = transformer.getDescriptor(record.getSchema());
+        DynamicMessage data = (DynamicMessage) DynamicMessage.parseFrom(descriptor, result)
+                .getField(descriptor.findFieldByName("data"));
+        assertEquals(large, data.getField(data.getDescriptorForType().findFieldByName("blob")));
+    }
+}
@@ -1,6 +1,7 @@
 package com.fanout.transformation;
 
 import com.fanout.model.Record;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import org.junit.jupiter.api.Test;
 
 import java.util.Map;
@@ -32,6 +33,26 @@ class XmlTransformerTest {
         assertTrue(xml.contains(">"));
     }
 
+    @Test
+    void testConsecutiveRecordsAreSeparateDocuments() throws Exception {
+        // Arrange
+        XmlTransformer transformer = new XmlTransformer();
+        XmlMapper mapper = new XmlMapper();
+        Record first = new Record(Map.of("name", "First"), "TEST");
+        Record second = new Record(Map.of("name", "Second"), "TEST");
+
+        // Act
+        byte[] firstXml = transformer.transform(first);
+        byte[] secondXml = transformer.transform(second);
+
+        // Assert
+        assertTrue(new String(secondXml).startsWith("<HashMap>"));
+        Map<?, ?> parsed = mapper.readValue(secondXml, Map.class);
+        assertEquals(second.getId(), parsed.get("id"));
+        assertEquals(Map.of("name", "Second"), parsed.get("data"));
+        assertEquals(first.getId(), mapper.readValue(firstXml, Map.class).get("id"));
+    }
+
     @Test
     void testGetType() {
         XmlTransformer transformer = new XmlTransformer();
@@ -0,0 +1,186 @@
+package com.fanout.util;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadLetterQueueTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWritesEveryRecordFromConcurrentCallers() throws Exception {
+        // Arrange
+        DeadLetterQueue dlq = new DeadLetterQueue(tempDir.toString(), true);
+        dlq.start();
+        List<Thread> callers = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < 4; t++) {
+            int caller = t;
+            callers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 500; i++) {
+                    dlq.writeFailedRecord(failure(caller * 1000 + i));
+                }
+            }));
+        }
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        dlq.close();
+
+        // Assert
+        List<JsonNode> entries = readEntries();
+        assertEquals(2000, entries.size());
+        assertEquals(2000, dlq.getWritten());
+        assertEquals(0, dlq.getDropped());
+        JsonNode first = entries.get(0);
+        assertEquals("REST_API", first.get("sinkName").asText());
+        assertEquals("HTTP error: 400", first.get("errorMessage").asText());
+        assertTrue(first.get("originalData").has("n"));
+        assertTrue(first.has("failedAt"));
+    }
+
+    @Test
+    void testRollsSegmentsAndDeletesTheOldestBeyondTheCap() throws Exception {
+        // Arrange
+        DeadLetterQueueConfig config = new DeadLetterQueueConfig();
+        config.setBatchSize(10);
+        config.setMaxSegmentBytes(2_000);
+        config.setMaxTotalBytes(10_000);
+        DeadLetterQueue dlq = new DeadLetterQueue(tempDir.toString(), true, config);
+        dlq.start();
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            dlq.writeFailedRecord(failure(i));
+        }
+        dlq.close();
+
+        // Assert
+        List<Path> segments = segments();
+        long total = 0;
+        for (Path segment : segments) {
+            total += Files.size(segment);
+        }
+        assertTrue(segments.size() > 1, segments.size() + " segments");
+        assertTrue(total <= 10_000, total + " bytes kept");
+        // What is left is the newest records
+        List<JsonNode> entries = readEntries();
+        assertEquals(1000, dlq.getWritten());
+        assertTrue(entries.size() < 1000);
+        assertEquals(999, entries.get(entries.size() - 1).get("originalData").get("n").asInt());
+    }
+
+    @Test
+    void testGzipSegmentsDecompressToTheSameEntries() throws Exception {
+        // Arrange
+        DeadLetterQueueConfig config = new DeadLetterQueueConfig();
+        config.setCompression(DeadLetterQueueConfig.Compression.GZIP);
+        config.setFsync(DeadLetterQueueConfig.FsyncPolicy.INTERVAL);
+        DeadLetterQueue dlq = new DeadLetterQueue(tempDir.toString(), true, config);
+        dlq.start();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            dlq.writeFailedRecord(failure(i));
+        }
+        dlq.close();
+
+        // Assert
+        assertTrue(segments().stream().allMatch(path -> path.toString().endsWith(".jsonl.gz")));
+        List<JsonNode> entries = readEntries();
+        assertEquals(100, entries.size());
+        assertEquals(0, entries.get(0).get("originalData").get("n").asInt());
+    }
+
+    @Test
+    void testRecordThatFailsToSerializeIsDroppedAlone() throws Exception {
+        // Arrange
+        DeadLetterQueue dlq = new DeadLetterQueue(tempDir.toString(), true);
+        dlq.start();
+
+        // Act
+        dlq.writeFailedRecord(failure(0));
+        // Jackson refuses to serialize a bean without properties
+        dlq.writeFailedRecord(ProcessingResult.failure(
+                new Record(Map.of("n", new Object()), "TEST"), "REST_API", "HTTP error: 400", 0));
+        dlq.writeFailedRecord(failure(2));
+        dlq.close();
+
+        // Assert
+        List<JsonNode> entries = readEntries();
+        assertEquals(2, entries.size());
+        assertEquals(0, entries.get(0).get("originalData").get("n").asInt());
+        assertEquals(2, entries.get(1).get("originalData").get("n").asInt());
+        assertEquals(2, dlq.getWritten());
+        assertEquals(1, dlq.getDropped());
+        assertEquals(0, dlq.getQueued());
+    }
+
+    @Test
+    void testRecordsQueuedBeforeStartAreWrittenAndLateOnesDropped() throws Exception {
+        // Arrange
+        DeadLetterQueue dlq = new DeadLetterQueue(tempDir.toString(), true);
+        dlq.writeFailedRecord(failure(0));
+
+        // Act
+        dlq.start();
+        dlq.writeFailedRecord(failure(1));
+        dlq.close();
+        dlq.writeFailedRecord(failure(2));
+
+        // Assert
+        assertEquals(2, readEntries().size());
+        assertEquals(2, dlq.getWritten());
+        assertEquals(1, dlq.getDropped());
+        assertEquals(0, dlq.getQueued());
+    }
+
+    private static ProcessingResult failure(int n) {
+        return ProcessingResult.failure(new Record(Map.of("n", n), "TEST"), "REST_API", "HTTP error: 400", 0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private List<JsonNode> readEntries() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> entries = new ArrayList<>();
+        for (Path segment : segments()) {
+            InputStream in = Files.newInputStream(segment);
+            if (segment.toString().endsWith(".gz")) {
+                in = new GZIPInputStream(in);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    entries.add(mapper.readTree(line));
+                }
+            }
+        }
+        return entries;
+    }
+}
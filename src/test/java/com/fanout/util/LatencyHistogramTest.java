@@ -0,0 +1,112 @@
+package com.fanout.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsStayWithinPrecision() {
+        int previous = -1;
+        for (long value = 0; value < 10_000_000_000L; value = value < 1000 ? value + 1 : value * 101 / 100) {
+            int index = LatencyHistogram.indexOf(value);
+            long reported = LatencyHistogram.highestEquivalentValue(index);
+
+            assertTrue(index >= previous, "index went backwards at " + value);
+            assertTrue(reported >= value && reported - value <= value / 64, "value " + value + " reported as " + reported);
+            previous = index;
+        }
+    }
+
+    @Test
+    void testPercentilesOfOneInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.intervalSnapshot();
+
+        assertEquals(1000, snapshot.getTotalCount());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_000, snapshot.getValueAtPercentile(50), 500_000 / 64);
+        assertEquals(990_000, snapshot.getValueAtPercentile(99), 990_000 / 64);
+        assertEquals(999_000, snapshot.getValueAtPercentile(99.9), 999_000 / 64);
+    }
+
+    @Test
+    void testSnapshotsCoverOnlyTheirInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5_000_000);
+        histogram.intervalSnapshot();
+
+        histogram.record(100);
+        LatencyHistogram.Snapshot second = histogram.intervalSnapshot();
+        LatencyHistogram.Snapshot empty = histogram.intervalSnapshot();
+
+        assertEquals(1, second.getTotalCount());
+        assertEquals(100, second.getMax());
+        assertEquals(100, second.getValueAtPercentile(99.9));
+        assertEquals(0, empty.getTotalCount());
+        assertEquals(0, empty.getValueAtPercentile(50));
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.intervalSnapshot();
+
+        assertEquals(400_000, snapshot.getTotalCount());
+        assertEquals(99_999, snapshot.getMax());
+    }
+
+    @Test
+    void testRecordingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100_000; i++) {
+            histogram.record(i * 7L);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            histogram.record(i * 7L);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(allocated < 1024, allocated + " bytes allocated");
+    }
+
+    @Test
+    void testCumulativeSnapshotLeavesIntervalsAlone() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.record(3_000);
+
+        LatencyHistogram.Snapshot cumulative = histogram.cumulativeSnapshot();
+        LatencyHistogram.Snapshot interval = histogram.intervalSnapshot();
+
+        assertEquals(2, cumulative.getTotalCount());
+        assertEquals(4_000, cumulative.getSum());
+        assertEquals(1, cumulative.getCountAtOrBelow(2_000));
+        assertEquals(2, interval.getTotalCount());
+        assertEquals(4_000, interval.getSum());
+    }
+}
@@ -0,0 +1,49 @@
+package com.fanout.util;
+
+import com.fanout.model.ProcessingResult;
+import com.fanout.model.Record;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsServerTest {
+
+    @Test
+    void testScrapeReturnsPrometheusText() throws Exception {
+        MetricsCollector metrics = new MetricsCollector();
+        Record record = new Record(Map.of("name", "a"), "test");
+        metrics.recordResult(ProcessingResult.success(record, "rest \"api\"", TimeUnit.MILLISECONDS.toNanos(3)));
+        metrics.recordResult(ProcessingResult.retry(record, "rest \"api\"", "timeout", TimeUnit.MILLISECONDS.toNanos(40)));
+        metrics.stageLatencies("rest \"api\"").record(StageLatencies.Stage.RATE_LIMIT, 200_000);
+        metrics.register("fanout_in_flight", "gauge", "In flight", () -> 7);
+
+        String body;
+        String contentType;
+        try (MetricsServer server = new MetricsServer(metrics, "127.0.0.1", 0)) {
+            server.start();
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            body = response.body();
+            contentType = response.headers().firstValue("Content-Type").orElse("");
+        }
+
+        assertTrue(contentType.startsWith("text/plain; version=0.0.4"));
+        assertTrue(body.contains("# TYPE fanout_records_total counter\n"));
+        assertTrue(body.contains("fanout_records_total{status=\"success\"} 1\n"));
+        assertTrue(body.contains("fanout_sink_records_total{sink=\"rest \\\"api\\\"\",status=\"retry\"} 1\n"));
+        assertTrue(body.contains("fanout_in_flight 7\n"));
+        assertTrue(body.contains("fanout_sink_processing_seconds_bucket{sink=\"rest \\\"api\\\"\",le=\"0.005\"} 1\n"));
+        assertTrue(body.contains("fanout_sink_processing_seconds_bucket{sink=\"rest \\\"api\\\"\",le=\"+Inf\"} 2\n"));
+        assertTrue(body.contains("fanout_sink_processing_seconds_count{sink=\"rest \\\"api\\\"\"} 2\n"));
+        assertTrue(body.contains("fanout_sink_stage_seconds_bucket{sink=\"rest \\\"api\\\"\",stage=\"rate_limit\",le=\"0.00025\"} 1\n"));
+    }
+}
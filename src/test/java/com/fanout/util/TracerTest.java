@@ -0,0 +1,79 @@
+package com.fanout.util;
+
+import com.fanout.model.Record;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracerTest {
+
+    @Test
+    void testSamplesEveryNthRecordAndItsRetries() {
+        // Arrange
+        Tracer tracer = new Tracer(4, 16, false);
+        int sampled = 0;
+
+        // Act
+        for (int i = 0; i < 400; i++) {
+            Record record = new Record(Map.of("n", i), "test");
+            if (tracer.isSampled(record)) {
+                sampled++;
+                assertTrue(tracer.isSampled(record.withIncrementedRetry()));
+            }
+        }
+
+        // Assert, allowing for records other threads created in between
+        assertEquals(100, sampled, 1);
+    }
+
+    @Test
+    void testRingKeepsNewestSpans() {
+        // Arrange
+        Tracer tracer = new Tracer(1, 4, false);
+        Record record = new Record(Map.of("n", 1), "test");
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            tracer.span(record, "span-" + i, "sink", i * 1000L, i * 1000L + 500);
+        }
+        List<Tracer.Span> spans = tracer.snapshot();
+
+        // Assert
+        assertEquals(List.of("span-6", "span-7", "span-8", "span-9"),
+                spans.stream().map(Tracer.Span::getName).toList());
+        assertEquals(500, spans.get(0).getDurationNanos());
+        assertEquals(record.getSequence(), spans.get(0).getRecordSequence());
+    }
+
+    @Test
+    void testChromeTraceHasARowPerSinkAndRecord() throws Exception {
+        // Arrange
+        Tracer tracer = new Tracer(1, 16, true);
+        Record record = new Record(Map.of("n", 1), "test");
+        long now = System.nanoTime();
+        tracer.span(record, "parse", null, now, now + 2_000);
+        tracer.span(record, "send", "REST_API", now + 2_000, now + 9_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        tracer.writeChromeTrace(out);
+        JsonNode events = new ObjectMapper().readTree(out.toByteArray()).get("traceEvents");
+
+        // Assert
+        assertEquals(4, events.size());
+        assertEquals("pipeline", events.get(0).get("args").get("name").asText());
+        assertEquals("REST_API", events.get(1).get("args").get("name").asText());
+        JsonNode send = events.get(3);
+        assertEquals("send", send.get("name").asText());
+        assertEquals("X", send.get("ph").asText());
+        assertEquals(1, send.get("pid").asInt());
+        assertEquals(record.getSequence(), send.get("tid").asLong());
+        assertEquals(7.0, send.get("dur").asDouble(), 0.001);
+    }
+}